@@ -0,0 +1,229 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.javagl.hexagon.HexagonCellOrder;
+import de.javagl.hexagon.HexagonCellStore;
+import de.javagl.hexagon.HexagonGrid;
+import de.javagl.hexagon.HexagonGridRegion;
+import de.javagl.hexagon.HexagonGrids;
+
+/**
+ * Benchmarks for gathering the values of the neighbors of cells from a 
+ * {@link HexagonCellStore}, comparing the row-major and the Morton 
+ * {@link HexagonCellOrder}.<br>
+ * <br>
+ * The region is large enough for a layer not to fit into the caches.
+ * The neighbors are gathered for all cells, once in the order in which
+ * the cells are stored, and once in the order of a breadth-first 
+ * traversal that starts at the center of the region, like in a flood 
+ * fill or a path search. The reported times are the times per cell.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexagonCellOrderBenchmark
+{
+    /**
+     * The width and height of the region
+     */
+    private static final int SIZE = 2048;
+    
+    /**
+     * The number of cells that are processed in each benchmark call
+     */
+    private static final int COUNT = SIZE * SIZE;
+    
+    /**
+     * The cell order, "rowMajor" or "morton"
+     */
+    @Param({"rowMajor", "morton"})
+    public String order;
+    
+    /**
+     * Whether the hexagons of the grid are vertical
+     */
+    @Param({"true", "false"})
+    public boolean vertical;
+    
+    /**
+     * The {@link HexagonCellOrder}
+     */
+    private HexagonCellOrder cellOrder;
+    
+    /**
+     * The layer that stores the values
+     */
+    private HexagonCellStore.FloatLayer layer;
+    
+    /**
+     * The indices of the cells in the cell order, in the order of a 
+     * breadth-first traversal
+     */
+    private int traversal[];
+    
+    /**
+     * Whether the element at each index of the cell order is a cell of
+     * the region, and not a padding element of a Morton order
+     */
+    private boolean valid[];
+    
+    /**
+     * The array that receives the neighbor indices
+     */
+    private final int neighbors[] = new int[6];
+    
+    /**
+     * Set up the store and the traversal
+     */
+    @Setup
+    public void setup()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(10.0, vertical, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, SIZE, SIZE);
+        if (order.equals("morton"))
+        {
+            cellOrder = HexagonCellOrder.createMorton(region);
+        }
+        else
+        {
+            cellOrder = HexagonCellOrder.createRowMajor(region);
+        }
+        HexagonCellStore store = new HexagonCellStore(cellOrder);
+        layer = store.addFloatLayer();
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            layer.set(x, y, (float)(i % 17));
+        }
+        
+        int queue[] = new int[COUNT];
+        boolean visited[] = new boolean[COUNT];
+        int head = 0;
+        int tail = 0;
+        int start = region.getIndex(SIZE / 2, SIZE / 2);
+        queue[tail++] = start;
+        visited[start] = true;
+        while (head < tail)
+        {
+            int current = queue[head++];
+            for (int d = 0; d < 6; d++)
+            {
+                int neighbor = region.getNeighborIndex(current, d);
+                if (neighbor >= 0 && !visited[neighbor])
+                {
+                    visited[neighbor] = true;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        valid = new boolean[cellOrder.getSize()];
+        for (int i = 0; i < valid.length; i++)
+        {
+            valid[i] = region.contains(cellOrder.getX(i), cellOrder.getY(i));
+        }
+        
+        traversal = new int[COUNT];
+        for (int i = 0; i < COUNT; i++)
+        {
+            int cell = queue[i];
+            traversal[i] = 
+                cellOrder.getIndex(region.getX(cell), region.getY(cell));
+        }
+    }
+    
+    /**
+     * Returns the sum of the values of the neighbors of the cell with
+     * the given index in the cell order
+     * 
+     * @param index The index
+     * @return The sum
+     */
+    private float gatherNeighbors(int index)
+    {
+        float sum = 0.0f;
+        cellOrder.getNeighborIndices(index, neighbors);
+        for (int d = 0; d < 6; d++)
+        {
+            int neighbor = neighbors[d];
+            if (neighbor >= 0)
+            {
+                sum += layer.get(neighbor);
+            }
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public float gatherInStorageOrder()
+    {
+        float sum = 0.0f;
+        for (int i = 0; i < valid.length; i++)
+        {
+            if (valid[i])
+            {
+                sum += gatherNeighbors(i);
+            }
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public float gatherInTraversalOrder()
+    {
+        float sum = 0.0f;
+        for (int i = 0; i < COUNT; i++)
+        {
+            sum += gatherNeighbors(traversal[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon.benchmark;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.javagl.hexagon.HexagonGrid;
+import de.javagl.hexagon.HexagonGrids;
+import de.javagl.hexagon.PackedCoordinates;
+
+/**
+ * Benchmarks for the per-cell methods of the {@link HexagonGrid} 
+ * implementations that are returned by {@link HexagonGrids#create}.<br>
+ * <br>
+ * Each benchmark method processes {@link #COUNT} cells, so that the
+ * reported times are the times per cell. The methods that receive
+ * a <code>Point</code> or <code>Point2D</code> as an out-parameter
+ * are benchmarked twice: Once with <code>null</code> (causing a new
+ * object to be created for each call), and once with a reused instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexagonGridBenchmark
+{
+    /**
+     * The number of cells that are processed in each benchmark call
+     */
+    private static final int COUNT = 1024;
+    
+    /**
+     * The range of the random coordinates
+     */
+    private static final int RANGE = 1000;
+    
+    /**
+     * Whether the hexagons of the grid are vertical
+     */
+    @Param({"true", "false"})
+    public boolean vertical;
+    
+    /**
+     * Whether the even rows or columns of the grid are shifted
+     */
+    @Param({"true", "false"})
+    public boolean evenShifted;
+    
+    /**
+     * The {@link HexagonGrid}
+     */
+    private HexagonGrid hexagonGrid;
+    
+    /**
+     * The x-coordinates of the first cells
+     */
+    private int xs0[];
+
+    /**
+     * The y-coordinates of the first cells
+     */
+    private int ys0[];
+    
+    /**
+     * The x-coordinates of the second cells
+     */
+    private int xs1[];
+
+    /**
+     * The y-coordinates of the second cells
+     */
+    private int ys1[];
+    
+    /**
+     * The directions
+     */
+    private int directions[];
+    
+    /**
+     * The x-coordinates of the centers
+     */
+    private double centersX[];
+    
+    /**
+     * The y-coordinates of the centers
+     */
+    private double centersY[];
+    
+    /**
+     * The reused point
+     */
+    private Point point;
+    
+    /**
+     * The reused 2D point
+     */
+    private Point2D point2D;
+    
+    /**
+     * Set up the grid and the input data
+     */
+    @Setup
+    public void setup()
+    {
+        hexagonGrid = HexagonGrids.create(10.0, vertical, evenShifted);
+        Random random = new Random(0);
+        xs0 = new int[COUNT];
+        ys0 = new int[COUNT];
+        xs1 = new int[COUNT];
+        ys1 = new int[COUNT];
+        directions = new int[COUNT];
+        for (int i = 0; i < COUNT; i++)
+        {
+            xs0[i] = random.nextInt(2 * RANGE) - RANGE;
+            ys0[i] = random.nextInt(2 * RANGE) - RANGE;
+            xs1[i] = random.nextInt(2 * RANGE) - RANGE;
+            ys1[i] = random.nextInt(2 * RANGE) - RANGE;
+            directions[i] = random.nextInt(6);
+        }
+        centersX = new double[COUNT];
+        centersY = new double[COUNT];
+        point = new Point();
+        point2D = new Point2D.Double();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getCenterNull(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.getCenter(xs0[i], ys0[i], null));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getCenterReused(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            Point2D p = hexagonGrid.getCenter(xs0[i], ys0[i], point2D);
+            blackhole.consume(p.getX());
+            blackhole.consume(p.getY());
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getCenters(Blackhole blackhole)
+    {
+        hexagonGrid.getCenters(0, 0, 32, 32, centersX, centersY);
+        blackhole.consume(centersX);
+        blackhole.consume(centersY);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getNeighborNull(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.getNeighbor(
+                xs0[i], ys0[i], directions[i], null));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getNeighborReused(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            Point p = hexagonGrid.getNeighbor(
+                xs0[i], ys0[i], directions[i], point);
+            blackhole.consume(p.x);
+            blackhole.consume(p.y);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void getNeighborPacked(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            long offset = PackedCoordinates.pack(xs0[i], ys0[i]);
+            blackhole.consume(hexagonGrid.getNeighborPacked(
+                offset, directions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertOffsetToCubeCoordinatesNull(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.convertOffsetToCubeCoordinates(
+                xs0[i], ys0[i], null));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertOffsetToCubeCoordinatesReused(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            Point p = hexagonGrid.convertOffsetToCubeCoordinates(
+                xs0[i], ys0[i], point);
+            blackhole.consume(p.x);
+            blackhole.consume(p.y);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertCubeToOffsetCoordinatesNull(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.convertCubeToOffsetCoordinates(
+                xs0[i], ys0[i], null));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertCubeToOffsetCoordinatesReused(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            Point p = hexagonGrid.convertCubeToOffsetCoordinates(
+                xs0[i], ys0[i], point);
+            blackhole.consume(p.x);
+            blackhole.consume(p.y);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertOffsetToCubeCoordinatesPacked(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            long offset = PackedCoordinates.pack(xs0[i], ys0[i]);
+            blackhole.consume(
+                hexagonGrid.convertOffsetToCubeCoordinatesPacked(offset));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void convertCubeToOffsetCoordinatesPacked(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            long cube = PackedCoordinates.pack(xs0[i], ys0[i]);
+            blackhole.consume(
+                hexagonGrid.convertCubeToOffsetCoordinatesPacked(cube));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void computeStepsDistance(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.computeStepsDistance(
+                xs0[i], ys0[i], xs1[i], ys1[i]));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    @SuppressWarnings("javadoc")
+    public void computeSquaredCentersDistance(Blackhole blackhole)
+    {
+        for (int i = 0; i < COUNT; i++)
+        {
+            blackhole.consume(hexagonGrid.computeSquaredCentersDistance(
+                xs0[i], ys0[i], xs1[i], ys1[i]));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * Methods for bit sets that store one bit for each cell of a 
+ * {@link HexagonGridRegion}, in the form of <code>long[]</code> arrays.
+ * The bit for the cell with the {@link HexagonGridRegion#getIndex(int, int) 
+ * index} <code>i</code> is stored at bit <code>i%64</code> of the 
+ * array element <code>i/64</code>.
+ */
+public class CellBitSets
+{
+    /**
+     * Creates a new bit set for the given {@link HexagonGridRegion}, 
+     * where all bits are cleared
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @return The bit set
+     */
+    public static long[] create(HexagonGridRegion region)
+    {
+        return new long[computeLength(region.getNumCells())];
+    }
+    
+    /**
+     * Returns the length of the array that is required for storing the
+     * given number of bits
+     * 
+     * @param numBits The number of bits
+     * @return The array length
+     */
+    static int computeLength(int numBits)
+    {
+        return (numBits + 63) >>> 6;
+    }
+    
+    /**
+     * Returns whether the bit with the given index is set
+     * 
+     * @param bits The bit set
+     * @param index The index
+     * @return Whether the bit is set
+     */
+    public static boolean get(long bits[], int index)
+    {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Set the bit with the given index
+     * 
+     * @param bits The bit set
+     * @param index The index
+     */
+    public static void set(long bits[], int index)
+    {
+        bits[index >>> 6] |= (1L << index);
+    }
+    
+    /**
+     * Clear the bit with the given index
+     * 
+     * @param bits The bit set
+     * @param index The index
+     */
+    public static void clear(long bits[], int index)
+    {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+    
+    /**
+     * Clear all bits of the given bit set
+     * 
+     * @param bits The bit set
+     */
+    public static void clear(long bits[])
+    {
+        Arrays.fill(bits, 0L);
+    }
+    
+    /**
+     * Returns the number of bits that are set in the given bit set
+     * 
+     * @param bits The bit set
+     * @return The number of bits that are set
+     */
+    public static int cardinality(long bits[])
+    {
+        int result = 0;
+        for (int i = 0; i < bits.length; i++)
+        {
+            result += Long.bitCount(bits[i]);
+        }
+        return result;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private CellBitSets()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
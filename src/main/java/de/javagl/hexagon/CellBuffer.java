@@ -0,0 +1,74 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * A {@link CellConsumer} that writes the coordinates of the cells into
+ * an array. The x- and y-coordinate of the <code>i</code>-th cell are 
+ * written to index <code>i*2+0</code> and <code>i*2+1</code>, 
+ * respectively.
+ */
+class CellBuffer implements CellConsumer
+{
+    /**
+     * The array that stores the coordinates
+     */
+    private final int coordinates[];
+    
+    /**
+     * The number of cells that have been written
+     */
+    private int count;
+    
+    /**
+     * Creates a new buffer that writes into the given array
+     * 
+     * @param coordinates The array for the coordinates
+     */
+    CellBuffer(int coordinates[])
+    {
+        this.coordinates = coordinates;
+    }
+    
+    @Override
+    public void accept(int x, int y)
+    {
+        coordinates[count * 2 + 0] = x;
+        coordinates[count * 2 + 1] = y;
+        count++;
+    }
+    
+    /**
+     * Returns the number of cells that have been written
+     * 
+     * @return The number of cells
+     */
+    int getCount()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * Interface for the update rule of a {@link HexagonIntAutomaton}. The 
+ * rule computes the value of a cell in the next generation, from its 
+ * current value and the current values of its neighbors.<br>
+ * <br>
+ * The rule may be called concurrently by multiple threads, and should
+ * therefore not modify any shared state.
+ */
+public interface CellIntRule
+{
+    /**
+     * Compute the next value of the cell with the given index.<br>
+     * <br>
+     * The given array contains the current values of the six neighbors, 
+     * where <code>neighbors[d]</code> is the value of the neighbor in 
+     * direction <code>d</code>, as in {@link HexagonGrid#getNeighbor}.
+     * For neighbors that are not contained in the region, it contains
+     * the boundary value of the automaton. The array is reused for
+     * subsequent calls, and must not be stored or modified.
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * of the cell
+     * @param value The current value of the cell
+     * @param neighbors The current values of the neighbors
+     * @return The next value of the cell
+     */
+    int apply(int index, int value, int neighbors[]);
+}
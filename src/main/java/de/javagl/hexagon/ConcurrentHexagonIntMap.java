@@ -0,0 +1,510 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A thread-safe, array-backed map from the cells of a 
+ * {@link HexagonGridRegion} to <code>int</code> values, for data that 
+ * is read by many threads and written by few threads.<br>
+ * <br>
+ * Each row of the region is guarded by its own lock. Writing a value
+ * only locks the row of the respective cell, so that writers in 
+ * different rows do not contend. Reading a value uses an optimistic
+ * read, which does not acquire the lock at all, unless a writer 
+ * is concurrently modifying the same row. Whole rows may be read and 
+ * written atomically with {@link #getRow(int, int[], int)} and 
+ * {@link #setRow(int, int[], int)}.<br>
+ * <br>
+ * For readers that must never wait for writers, {@link #getSnapshot()}
+ * returns a consistent copy of all values. The snapshot is created 
+ * lazily, only when values have been modified since the previous 
+ * snapshot was created. Reading from the snapshot does not involve 
+ * any synchronization. A typical pattern is to obtain the snapshot 
+ * once at the beginning of a simulation tick, and let all readers 
+ * read from this snapshot during the tick.
+ */
+public final class ConcurrentHexagonIntMap
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The values
+     */
+    private final int values[];
+    
+    /**
+     * The locks for the rows of the region
+     */
+    private final StampedLock rowLocks[];
+    
+    /**
+     * The number of modifications of each row. The version of a row is
+     * incremented by each write operation, while holding the write lock
+     * of the row. The sum of all versions is the modification count 
+     * of the map.
+     */
+    private final long rowVersions[];
+    
+    /**
+     * The most recent snapshot
+     */
+    private volatile Snapshot snapshot;
+    
+    /**
+     * A snapshot of the values, and the modification count for which
+     * it was created
+     */
+    private static final class Snapshot
+    {
+        /**
+         * The modification count for which the snapshot was created
+         */
+        private final long modificationCount;
+        
+        /**
+         * The map containing the values
+         */
+        private final HexagonIntMap map;
+        
+        /**
+         * Creates a new snapshot
+         * 
+         * @param modificationCount The modification count
+         * @param map The map
+         */
+        Snapshot(long modificationCount, HexagonIntMap map)
+        {
+            this.modificationCount = modificationCount;
+            this.map = map;
+        }
+    }
+    
+    /**
+     * Creates a new map for the given {@link HexagonGridRegion}. All
+     * values will initially be <code>0</code>.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public ConcurrentHexagonIntMap(HexagonGridRegion region)
+    {
+        this.region = region;
+        this.values = new int[region.getNumCells()];
+        this.rowLocks = new StampedLock[region.getHeight()];
+        for (int i = 0; i < rowLocks.length; i++)
+        {
+            rowLocks[i] = new StampedLock();
+        }
+        this.rowVersions = new long[region.getHeight()];
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this map
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public int get(int x, int y)
+    {
+        return get(validIndex(x, y));
+    }
+    
+    /**
+     * Set the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public void set(int x, int y, int value)
+    {
+        set(validIndex(x, y), value);
+    }
+    
+    /**
+     * Returns the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @return The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public int get(int index)
+    {
+        StampedLock lock = rowLock(index);
+        long stamp = lock.tryOptimisticRead();
+        int value = values[index];
+        if (lock.validate(stamp))
+        {
+            return value;
+        }
+        stamp = lock.readLock();
+        try
+        {
+            return values[index];
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Set the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void set(int index, int value)
+    {
+        StampedLock lock = rowLock(index);
+        long stamp = lock.writeLock();
+        try
+        {
+            values[index] = value;
+            rowVersions[index / region.getWidth()]++;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Atomically update the value for the cell with the given index, 
+     * by applying the given function to the current value. The function 
+     * is called while holding the lock for the row of the cell, and
+     * should therefore be short and must not access this map.
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @param function The function
+     * @return The new value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public int update(int index, IntUnaryOperator function)
+    {
+        StampedLock lock = rowLock(index);
+        long stamp = lock.writeLock();
+        try
+        {
+            int value = function.applyAsInt(values[index]);
+            values[index] = value;
+            rowVersions[index / region.getWidth()]++;
+            return value;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Atomically read all values of the given row into the given array, 
+     * starting at the given offset.
+     * 
+     * @param y The y-coordinate of the row
+     * @param target The target array
+     * @param offset The offset in the target array
+     * @throws IndexOutOfBoundsException If the row is not contained in 
+     * the {@link #getRegion() region}, or the target array is too short
+     */
+    public void getRow(int y, int target[], int offset)
+    {
+        int row = validRow(y);
+        int width = region.getWidth();
+        int start = row * width;
+        StampedLock lock = rowLocks[row];
+        long stamp = lock.tryOptimisticRead();
+        System.arraycopy(values, start, target, offset, width);
+        if (lock.validate(stamp))
+        {
+            return;
+        }
+        stamp = lock.readLock();
+        try
+        {
+            System.arraycopy(values, start, target, offset, width);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Atomically set all values of the given row to the values in the
+     * given array, starting at the given offset.
+     * 
+     * @param y The y-coordinate of the row
+     * @param source The source array
+     * @param offset The offset in the source array
+     * @throws IndexOutOfBoundsException If the row is not contained in 
+     * the {@link #getRegion() region}, or the source array is too short
+     */
+    public void setRow(int y, int source[], int offset)
+    {
+        int row = validRow(y);
+        int width = region.getWidth();
+        if (offset < 0 || offset + width > source.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Expected " + width + " values at offset " + offset + 
+                ", but the array has a length of " + source.length);
+        }
+        StampedLock lock = rowLocks[row];
+        long stamp = lock.writeLock();
+        try
+        {
+            System.arraycopy(source, offset, values, row * width, width);
+            rowVersions[row]++;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Set all values of this map to the given value. Each row is
+     * updated atomically, but other threads may observe a state where
+     * only some of the rows have been updated.
+     * 
+     * @param value The value
+     */
+    public void fill(int value)
+    {
+        int width = region.getWidth();
+        for (int row = 0; row < rowLocks.length; row++)
+        {
+            StampedLock lock = rowLocks[row];
+            long stamp = lock.writeLock();
+            try
+            {
+                int start = row * width;
+                for (int i = start; i < start + width; i++)
+                {
+                    values[i] = value;
+                }
+                rowVersions[row]++;
+            }
+            finally
+            {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+    
+    /**
+     * Copy a consistent state of all values of this map into the given 
+     * {@link HexagonIntMap}. This acquires the read locks of all rows, 
+     * so writers will have to wait until the copy is complete.
+     * 
+     * @param target The target map
+     * @throws IllegalArgumentException If the target map does not 
+     * have the same number of cells as this map 
+     */
+    public void copyTo(HexagonIntMap target)
+    {
+        copyValues(target);
+    }
+    
+    /**
+     * Returns a snapshot of the values of this map. The snapshot is 
+     * a consistent copy of all values. If no values have been modified
+     * since the previous call, then the previous snapshot is returned.
+     * Reading the values of the snapshot does not involve any 
+     * synchronization.<br>
+     * <br>
+     * Checking whether the previous snapshot is still valid does not
+     * acquire any locks, but reads the modification counts of all rows.
+     * 
+     * @return The snapshot. This map is shared between all callers of
+     * this method, and <b>must not</b> be modified: Modifications would
+     * be visible to all other readers of the snapshot, and would not be
+     * reflected in this map.
+     */
+    public HexagonIntMap getSnapshot()
+    {
+        Snapshot current = snapshot;
+        if (current != null && 
+            current.modificationCount == computeModificationCount())
+        {
+            return current.map;
+        }
+        HexagonIntMap map = new HexagonIntMap(region);
+        long count = copyValues(map);
+        Snapshot newSnapshot = new Snapshot(count, map);
+        snapshot = newSnapshot;
+        return map;
+    }
+    
+    /**
+     * Copy a consistent state of all values into the given map, and 
+     * return the modification count that corresponds to this state
+     * 
+     * @param target The target map
+     * @return The modification count
+     * @throws IllegalArgumentException If the target map does not 
+     * have the same number of cells as this map 
+     */
+    private long copyValues(HexagonIntMap target)
+    {
+        int targetValues[] = target.getValues();
+        if (targetValues.length != values.length)
+        {
+            throw new IllegalArgumentException(
+                "Expected a map with " + values.length + 
+                " cells, but the map has " + targetValues.length);
+        }
+        long stamps[] = new long[rowLocks.length];
+        for (int row = 0; row < rowLocks.length; row++)
+        {
+            stamps[row] = rowLocks[row].readLock();
+        }
+        try
+        {
+            System.arraycopy(values, 0, targetValues, 0, values.length);
+            long count = 0;
+            for (int row = 0; row < rowVersions.length; row++)
+            {
+                count += rowVersions[row];
+            }
+            return count;
+        }
+        finally
+        {
+            for (int row = 0; row < rowLocks.length; row++)
+            {
+                rowLocks[row].unlockRead(stamps[row]);
+            }
+        }
+    }
+    
+    /**
+     * Computes the current modification count, which is the sum of the
+     * versions of all rows, using optimistic reads. If any row is 
+     * concurrently being modified, then -1 is returned.
+     * 
+     * @return The modification count, or -1
+     */
+    private long computeModificationCount()
+    {
+        long count = 0;
+        for (int row = 0; row < rowLocks.length; row++)
+        {
+            StampedLock lock = rowLocks[row];
+            long stamp = lock.tryOptimisticRead();
+            long version = rowVersions[row];
+            if (!lock.validate(stamp))
+            {
+                return -1;
+            }
+            count += version;
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the lock for the row of the cell with the given index
+     * 
+     * @param index The index
+     * @return The lock
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    private StampedLock rowLock(int index)
+    {
+        if (index < 0 || index >= values.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index " + index + " is not in [0," + values.length + ")");
+        }
+        return rowLocks[index / region.getWidth()];
+    }
+    
+    /**
+     * Returns the row index of the row with the given y-coordinate
+     * 
+     * @param y The y-coordinate
+     * @return The row index
+     * @throws IndexOutOfBoundsException If the row is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validRow(int y)
+    {
+        int row = y - region.getMinY();
+        if (row < 0 || row >= rowLocks.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Row " + y + " is not contained in " + region);
+        }
+        return row;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.Point;
+
+/**
+ * Utility methods for computations on cube coordinates.<br>
+ * <br>
+ * Cube coordinates are stored in a point, where the x- and y-coordinate
+ * of the point are the x- and y-coordinate of the cube coordinates. The
+ * z-coordinate is implicitly given as <code>-p.x-p.y</code>. <br>
+ * <br>
+ * The enumeration methods in this class do not create any objects
+ * for the cells that they pass to the given {@link CellConsumer}.
+ * Versions of these methods that operate on offset coordinates are 
+ * offered in the {@link HexagonGrids} class.
+ */
+public class CubeCoordinates
+{
+    /**
+     * The x-coordinates of the cube coordinate directions, in 
+     * counterclockwise order
+     */
+    static final int DIRECTIONS_X[] = { +1, +1,  0, -1, -1,  0 };
+
+    /**
+     * The y-coordinates of the cube coordinate directions, in 
+     * counterclockwise order
+     */
+    static final int DIRECTIONS_Y[] = { -1,  0, +1, +1,  0, -1 };
+    
+    /**
+     * The offset that is added to the x-coordinate of the points of
+     * a line, to avoid ambiguities for points on an edge
+     */
+    private static final double LINE_EPSILON_X = 1e-6;
+
+    /**
+     * The offset that is added to the z-coordinate of the points of
+     * a line, to avoid ambiguities for points on an edge
+     */
+    private static final double LINE_EPSILON_Z = -2e-6;
+    
+    /**
+     * Computes the distance, in number of steps, between the cells 
+     * with the given cube coordinates
+     * 
+     * @param cx0 The x-coordinate of the first cell
+     * @param cy0 The y-coordinate of the first cell
+     * @param cx1 The x-coordinate of the second cell
+     * @param cy1 The y-coordinate of the second cell
+     * @return The distance
+     */
+    public static int computeStepsDistance(int cx0, int cy0, int cx1, int cy1)
+    {
+        int dx = cx1 - cx0;
+        int dy = cy1 - cy0;
+        int dz = -dx-dy;
+        return Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+    }
+    
+    /**
+     * Returns the number of cells that have a distance of at most the 
+     * given radius from a center cell. 
+     * 
+     * @param radius The radius
+     * @return The number of cells
+     */
+    public static int computeRangeSize(int radius)
+    {
+        if (radius < 0)
+        {
+            return 0;
+        }
+        return 3 * radius * (radius + 1) + 1;
+    }
+    
+    /**
+     * Returns the number of cells that have exactly the given distance 
+     * from a center cell. 
+     * 
+     * @param radius The radius
+     * @return The number of cells
+     */
+    public static int computeRingSize(int radius)
+    {
+        if (radius < 0)
+        {
+            return 0;
+        }
+        if (radius == 0)
+        {
+            return 1;
+        }
+        return 6 * radius;
+    }
+    
+    /**
+     * Pass the cube coordinates of all cells that have a distance of 
+     * at most the given radius from the given center cell to the given 
+     * consumer. The cells are passed to the consumer in the order of
+     * increasing x- and y-coordinates.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInRange(
+        int cx, int cy, int radius, CellConsumer consumer)
+    {
+        for (int dx = -radius; dx <= radius; dx++)
+        {
+            int minDy = Math.max(-radius, -dx - radius);
+            int maxDy = Math.min(radius, -dx + radius);
+            for (int dy = minDy; dy <= maxDy; dy++)
+            {
+                consumer.accept(cx + dx, cy + dy);
+            }
+        }
+    }
+    
+    /**
+     * Pass the cube coordinates of all cells that have exactly the given
+     * distance from the given center cell to the given consumer. The 
+     * cells are passed to the consumer in counterclockwise order.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInRing(
+        int cx, int cy, int radius, CellConsumer consumer)
+    {
+        if (radius < 0)
+        {
+            return;
+        }
+        if (radius == 0)
+        {
+            consumer.accept(cx, cy);
+            return;
+        }
+        int x = cx + DIRECTIONS_X[4] * radius;
+        int y = cy + DIRECTIONS_Y[4] * radius;
+        for (int d = 0; d < 6; d++)
+        {
+            int dx = DIRECTIONS_X[d];
+            int dy = DIRECTIONS_Y[d];
+            for (int i = 0; i < radius; i++)
+            {
+                consumer.accept(x, y);
+                x += dx;
+                y += dy;
+            }
+        }
+    }
+    
+    /**
+     * Pass the cube coordinates of all cells that have a distance of 
+     * at most the given radius from the given center cell to the given 
+     * consumer. The cells are passed to the consumer in spiral order:
+     * Starting with the center cell, followed by the 
+     * {@link #forEachInRing rings} with increasing radius.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInSpiral(
+        int cx, int cy, int radius, CellConsumer consumer)
+    {
+        for (int r = 0; r <= radius; r++)
+        {
+            forEachInRing(cx, cy, r, consumer);
+        }
+    }
+    
+
+    /**
+     * Pass the cube coordinates of all cells on the line between the
+     * given cells to the given consumer, starting at the first cell and 
+     * ending at the second cell. The line consists of the cells that
+     * contain the points that are obtained by linearly interpolating 
+     * between the centers of the given cells, in steps of 
+     * <code>1/distance</code>. The line from the second to the first 
+     * cell consists of the same cells, in reverse order.
+     * 
+     * @param cx0 The x-coordinate of the first cell
+     * @param cy0 The y-coordinate of the first cell
+     * @param cx1 The x-coordinate of the second cell
+     * @param cy1 The y-coordinate of the second cell
+     * @param consumer The consumer
+     */
+    public static void forEachInLine(
+        int cx0, int cy0, int cx1, int cy1, CellConsumer consumer)
+    {
+        int n = computeStepsDistance(cx0, cy0, cx1, cy1);
+        if (n == 0)
+        {
+            consumer.accept(cx0, cy0);
+            return;
+        }
+        
+        // Always interpolate from the smaller to the larger cell, so 
+        // that the points of the line from the second to the first 
+        // cell are bitwise equal to the ones in the other direction
+        boolean reversed = cx0 > cx1 || (cx0 == cx1 && cy0 > cy1);
+        int sx0 = reversed ? cx1 : cx0;
+        int sy0 = reversed ? cy1 : cy0;
+        int sx1 = reversed ? cx0 : cx1;
+        int sy1 = reversed ? cy0 : cy1;
+        
+        // Nudge the points slightly, so that points that are exactly 
+        // on an edge are consistently assigned to one cell
+        double x0 = sx0 + LINE_EPSILON_X;
+        double z0 = (-sx0-sy0) + LINE_EPSILON_Z;
+        double x1 = sx1 + LINE_EPSILON_X;
+        double z1 = (-sx1-sy1) + LINE_EPSILON_Z;
+        double invN = 1.0 / n;
+        for (int i = 0; i <= n; i++)
+        {
+            double t = (reversed ? n - i : i) * invN;
+            double x = x0 + (x1 - x0) * t;
+            double z = z0 + (z1 - z0) * t;
+            long cube = roundPacked(x, z);
+            consumer.accept(PackedCoordinates.unpackX(cube), 
+                PackedCoordinates.unpackY(cube));
+        }
+    }
+    
+    /**
+     * Writes the cube coordinates of all cells on the line between the 
+     * given cells into the given array, in the same order as in 
+     * {@link #forEachInLine}. The x- and y-coordinate of the 
+     * <code>i</code>-th cell are written to index <code>i*2+0</code> 
+     * and <code>i*2+1</code>, respectively. The number of cells is
+     * the {@link #computeStepsDistance steps distance} plus one.
+     * 
+     * @param cx0 The x-coordinate of the first cell
+     * @param cy0 The y-coordinate of the first cell
+     * @param cx1 The x-coordinate of the second cell
+     * @param cy1 The y-coordinate of the second cell
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is too short
+     */
+    public static int computeLine(
+        int cx0, int cy0, int cx1, int cy1, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInLine(cx0, cy0, cx1, cy1, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Writes the cube coordinates of all cells that have a distance of 
+     * at most the given radius from the given center cell into the given 
+     * array, in the same order as in {@link #forEachInRange}. The x- and 
+     * y-coordinate of the <code>i</code>-th cell are written to index 
+     * <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link #computeRangeSize(int) range size}
+     */
+    public static int computeRange(int cx, int cy, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInRange(cx, cy, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Writes the cube coordinates of all cells that have exactly the given 
+     * distance from the given center cell into the given array, in the 
+     * same order as in {@link #forEachInRing}. The x- and y-coordinate 
+     * of the <code>i</code>-th cell are written to index 
+     * <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link #computeRingSize(int) ring size}
+     */
+    public static int computeRing(int cx, int cy, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInRing(cx, cy, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Writes the cube coordinates of all cells that have a distance of 
+     * at most the given radius from the given center cell into the given 
+     * array, in the same order as in {@link #forEachInSpiral}. The x- and 
+     * y-coordinate of the <code>i</code>-th cell are written to index 
+     * <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link #computeRangeSize(int) range size}
+     */
+    public static int computeSpiral(int cx, int cy, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInSpiral(cx, cy, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Rounds the given fractional cube coordinates to the cube coordinates 
+     * of the cell that contains them, and stores the result in the given 
+     * point. If the given point is <code>null</code>, then a new point will 
+     * be created and returned.
+     * 
+     * @param x The fractional x-coordinate
+     * @param z The fractional z-coordinate
+     * @param p The point that will store the result
+     * @return The result point
+     */
+    static Point round(double x, double z, Point p)
+    {
+        long cube = roundPacked(x, z);
+        if (p == null)
+        {
+            p = new Point();
+        }
+        p.x = PackedCoordinates.unpackX(cube);
+        p.y = PackedCoordinates.unpackY(cube);
+        return p;
+    }
+    
+    /**
+     * Rounds the given fractional cube coordinates to the cube coordinates 
+     * of the cell that contains them, and returns them as
+     * {@link PackedCoordinates packed coordinates}
+     * 
+     * @param x The fractional x-coordinate
+     * @param z The fractional z-coordinate
+     * @return The packed cube coordinates
+     */
+    static long roundPacked(double x, double z)
+    {
+        double y = -x-z;
+        double rx = Math.rint(x);
+        double ry = Math.rint(y);
+        double rz = Math.rint(z);
+        double dx = Math.abs(rx - x);
+        double dy = Math.abs(ry - y);
+        double dz = Math.abs(rz - z);
+        if (dx > dy && dx > dz)
+        {
+            rx = -ry-rz;
+        }
+        else if (dy > dz)
+        {
+            ry = -rx-rz;
+        }
+        return PackedCoordinates.pack((int)rx, (int)ry);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private CubeCoordinates()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -27,7 +27,9 @@
 package de.javagl.hexagon;
 
 /**
- * Implementation of a {@link Hexagon}
+ * Implementation of a {@link Hexagon}.<br>
+ * <br>
+ * This class is immutable and thread-safe.
  */
 class DefaultHexagon implements Hexagon
 {
@@ -57,10 +59,14 @@ class DefaultHexagon implements Hexagon
     private final double spacingY;
     
     /**
-     * The offset of the angle step. This is 0.0 for vertical hexagons,
-     * and 0.5 for horizontal hexagons.
+     * The x-coordinates of the corners
      */
-    private final double angleStepOffset;
+    private final double cornersX[];
+    
+    /**
+     * The y-coordinates of the corners
+     */
+    private final double cornersY[];
     
     /**
      * Creates the hexagon with the given radius 
@@ -71,13 +77,14 @@ class DefaultHexagon implements Hexagon
     DefaultHexagon(double radius, boolean horizontal)
     {
         this.radius = radius;
+        double angleStepOffset = 0.0;
         if (horizontal)
         {
             this.sizeY = radius * 2;
             this.sizeX = Math.sqrt(3.0)/2.0 * sizeY;
             this.spacingX = sizeX;
             this.spacingY = 3.0/4.0 * sizeY;        
-            this.angleStepOffset = 0.5;
+            angleStepOffset = 0.5;
         }
         else
         {
@@ -85,7 +92,14 @@ class DefaultHexagon implements Hexagon
             this.sizeY = Math.sqrt(3.0)/2.0 * sizeX;
             this.spacingX = 3.0/4.0 * sizeX;
             this.spacingY = sizeY;
-            this.angleStepOffset = 0.0;
+        }
+        this.cornersX = new double[6];
+        this.cornersY = new double[6];
+        for (int i=0; i<6; i++)
+        {
+            double angleRad = Hexagons.ANGLE_STEP_RAD * (i + angleStepOffset);
+            cornersX[i] = Math.cos(angleRad) * radius;
+            cornersY[i] = Math.sin(angleRad) * radius;
         }
     }
     
@@ -122,16 +136,27 @@ class DefaultHexagon implements Hexagon
     @Override
     public double getCornerX(int index)
     {
-        double angleRad = Hexagons.ANGLE_STEP_RAD * (index + angleStepOffset);
-        double x = Math.cos(angleRad);
-        return x * radius;
+        return cornersX[index];
     }
 
     @Override
     public double getCornerY(int index)
     {
-        double angleRad = Hexagons.ANGLE_STEP_RAD * (index + angleStepOffset);
-        double y = Math.sin(angleRad);
-        return y * radius;
+        return cornersY[index];
+    }
+    
+    @Override
+    public double[] getCorners(double corners[])
+    {
+        if (corners == null)
+        {
+            corners = new double[12];
+        }
+        for (int i=0; i<6; i++)
+        {
+            corners[i*2+0] = cornersX[i];
+            corners[i*2+1] = cornersY[i];
+        }
+        return corners;
     }
 }
\ No newline at end of file
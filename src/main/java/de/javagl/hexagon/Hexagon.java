@@ -47,7 +47,10 @@ package de.javagl.hexagon;
  *  /\
  * |  |
  *  \/
- * </code></pre>  
+ * </code></pre>
+ * <br>
+ * Implementations of this interface must be immutable, and thus may
+ * be shared between threads.
  */
 public interface Hexagon
 {
@@ -92,16 +95,44 @@ public interface Hexagon
     /**
      * Returns the x-coordinate of the corner with the given index
      * 
-     * @param index The index
+     * @param index The index, in [0,6)
      * @return The x-coordinate of the corner
+     * @throws IndexOutOfBoundsException If the index is not in [0,6)
      */
     double getCornerX(int index);
     
     /**
      * Returns the y-coordinate of the corner with the given index
      * 
-     * @param index The index
+     * @param index The index, in [0,6)
      * @return The y-coordinate of the corner
+     * @throws IndexOutOfBoundsException If the index is not in [0,6)
      */
     double getCornerY(int index);
+    
+    /**
+     * Writes the coordinates of all corners into the given array. The
+     * array will contain the x- and y-coordinate of corner <code>i</code>
+     * at index <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * If the given array is <code>null</code>, then a new array with 
+     * length 12 will be created and returned.
+     * 
+     * @param corners The array that will store the result
+     * @return The result array
+     * @throws IndexOutOfBoundsException If the given array has a length
+     * that is smaller than 12
+     */
+    default double[] getCorners(double corners[])
+    {
+        if (corners == null)
+        {
+            corners = new double[12];
+        }
+        for (int i=0; i<6; i++)
+        {
+            corners[i*2+0] = getCornerX(i);
+            corners[i*2+1] = getCornerY(i);
+        }
+        return corners;
+    }
 }
\ No newline at end of file
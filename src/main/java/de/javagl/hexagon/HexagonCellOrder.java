@@ -0,0 +1,505 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * An order of the cells of a {@link HexagonGridRegion}, which defines 
+ * the index at which the value of each cell is stored in a per-cell
+ * storage like a {@link HexagonCellStore}.<br>
+ * <br>
+ * The {@link #createRowMajor(HexagonGridRegion) row-major} order is the
+ * same as the order of the {@link HexagonGridRegion#getIndex(int, int) 
+ * region indices}. In this order, the neighbors of a cell in the 
+ * previous and next row are <code>width</code> elements away, and 
+ * traversals that spread out in all directions, like flood fills or 
+ * path searches, touch many different cache lines.<br>
+ * <br>
+ * The {@link #createMorton(HexagonGridRegion) Morton} order divides 
+ * the region into square tiles of {@link #MORTON_TILE_SIZE} x 
+ * {@link #MORTON_TILE_SIZE} cells (in offset coordinates) that are 
+ * stored in row-major order. Inside each tile, the cells are stored in 
+ * Morton (Z-curve) order, by interleaving the bits of their local x- 
+ * and y-coordinate. Since the neighbors of a hexagon differ by at most
+ * 1 in each offset coordinate, most neighbors of a cell are stored 
+ * close to the cell itself. When the size of the region is not a 
+ * multiple of the tile size, then the tiles at the border contain 
+ * padding elements that do not correspond to cells, so the 
+ * {@link #getSize() size} of the order may be larger than the number 
+ * of cells.<br>
+ * <br>
+ * Instances of this class are immutable and thread-safe.
+ */
+public final class HexagonCellOrder
+{
+    /**
+     * The base-2 logarithm of the tile size of the Morton order
+     */
+    private static final int MORTON_TILE_SHIFT = 5;
+    
+    /**
+     * The size of the tiles of the Morton order
+     */
+    public static final int MORTON_TILE_SIZE = 1 << MORTON_TILE_SHIFT;
+    
+    /**
+     * The bit mask for the local coordinates inside a tile
+     */
+    private static final int MORTON_TILE_MASK = MORTON_TILE_SIZE - 1;
+    
+    /**
+     * The number of bits of the index of a cell inside a Morton tile
+     */
+    private static final int MORTON_TILE_BITS = 2 * MORTON_TILE_SHIFT;
+    
+    /**
+     * The bits of the index inside a Morton tile that store the 
+     * x-coordinate
+     */
+    private static final int MORTON_X_BITS = 
+        0x55555555 & ((1 << MORTON_TILE_BITS) - 1);
+    
+    /**
+     * The bits of the index inside a Morton tile that store the 
+     * y-coordinate
+     */
+    private static final int MORTON_Y_BITS = MORTON_X_BITS << 1;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * Whether this is a Morton order
+     */
+    private final boolean morton;
+    
+    /**
+     * The number of tiles in x-direction, for the Morton order
+     */
+    private final int numTilesX;
+    
+    /**
+     * The size of this order
+     */
+    private final int size;
+    
+    /**
+     * The {@link NeighborOffsets} of the grid
+     */
+    private final NeighborOffsets neighborOffsets;
+    
+    /**
+     * The x-offsets of the neighbors for the Morton order, with the bits
+     * spread as in the index, indexed by [parity][direction]
+     */
+    private final int deltasX[][];
+    
+    /**
+     * The y-offsets of the neighbors for the Morton order, with the bits
+     * spread as in the index, indexed by [parity][direction]
+     */
+    private final int deltasY[][];
+    
+    /**
+     * Whether each tile of the Morton order is completely contained in 
+     * the region
+     */
+    private final boolean fullTiles[];
+    
+    /**
+     * Creates a new order
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param morton Whether this is a Morton order
+     * @throws IllegalArgumentException If the size of the order would
+     * be larger than <code>Integer.MAX_VALUE</code>
+     */
+    private HexagonCellOrder(HexagonGridRegion region, boolean morton)
+    {
+        this.region = region;
+        this.morton = morton;
+        this.neighborOffsets = region.getNeighborOffsets();
+        if (morton)
+        {
+            int numTilesX = (region.getWidth() + MORTON_TILE_MASK) >>
+                MORTON_TILE_SHIFT;
+            int numTilesY = (region.getHeight() + MORTON_TILE_MASK) >>
+                MORTON_TILE_SHIFT;
+            long size = (long)numTilesX * numTilesY * 
+                MORTON_TILE_SIZE * MORTON_TILE_SIZE;
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException(
+                    "The region is too large for a Morton order: " + region);
+            }
+            this.numTilesX = numTilesX;
+            this.size = (int)size;
+            this.fullTiles = new boolean[numTilesX * numTilesY];
+            int numFullTilesX = region.getWidth() >> MORTON_TILE_SHIFT;
+            int numFullTilesY = region.getHeight() >> MORTON_TILE_SHIFT;
+            for (int ty = 0; ty < numFullTilesY; ty++)
+            {
+                for (int tx = 0; tx < numFullTilesX; tx++)
+                {
+                    fullTiles[ty * numTilesX + tx] = true;
+                }
+            }
+            this.deltasX = new int[2][6];
+            this.deltasY = new int[2][6];
+            for (int parity = 0; parity < 2; parity++)
+            {
+                for (int d = 0; d < 6; d++)
+                {
+                    deltasX[parity][d] = spreadOffset(
+                        neighborOffsets.getDx(parity, d), MORTON_X_BITS);
+                    deltasY[parity][d] = spreadOffset(
+                        neighborOffsets.getDy(parity, d), MORTON_Y_BITS);
+                }
+            }
+        }
+        else
+        {
+            this.numTilesX = 0;
+            this.size = region.getNumCells();
+            this.fullTiles = null;
+            this.deltasX = null;
+            this.deltasY = null;
+        }
+    }
+    
+    /**
+     * Creates an order that is the same as the order of the 
+     * {@link HexagonGridRegion#getIndex(int, int) region indices}
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @return The {@link HexagonCellOrder}
+     */
+    public static HexagonCellOrder createRowMajor(HexagonGridRegion region)
+    {
+        return new HexagonCellOrder(region, false);
+    }
+    
+    /**
+     * Creates a tiled Morton order for the given region, as described 
+     * in the class documentation
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @return The {@link HexagonCellOrder}
+     * @throws IllegalArgumentException If the size of the order would
+     * be larger than <code>Integer.MAX_VALUE</code>
+     */
+    public static HexagonCellOrder createMorton(HexagonGridRegion region)
+    {
+        return new HexagonCellOrder(region, true);
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this order
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns whether this is a Morton order
+     * 
+     * @return Whether this is a Morton order
+     */
+    public boolean isMorton()
+    {
+        return morton;
+    }
+    
+    /**
+     * Returns the size of this order. This is the number of elements 
+     * that a storage for the cells of the region must have. It may be
+     * larger than the number of cells of the region.
+     * 
+     * @return The size
+     */
+    public int getSize()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates 
+     * in this order, or -1 if the cell is not contained in the region
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     */
+    public int getIndex(int x, int y)
+    {
+        if (!morton)
+        {
+            return region.getIndex(x, y);
+        }
+        int lx = x - region.getMinX();
+        int ly = y - region.getMinY();
+        if (lx < 0 || lx >= region.getWidth() || 
+            ly < 0 || ly >= region.getHeight())
+        {
+            return -1;
+        }
+        int tile = (ly >> MORTON_TILE_SHIFT) * numTilesX + 
+            (lx >> MORTON_TILE_SHIFT);
+        return (tile << MORTON_TILE_BITS) | 
+            spread(lx & MORTON_TILE_MASK) | 
+            (spread(ly & MORTON_TILE_MASK) << 1);
+    }
+    
+    /**
+     * Returns the x-coordinate of the cell that is stored at the given
+     * index in this order. For padding elements of a Morton order, this
+     * is a coordinate that is not contained in the region. The result 
+     * is unspecified if the index is not in [0, size).
+     * 
+     * @param index The index
+     * @return The x-coordinate
+     */
+    public int getX(int index)
+    {
+        if (!morton)
+        {
+            return region.getX(index);
+        }
+        int tile = index >>> MORTON_TILE_BITS;
+        int tileX = tile % numTilesX;
+        return region.getMinX() + (tileX << MORTON_TILE_SHIFT) + 
+            compact(index);
+    }
+    
+    /**
+     * Returns the y-coordinate of the cell that is stored at the given
+     * index in this order. For padding elements of a Morton order, this
+     * is a coordinate that is not contained in the region. The result 
+     * is unspecified if the index is not in [0, size).
+     * 
+     * @param index The index
+     * @return The y-coordinate
+     */
+    public int getY(int index)
+    {
+        if (!morton)
+        {
+            return region.getY(index);
+        }
+        int tile = index >>> MORTON_TILE_BITS;
+        int tileY = tile / numTilesX;
+        return region.getMinY() + (tileY << MORTON_TILE_SHIFT) + 
+            compact(index >>> 1);
+    }
+    
+    /**
+     * Returns the index of the neighbor of the cell that is stored at 
+     * the given index, in the given direction, or -1 if the neighbor is
+     * not contained in the region. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param index The index
+     * @param direction The direction
+     * @return The index of the neighbor
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, size)
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getNeighborIndex(int index, int direction)
+    {
+        if (direction < 0 || direction >= 6)
+        {
+            throw new IllegalArgumentException(
+                "Direction must be in [0,6), but is "+direction);
+        }
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + size + "), but is " + index);
+        }
+        int x = getX(index);
+        int y = getY(index);
+        int parity = neighborOffsets.getParity(x, y);
+        return getIndex(
+            x + neighborOffsets.getDx(parity, direction), 
+            y + neighborOffsets.getDy(parity, direction));
+    }
+    
+    /**
+     * Computes the indices of all neighbors of the cell that is stored 
+     * at the given index, and writes them into the given array. The 
+     * index of the neighbor in direction <code>d</code> is written to
+     * <code>neighbors[d]</code>, or -1 if the neighbor is not contained 
+     * in the region. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.<br>
+     * <br>
+     * For cells whose neighbors are all contained in the region (or, 
+     * for the Morton order, in the same tile), this does not require 
+     * the coordinates of the cell, but only adds precomputed offsets 
+     * to the index.
+     * 
+     * @param index The index
+     * @param neighbors The array that will store the neighbor indices, 
+     * with a length of at least 6
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, size)
+     */
+    public void getNeighborIndices(int index, int neighbors[])
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + size + "), but is " + index);
+        }
+        if (!morton)
+        {
+            region.getNeighborIndices(index, neighbors);
+            return;
+        }
+        int local = index & (MORTON_X_BITS | MORTON_Y_BITS);
+        int mx = local & MORTON_X_BITS;
+        int my = local & MORTON_Y_BITS;
+        if (mx != 0 && mx != MORTON_X_BITS && 
+            my != 0 && my != MORTON_Y_BITS &&
+            fullTiles[index >>> MORTON_TILE_BITS])
+        {
+            // The tiles start at even offsets, so the lowest bit
+            // of the local coordinate determines the parity
+            int parity = neighborOffsets.isColumnParity() ?
+                ((region.getMinX() + mx) & 1) : 
+                ((region.getMinY() + (my >>> 1)) & 1);
+            int base = index - local;
+            int dxs[] = deltasX[parity];
+            int dys[] = deltasY[parity];
+            for (int d = 0; d < 6; d++)
+            {
+                int nx = ((mx | MORTON_Y_BITS) + dxs[d]) & MORTON_X_BITS;
+                int ny = ((my | MORTON_X_BITS) + dys[d]) & MORTON_Y_BITS;
+                neighbors[d] = base | nx | ny;
+            }
+            return;
+        }
+        int x = getX(index);
+        int y = getY(index);
+        int parity = neighborOffsets.getParity(x, y);
+        for (int d = 0; d < 6; d++)
+        {
+            neighbors[d] = getIndex(
+                x + neighborOffsets.getDx(parity, d), 
+                y + neighborOffsets.getDy(parity, d));
+        }
+    }
+    
+    /**
+     * Returns whether this order stores the cells at the same indices
+     * as the given order. This is the case when both orders are of the
+     * same kind, and their regions have the same bounds.
+     * 
+     * @param other The other order
+     * @return Whether the orders are compatible
+     */
+    public boolean isCompatible(HexagonCellOrder other)
+    {
+        HexagonGridRegion r = other.region;
+        return other.morton == morton &&
+            r.getMinX() == region.getMinX() && 
+            r.getMinY() == region.getMinY() &&
+            r.getWidth() == region.getWidth() && 
+            r.getHeight() == region.getHeight();
+    }
+    
+    /**
+     * Spread the lower 16 bits of the given value, so that bit 
+     * <code>i</code> of the input is at bit <code>2*i</code> of the
+     * result
+     * 
+     * @param value The value
+     * @return The result
+     */
+    private static int spread(int value)
+    {
+        int v = value & 0x0000FFFF;
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+    
+    /**
+     * Returns the given offset of -1, 0 or 1, as a value that can be 
+     * added to a Morton index whose other bits are all set, in order to
+     * add the offset to the coordinate that is stored in the given bits
+     * 
+     * @param offset The offset
+     * @param bits The bits of the coordinate
+     * @return The spread offset
+     */
+    private static int spreadOffset(int offset, int bits)
+    {
+        if (offset < 0)
+        {
+            return bits;
+        }
+        if (offset > 0)
+        {
+            return bits & -bits;
+        }
+        return 0;
+    }
+    
+    /**
+     * Compact the bits of the given value for a local coordinate inside
+     * a tile, so that bit <code>2*i</code> of the input is at bit 
+     * <code>i</code> of the result. This is the inverse of 
+     * {@link #spread(int)}, restricted to the bits of a tile.
+     * 
+     * @param value The value
+     * @return The result
+     */
+    private static int compact(int value)
+    {
+        int v = value & MORTON_X_BITS;
+        v = (v | (v >>> 1)) & 0x33333333;
+        v = (v | (v >>> 2)) & 0x0F0F0F0F;
+        v = (v | (v >>> 4)) & 0x00FF00FF;
+        v = (v | (v >>> 8)) & 0x0000FFFF;
+        return v;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "HexagonCellOrder[" + (morton ? "morton" : "rowMajor") + 
+            "," + region + "]";
+    }
+}
@@ -0,0 +1,973 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An off-heap store for per-cell data of a {@link HexagonGridRegion}.<br>
+ * <br>
+ * The store consists of layers, which are created with 
+ * {@link #addIntLayer()}, {@link #addFloatLayer()} and 
+ * {@link #addDoubleLayer()}. Each layer stores one primitive value for 
+ * each cell of the region, in a direct <code>ByteBuffer</code> with the 
+ * native byte order. The values are therefore not part of the Java 
+ * heap, and the heap usage of a store does not depend on the size of 
+ * the region.<br>
+ * <br>
+ * The index at which the value of each cell is stored is defined by 
+ * the {@link HexagonCellOrder} of the store. By default, this is the 
+ * {@link HexagonCellOrder#createRowMajor row-major} order, which is the
+ * same as the order of the {@link HexagonGridRegion#getIndex(int, int) 
+ * region indices}. For traversals that visit the neighbors of cells, a 
+ * {@link HexagonCellOrder#createMorton Morton} order may offer a better
+ * cache locality.<br>
+ * <br>
+ * The layers are typed views on their buffers. The cells may be 
+ * addressed with their index in the cell order, their offset 
+ * coordinates, or their cube coordinates. Layers of the same type may 
+ * be copied in bulk with {@link Layer#copyFrom(Layer)}, and their 
+ * buffers may be obtained for further bulk operations. For a store with
+ * the row-major order, the values in the buffers are in the same order 
+ * as in a {@link HexagonMapFile}, so that the buffers may, for example,
+ * be filled from such a file directly. For a Morton order, the values 
+ * are permuted, and the buffers contain padding elements, so the values
+ * have to be converted with {@link HexagonCellOrder#getIndex(int, int)}.
+ * Changes of the values that are done with the methods of the layers 
+ * may be tracked with a {@link HexagonChangeTracker}.<br>
+ * <br>
+ * Note that the memory of the direct buffers is only released when the 
+ * buffers are garbage collected.<br>
+ * <br>
+ * This class is not thread-safe. Concurrent reads are possible, but 
+ * concurrent modifications must be synchronized externally.
+ */
+public final class HexagonCellStore
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The {@link HexagonCellOrder}
+     */
+    private final HexagonCellOrder cellOrder;
+    
+    /**
+     * The layers
+     */
+    private final List<Layer> layers;
+    
+    /**
+     * Creates a new store for the given region, without any layers, 
+     * that stores the cells in row-major order
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public HexagonCellStore(HexagonGridRegion region)
+    {
+        this(HexagonCellOrder.createRowMajor(region));
+    }
+    
+    /**
+     * Creates a new store for the region of the given order, without 
+     * any layers, that stores the cells in the given order
+     * 
+     * @param cellOrder The {@link HexagonCellOrder}
+     */
+    public HexagonCellStore(HexagonCellOrder cellOrder)
+    {
+        this.region = cellOrder.getRegion();
+        this.cellOrder = cellOrder;
+        this.layers = new ArrayList<Layer>();
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this store
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the {@link HexagonCellOrder} of this store
+     * 
+     * @return The {@link HexagonCellOrder}
+     */
+    public HexagonCellOrder getCellOrder()
+    {
+        return cellOrder;
+    }
+    
+    /**
+     * Returns the number of layers in this store
+     * 
+     * @return The number of layers
+     */
+    public int getNumLayers()
+    {
+        return layers.size();
+    }
+    
+    /**
+     * Returns the layer with the given index
+     * 
+     * @param index The index
+     * @return The {@link Layer}
+     * @throws IndexOutOfBoundsException If the index is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     */
+    public Layer getLayer(int index)
+    {
+        return layers.get(index);
+    }
+    
+    /**
+     * Returns the total number of bytes that are allocated for the 
+     * layers of this store
+     * 
+     * @return The number of bytes
+     */
+    public long getByteSize()
+    {
+        long size = 0;
+        for (Layer layer : layers)
+        {
+            size += layer.buffer.capacity();
+        }
+        return size;
+    }
+    
+    /**
+     * Add a new layer for <code>int</code> values. The values are 
+     * initially 0.
+     * 
+     * @return The new {@link IntLayer}
+     * @throws IllegalArgumentException If the layer would require more
+     * than <code>Integer.MAX_VALUE</code> bytes
+     */
+    public IntLayer addIntLayer()
+    {
+        IntLayer layer = new IntLayer(this, allocate(Integer.BYTES));
+        layers.add(layer);
+        return layer;
+    }
+    
+    /**
+     * Add a new layer for <code>float</code> values. The values are 
+     * initially 0.0f.
+     * 
+     * @return The new {@link FloatLayer}
+     * @throws IllegalArgumentException If the layer would require more
+     * than <code>Integer.MAX_VALUE</code> bytes
+     */
+    public FloatLayer addFloatLayer()
+    {
+        FloatLayer layer = new FloatLayer(this, allocate(Float.BYTES));
+        layers.add(layer);
+        return layer;
+    }
+    
+    /**
+     * Add a new layer for <code>double</code> values. The values are 
+     * initially 0.0.
+     * 
+     * @return The new {@link DoubleLayer}
+     * @throws IllegalArgumentException If the layer would require more
+     * than <code>Integer.MAX_VALUE</code> bytes
+     */
+    public DoubleLayer addDoubleLayer()
+    {
+        DoubleLayer layer = new DoubleLayer(this, allocate(Double.BYTES));
+        layers.add(layer);
+        return layer;
+    }
+    
+    /**
+     * Allocate a direct buffer with the native byte order, for one value
+     * of the given size for each element of the cell order
+     * 
+     * @param valueSize The size of one value, in bytes
+     * @return The buffer
+     * @throws IllegalArgumentException If the buffer would require more
+     * than <code>Integer.MAX_VALUE</code> bytes
+     */
+    private ByteBuffer allocate(int valueSize)
+    {
+        long size = (long)cellOrder.getSize() * valueSize;
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "The layer would require " + size + " bytes, but only " + 
+                Integer.MAX_VALUE + " are supported");
+        }
+        return ByteBuffer.allocateDirect((int)size)
+            .order(ByteOrder.nativeOrder());
+    }
+    
+    /**
+     * Base class for the layers of a {@link HexagonCellStore}
+     */
+    public static abstract class Layer
+    {
+        /**
+         * The {@link HexagonCellStore} that this layer belongs to
+         */
+        private final HexagonCellStore store;
+        
+        /**
+         * The buffer that stores the values
+         */
+        private final ByteBuffer buffer;
+        
+        /**
+         * The {@link HexagonChangeTracker}. May be <code>null</code>
+         */
+        private HexagonChangeTracker changeTracker;
+        
+        /**
+         * Creates a new layer
+         * 
+         * @param store The {@link HexagonCellStore}
+         * @param buffer The buffer
+         */
+        Layer(HexagonCellStore store, ByteBuffer buffer)
+        {
+            this.store = store;
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Returns the {@link HexagonCellStore} that this layer belongs to
+         * 
+         * @return The {@link HexagonCellStore}
+         */
+        public final HexagonCellStore getStore()
+        {
+            return store;
+        }
+        
+        /**
+         * Returns a new view on the buffer that stores the values of this
+         * layer. The buffer has the native byte order. Changes in the 
+         * buffer will be visible in this layer, and vice versa.
+         * 
+         * @return The buffer
+         */
+        public final ByteBuffer getByteBuffer()
+        {
+            return buffer.duplicate().order(buffer.order());
+        }
+        
+        /**
+         * Copy all values from the given layer into this layer. The 
+         * given layer must have the same type as this layer, and belong 
+         * to a store with a {@link HexagonCellOrder#isCompatible 
+         * compatible} cell order.
+         * 
+         * @param source The source layer
+         * @throws IllegalArgumentException If the given layer has a 
+         * different type or cell order than this layer
+         */
+        public final void copyFrom(Layer source)
+        {
+            if (source.getClass() != getClass() || 
+                !source.store.cellOrder.isCompatible(store.cellOrder))
+            {
+                throw new IllegalArgumentException(
+                    "Can not copy a " + source.getClass().getSimpleName() + 
+                    " with " + source.store.cellOrder + " into a " + 
+                    getClass().getSimpleName() + " with " + 
+                    store.cellOrder);
+            }
+            if (source != this)
+            {
+                ByteBuffer target = buffer.duplicate();
+                target.put(source.buffer.duplicate());
+                if (changeTracker != null)
+                {
+                    changeTracker.markAllChanged();
+                }
+            }
+        }
+        
+        /**
+         * Set the {@link HexagonChangeTracker} that will be notified about
+         * all values that are changed with the methods of this layer. The
+         * cells are reported to the tracker with their 
+         * {@link HexagonGridRegion#getIndex(int, int) region index}, 
+         * regardless of the cell order of the store. Changes that are 
+         * done directly in the buffers of this layer are not tracked.
+         * 
+         * @param changeTracker The {@link HexagonChangeTracker}. May be
+         * <code>null</code>
+         * @throws IllegalArgumentException If the region of the given 
+         * tracker has a different number of cells than the region of 
+         * the store
+         */
+        public final void setChangeTracker(
+            HexagonChangeTracker changeTracker)
+        {
+            if (changeTracker != null)
+            {
+                changeTracker.validateNumCells(store.region);
+            }
+            this.changeTracker = changeTracker;
+        }
+        
+        /**
+         * Returns the {@link HexagonChangeTracker} of this layer
+         * 
+         * @return The {@link HexagonChangeTracker}. May be 
+         * <code>null</code>
+         */
+        public final HexagonChangeTracker getChangeTracker()
+        {
+            return changeTracker;
+        }
+        
+        /**
+         * Mark the cell that is stored at the given index in the cell 
+         * order of the store as changed in the {@link HexagonChangeTracker}
+         * of this layer, if there is one. Padding elements of a Morton
+         * order are ignored.
+         * 
+         * @param index The index in the cell order
+         */
+        final void markChanged(int index)
+        {
+            if (changeTracker == null)
+            {
+                return;
+            }
+            HexagonCellOrder cellOrder = store.cellOrder;
+            if (!cellOrder.isMorton())
+            {
+                changeTracker.markChanged(index);
+                return;
+            }
+            int regionIndex = store.region.getIndex(
+                cellOrder.getX(index), cellOrder.getY(index));
+            if (regionIndex >= 0)
+            {
+                changeTracker.markChanged(regionIndex);
+            }
+        }
+        
+        /**
+         * Mark all cells as changed in the {@link HexagonChangeTracker} 
+         * of this layer, if there is one
+         */
+        final void markAllChanged()
+        {
+            if (changeTracker != null)
+            {
+                changeTracker.markAllChanged();
+            }
+        }
+        
+        /**
+         * Mark the cells that are stored at the given range of indices 
+         * in the cell order of the store as changed in the 
+         * {@link HexagonChangeTracker} of this layer, if there is one
+         * 
+         * @param index The index of the first cell
+         * @param length The number of cells
+         */
+        final void markChanged(int index, int length)
+        {
+            if (changeTracker != null)
+            {
+                for (int i = 0; i < length; i++)
+                {
+                    markChanged(index + i);
+                }
+            }
+        }
+        
+        /**
+         * Returns the index of the cell with the given offset coordinates
+         * in the cell order of the store
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The index
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        final int validIndex(int x, int y)
+        {
+            int index = store.cellOrder.getIndex(x, y);
+            if (index < 0)
+            {
+                throw new IndexOutOfBoundsException(
+                    "Cell (" + x + "," + y + ") is not contained in " + 
+                    store.region);
+            }
+            return index;
+        }
+        
+        /**
+         * Returns the index of the cell with the given cube coordinates
+         * in the cell order of the store
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @return The index
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        final int validCubeIndex(int cx, int cy)
+        {
+            HexagonGrid hexagonGrid = store.region.getHexagonGrid();
+            long offset = hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                PackedCoordinates.pack(cx, cy));
+            return validIndex(PackedCoordinates.unpackX(offset), 
+                PackedCoordinates.unpackY(offset));
+        }
+    }
+    
+    /**
+     * A {@link Layer} that stores <code>int</code> values
+     */
+    public static final class IntLayer extends Layer
+    {
+        /**
+         * The typed view on the buffer
+         */
+        private final IntBuffer values;
+        
+        /**
+         * Creates a new layer
+         * 
+         * @param store The {@link HexagonCellStore}
+         * @param buffer The buffer
+         */
+        IntLayer(HexagonCellStore store, ByteBuffer buffer)
+        {
+            super(store, buffer);
+            this.values = buffer.asIntBuffer();
+        }
+        
+        /**
+         * Returns the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public int get(int x, int y)
+        {
+            return values.get(validIndex(x, y));
+        }
+        
+        /**
+         * Set the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void set(int x, int y, int value)
+        {
+            set(validIndex(x, y), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public int getCube(int cx, int cy)
+        {
+            return values.get(validCubeIndex(cx, cy));
+        }
+        
+        /**
+         * Set the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void setCube(int cx, int cy, int value)
+        {
+            set(validCubeIndex(cx, cy), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given index in the 
+         * cell order of the store
+         * 
+         * @param index The index
+         * @return The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public int get(int index)
+        {
+            return values.get(index);
+        }
+        
+        /**
+         * Set the value of the cell with the given index in the cell
+         * order of the store
+         * 
+         * @param index The index
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public void set(int index, int value)
+        {
+            if (getChangeTracker() != null && 
+                values.get(index) != value)
+            {
+                markChanged(index);
+            }
+            values.put(index, value);
+        }
+        
+        /**
+         * Set all values of this layer to the given value
+         * 
+         * @param value The value
+         */
+        public void fill(int value)
+        {
+            for (int i = 0; i < values.capacity(); i++)
+            {
+                values.put(i, value);
+            }
+            markAllChanged();
+        }
+        
+        /**
+         * Copy the values of the cells with the indices in the cell 
+         * order starting at the given index into the given array
+         * 
+         * @param index The index of the first cell
+         * @param target The target array
+         * @param offset The offset in the target array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void get(int index, int target[], int offset, int length)
+        {
+            IntBuffer view = values.duplicate();
+            view.position(index);
+            view.get(target, offset, length);
+        }
+        
+        /**
+         * Copy the values from the given array into the cells with the 
+         * indices in the cell order starting at the given index
+         * 
+         * @param index The index of the first cell
+         * @param source The source array
+         * @param offset The offset in the source array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void set(int index, int source[], int offset, int length)
+        {
+            IntBuffer view = values.duplicate();
+            view.position(index);
+            view.put(source, offset, length);
+            markChanged(index, length);
+        }
+        
+        /**
+         * Returns a new view on the values of this layer. Changes in the 
+         * buffer will be visible in this layer, and vice versa.
+         * 
+         * @return The buffer
+         */
+        public IntBuffer getBuffer()
+        {
+            return values.duplicate();
+        }
+    }
+    
+    /**
+     * A {@link Layer} that stores <code>float</code> values
+     */
+    public static final class FloatLayer extends Layer
+    {
+        /**
+         * The typed view on the buffer
+         */
+        private final FloatBuffer values;
+        
+        /**
+         * Creates a new layer
+         * 
+         * @param store The {@link HexagonCellStore}
+         * @param buffer The buffer
+         */
+        FloatLayer(HexagonCellStore store, ByteBuffer buffer)
+        {
+            super(store, buffer);
+            this.values = buffer.asFloatBuffer();
+        }
+        
+        /**
+         * Returns the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public float get(int x, int y)
+        {
+            return values.get(validIndex(x, y));
+        }
+        
+        /**
+         * Set the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void set(int x, int y, float value)
+        {
+            set(validIndex(x, y), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public float getCube(int cx, int cy)
+        {
+            return values.get(validCubeIndex(cx, cy));
+        }
+        
+        /**
+         * Set the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void setCube(int cx, int cy, float value)
+        {
+            set(validCubeIndex(cx, cy), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given index in the 
+         * cell order of the store
+         * 
+         * @param index The index
+         * @return The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public float get(int index)
+        {
+            return values.get(index);
+        }
+        
+        /**
+         * Set the value of the cell with the given index in the cell
+         * order of the store
+         * 
+         * @param index The index
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public void set(int index, float value)
+        {
+            if (getChangeTracker() != null && 
+                Float.compare(values.get(index), value) != 0)
+            {
+                markChanged(index);
+            }
+            values.put(index, value);
+        }
+        
+        /**
+         * Set all values of this layer to the given value
+         * 
+         * @param value The value
+         */
+        public void fill(float value)
+        {
+            for (int i = 0; i < values.capacity(); i++)
+            {
+                values.put(i, value);
+            }
+            markAllChanged();
+        }
+        
+        /**
+         * Copy the values of the cells with the indices in the cell 
+         * order starting at the given index into the given array
+         * 
+         * @param index The index of the first cell
+         * @param target The target array
+         * @param offset The offset in the target array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void get(int index, float target[], int offset, int length)
+        {
+            FloatBuffer view = values.duplicate();
+            view.position(index);
+            view.get(target, offset, length);
+        }
+        
+        /**
+         * Copy the values from the given array into the cells with the 
+         * indices in the cell order starting at the given index
+         * 
+         * @param index The index of the first cell
+         * @param source The source array
+         * @param offset The offset in the source array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void set(int index, float source[], int offset, int length)
+        {
+            FloatBuffer view = values.duplicate();
+            view.position(index);
+            view.put(source, offset, length);
+            markChanged(index, length);
+        }
+        
+        /**
+         * Returns a new view on the values of this layer. Changes in the 
+         * buffer will be visible in this layer, and vice versa.
+         * 
+         * @return The buffer
+         */
+        public FloatBuffer getBuffer()
+        {
+            return values.duplicate();
+        }
+    }
+    
+    /**
+     * A {@link Layer} that stores <code>double</code> values
+     */
+    public static final class DoubleLayer extends Layer
+    {
+        /**
+         * The typed view on the buffer
+         */
+        private final DoubleBuffer values;
+        
+        /**
+         * Creates a new layer
+         * 
+         * @param store The {@link HexagonCellStore}
+         * @param buffer The buffer
+         */
+        DoubleLayer(HexagonCellStore store, ByteBuffer buffer)
+        {
+            super(store, buffer);
+            this.values = buffer.asDoubleBuffer();
+        }
+        
+        /**
+         * Returns the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public double get(int x, int y)
+        {
+            return values.get(validIndex(x, y));
+        }
+        
+        /**
+         * Set the value of the cell with the given offset coordinates
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void set(int x, int y, double value)
+        {
+            set(validIndex(x, y), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @return The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public double getCube(int cx, int cy)
+        {
+            return values.get(validCubeIndex(cx, cy));
+        }
+        
+        /**
+         * Set the value of the cell with the given cube coordinates
+         * 
+         * @param cx The x-coordinate
+         * @param cy The y-coordinate
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the cell is not contained
+         * in the region of the store
+         */
+        public void setCube(int cx, int cy, double value)
+        {
+            set(validCubeIndex(cx, cy), value);
+        }
+        
+        /**
+         * Returns the value of the cell with the given index in the 
+         * cell order of the store
+         * 
+         * @param index The index
+         * @return The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public double get(int index)
+        {
+            return values.get(index);
+        }
+        
+        /**
+         * Set the value of the cell with the given index in the cell
+         * order of the store
+         * 
+         * @param index The index
+         * @param value The value
+         * @throws IndexOutOfBoundsException If the index is not valid
+         */
+        public void set(int index, double value)
+        {
+            if (getChangeTracker() != null && 
+                Double.compare(values.get(index), value) != 0)
+            {
+                markChanged(index);
+            }
+            values.put(index, value);
+        }
+        
+        /**
+         * Set all values of this layer to the given value
+         * 
+         * @param value The value
+         */
+        public void fill(double value)
+        {
+            for (int i = 0; i < values.capacity(); i++)
+            {
+                values.put(i, value);
+            }
+            markAllChanged();
+        }
+        
+        /**
+         * Copy the values of the cells with the indices in the cell 
+         * order starting at the given index into the given array
+         * 
+         * @param index The index of the first cell
+         * @param target The target array
+         * @param offset The offset in the target array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void get(int index, double target[], int offset, int length)
+        {
+            DoubleBuffer view = values.duplicate();
+            view.position(index);
+            view.get(target, offset, length);
+        }
+        
+        /**
+         * Copy the values from the given array into the cells with the 
+         * indices in the cell order starting at the given index
+         * 
+         * @param index The index of the first cell
+         * @param source The source array
+         * @param offset The offset in the source array
+         * @param length The number of values
+         * @throws IndexOutOfBoundsException If the ranges are not valid
+         */
+        public void set(int index, double source[], int offset, int length)
+        {
+            DoubleBuffer view = values.duplicate();
+            view.position(index);
+            view.put(source, offset, length);
+            markChanged(index, length);
+        }
+        
+        /**
+         * Returns a new view on the values of this layer. Changes in the 
+         * buffer will be visible in this layer, and vice versa.
+         * 
+         * @return The buffer
+         */
+        public DoubleBuffer getBuffer()
+        {
+            return values.duplicate();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A class that tracks which cells of a {@link HexagonGridRegion} have 
+ * been changed.<br>
+ * <br>
+ * A tracker may be attached to a {@link HexagonIntMap}, 
+ * {@link HexagonFloatMap} or {@link HexagonDoubleMap}, or to a 
+ * {@link HexagonCellStore.Layer}, which will then report each 
+ * modification of a value via {@link #markChanged(int)}. The layers
+ * of a store report the region index of the cell, regardless of the
+ * cell order of the store. Modifications that are done directly in the
+ * values array of a map or in the buffer of a layer are not tracked, 
+ * and have to be reported manually.<br>
+ * <br>
+ * The changed cells are stored in a {@link CellBitSets bit set}, so that
+ * each cell is only recorded once, and in a list, in the order in which
+ * the cells have been changed for the first time since they have last
+ * been drained. The changes may be drained in batches of a given 
+ * size, for example with 
+ * {@link #drain(HexagonIntMap, int[], int[], Rectangle2D)}, which 
+ * writes the indices and current values of the changed cells into 
+ * the given arrays, and computes the bounds of the batch with 
+ * {@link HexagonGrids#computeBounds}. Draining does not allocate any 
+ * objects.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class HexagonChangeTracker
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The bit set that stores which cells are changed
+     */
+    private final long changed[];
+    
+    /**
+     * The indices of the changed cells
+     */
+    private int changes[];
+    
+    /**
+     * The position of the first change that was not drained yet
+     */
+    private int start;
+    
+    /**
+     * The position after the last change
+     */
+    private int end;
+    
+    /**
+     * Creates a new tracker for the given {@link HexagonGridRegion}, 
+     * where no cell is changed
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public HexagonChangeTracker(HexagonGridRegion region)
+    {
+        this.region = region;
+        this.changed = CellBitSets.create(region);
+        this.changes = new int[16];
+        this.start = 0;
+        this.end = 0;
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this tracker
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Mark the cell with the given offset coordinates as changed
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public void markChanged(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        markChanged(index);
+    }
+    
+    /**
+     * Mark the cell with the given index as changed
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void markChanged(int index)
+    {
+        if (index < 0 || index >= region.getNumCells())
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + region.getNumCells() + 
+                "), but is " + index);
+        }
+        if (CellBitSets.get(changed, index))
+        {
+            return;
+        }
+        CellBitSets.set(changed, index);
+        if (end == changes.length)
+        {
+            int size = end - start;
+            if (start > 0 && size <= changes.length / 2)
+            {
+                System.arraycopy(changes, start, changes, 0, size);
+            }
+            else
+            {
+                int capacity = Math.min(region.getNumCells(), 
+                    Math.max(16, changes.length * 2));
+                changes = Arrays.copyOfRange(changes, start, start + capacity);
+            }
+            start = 0;
+            end = size;
+        }
+        changes[end] = index;
+        end++;
+    }
+    
+    /**
+     * Mark all cells as changed. Cells that are already marked as changed
+     * keep their position in the order of changes.
+     */
+    public void markAllChanged()
+    {
+        int numCells = region.getNumCells();
+        for (int i = 0; i < numCells; i++)
+        {
+            markChanged(i);
+        }
+    }
+    
+    /**
+     * Returns whether the cell with the given index is marked as changed
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @return Whether the cell is changed
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public boolean isChanged(int index)
+    {
+        if (index < 0 || index >= region.getNumCells())
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + region.getNumCells() + 
+                "), but is " + index);
+        }
+        return CellBitSets.get(changed, index);
+    }
+    
+    /**
+     * Returns the number of cells that are marked as changed, and have
+     * not been drained yet
+     * 
+     * @return The number of changed cells
+     */
+    public int getNumChanges()
+    {
+        return end - start;
+    }
+    
+    /**
+     * Remove all changes, without draining them
+     */
+    public void clear()
+    {
+        for (int i = start; i < end; i++)
+        {
+            CellBitSets.clear(changed, changes[i]);
+        }
+        start = 0;
+        end = 0;
+    }
+    
+    /**
+     * Drain the next batch of changes. This writes the indices of up to
+     * <code>indices.length</code> changed cells into the given array, in 
+     * the order in which they have been changed, and removes their 
+     * changed-mark. If the given bounds are not <code>null</code>, then 
+     * they will be set to the {@link HexagonGrids#computeBounds bounds} 
+     * of the range of cells that contains the cells of the batch, or to
+     * an empty rectangle if the batch is empty.
+     * 
+     * @param indices The array that will store the indices
+     * @param bounds The bounds of the batch, or <code>null</code>
+     * @return The number of cells in the batch
+     */
+    public int drain(int indices[], Rectangle2D bounds)
+    {
+        return drain(indices, indices.length, bounds);
+    }
+    
+    /**
+     * Drain the next batch of changes, as described in 
+     * {@link #drain(int[], Rectangle2D)}, and write the current values 
+     * of the cells of the batch from the given map into the given array.
+     * The batch contains at most as many cells as the shorter one of 
+     * the given arrays.
+     * 
+     * @param map The {@link HexagonIntMap}
+     * @param indices The array that will store the indices
+     * @param values The array that will store the values
+     * @param bounds The bounds of the batch, or <code>null</code>
+     * @return The number of cells in the batch
+     * @throws IllegalArgumentException If the given map has a different
+     * number of cells than the region of this tracker
+     */
+    public int drain(HexagonIntMap map, int indices[], int values[], 
+        Rectangle2D bounds)
+    {
+        validateNumCells(map.getRegion());
+        int n = drain(indices, Math.min(indices.length, values.length), 
+            bounds);
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = map.get(indices[i]);
+        }
+        return n;
+    }
+    
+    /**
+     * Drain the next batch of changes, as described in 
+     * {@link #drain(int[], Rectangle2D)}, and write the current values 
+     * of the cells of the batch from the given map into the given array.
+     * The batch contains at most as many cells as the shorter one of 
+     * the given arrays.
+     * 
+     * @param map The {@link HexagonFloatMap}
+     * @param indices The array that will store the indices
+     * @param values The array that will store the values
+     * @param bounds The bounds of the batch, or <code>null</code>
+     * @return The number of cells in the batch
+     * @throws IllegalArgumentException If the given map has a different
+     * number of cells than the region of this tracker
+     */
+    public int drain(HexagonFloatMap map, int indices[], float values[], 
+        Rectangle2D bounds)
+    {
+        validateNumCells(map.getRegion());
+        int n = drain(indices, Math.min(indices.length, values.length), 
+            bounds);
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = map.get(indices[i]);
+        }
+        return n;
+    }
+    
+    /**
+     * Drain the next batch of changes, as described in 
+     * {@link #drain(int[], Rectangle2D)}, and write the current values 
+     * of the cells of the batch from the given map into the given array.
+     * The batch contains at most as many cells as the shorter one of 
+     * the given arrays.
+     * 
+     * @param map The {@link HexagonDoubleMap}
+     * @param indices The array that will store the indices
+     * @param values The array that will store the values
+     * @param bounds The bounds of the batch, or <code>null</code>
+     * @return The number of cells in the batch
+     * @throws IllegalArgumentException If the given map has a different
+     * number of cells than the region of this tracker
+     */
+    public int drain(HexagonDoubleMap map, int indices[], double values[], 
+        Rectangle2D bounds)
+    {
+        validateNumCells(map.getRegion());
+        int n = drain(indices, Math.min(indices.length, values.length), 
+            bounds);
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = map.get(indices[i]);
+        }
+        return n;
+    }
+    
+    /**
+     * Drain the next batch of at most the given number of changes, as 
+     * described in {@link #drain(int[], Rectangle2D)}
+     * 
+     * @param indices The array that will store the indices
+     * @param maxCount The maximum number of changes
+     * @param bounds The bounds of the batch, or <code>null</code>
+     * @return The number of cells in the batch
+     */
+    private int drain(int indices[], int maxCount, Rectangle2D bounds)
+    {
+        int n = Math.min(maxCount, end - start);
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++)
+        {
+            int index = changes[start + i];
+            CellBitSets.clear(changed, index);
+            indices[i] = index;
+            int x = region.getX(index);
+            int y = region.getY(index);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        start += n;
+        if (start == end)
+        {
+            start = 0;
+            end = 0;
+        }
+        if (bounds != null)
+        {
+            if (n == 0)
+            {
+                bounds.setRect(0, 0, 0, 0);
+            }
+            else
+            {
+                HexagonGrids.computeBounds(region.getHexagonGrid(), 
+                    minX, minY, maxX, maxY, bounds);
+            }
+        }
+        return n;
+    }
+    
+    /**
+     * Make sure that the given region has the same number of cells as 
+     * the region of this tracker
+     * 
+     * @param other The other region
+     * @throws IllegalArgumentException If the number of cells differs
+     */
+    void validateNumCells(HexagonGridRegion other)
+    {
+        if (other.getNumCells() != region.getNumCells())
+        {
+            throw new IllegalArgumentException(
+                "Expected a region with " + region.getNumCells() + 
+                " cells, but got one with " + other.getNumCells());
+        }
+    }
+}
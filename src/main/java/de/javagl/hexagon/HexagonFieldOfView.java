@@ -0,0 +1,416 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A field of view computation for the cells of a {@link HexagonGridRegion}.
+ * <br>
+ * <br>
+ * The visibility is determined with a shadow casting approach: The
+ * cells around an observer are processed in 
+ * {@link CubeCoordinates#forEachInRing rings} of increasing radius. 
+ * The <code>k</code>-th cell of the ring with radius <code>r</code> 
+ * covers the angular interval <code>[(k-0.5)/(6r), (k+0.5)/(6r)]</code> 
+ * (in units of full turns). 
+ * A cell is visible when the center of its interval is not covered by
+ * the interval of any opaque cell in a ring with a smaller radius. 
+ * Cells that are not contained in the region are considered to be 
+ * opaque.<br>
+ * <br>
+ * The results are written into bit sets, as described in 
+ * {@link CellBitSets}.<br>
+ * <br>
+ * Instances of this class are thread-safe, as long as the given 
+ * {@link CellPredicate} is thread-safe.
+ */
+public final class HexagonFieldOfView
+{
+    /**
+     * The number of observers that are processed by one task when 
+     * computing multiple fields of view
+     */
+    private static final int OBSERVERS_PER_TASK = 8;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The predicate that determines whether a cell is opaque
+     */
+    private final CellPredicate opaque;
+    
+    /**
+     * The pool for the parallel computations
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The shadows, for each thread
+     */
+    private final ThreadLocal<Shadows> shadows;
+    
+    /**
+     * Creates a new field of view computation that uses the common pool
+     * for the parallel computations
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param opaque The predicate that determines whether a cell is opaque
+     */
+    public HexagonFieldOfView(HexagonGridRegion region, CellPredicate opaque)
+    {
+        this(region, opaque, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new field of view computation
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param opaque The predicate that determines whether a cell is opaque
+     * @param pool The pool for the parallel computations
+     */
+    public HexagonFieldOfView(HexagonGridRegion region, CellPredicate opaque,
+        ForkJoinPool pool)
+    {
+        this.region = region;
+        this.opaque = opaque;
+        this.pool = pool;
+        this.shadows = ThreadLocal.withInitial(Shadows::new);
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this field of view 
+     * computation
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns whether the line between the given cells is not blocked
+     * by any opaque cell. The given cells themselves are not checked.
+     * 
+     * @param x0 The x-coordinate of the first cell
+     * @param y0 The y-coordinate of the first cell
+     * @param x1 The x-coordinate of the second cell
+     * @param y1 The y-coordinate of the second cell
+     * @return Whether there is a line of sight between the cells
+     */
+    public boolean hasLineOfSight(int x0, int y0, int x1, int y1)
+    {
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        long cube0 = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x0, y0));
+        long cube1 = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x1, y1));
+        int cx0 = PackedCoordinates.unpackX(cube0);
+        int cy0 = PackedCoordinates.unpackY(cube0);
+        int cx1 = PackedCoordinates.unpackX(cube1);
+        int cy1 = PackedCoordinates.unpackY(cube1);
+        int n = CubeCoordinates.computeStepsDistance(cx0, cy0, cx1, cy1);
+        Shadows s = shadows.get();
+        s.ensureLineCapacity(n + 1);
+        CubeCoordinates.computeLine(cx0, cy0, cx1, cy1, s.line);
+        for (int i = 1; i < n; i++)
+        {
+            long offset = hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                PackedCoordinates.pack(s.line[i * 2 + 0], s.line[i * 2 + 1]));
+            int x = PackedCoordinates.unpackX(offset);
+            int y = PackedCoordinates.unpackY(offset);
+            if (isOpaque(x, y))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compute the cells that are visible from the given observer cell, 
+     * up to the given radius, and store them in the given bit set. 
+     * 
+     * @param x The x-coordinate of the observer
+     * @param y The y-coordinate of the observer
+     * @param radius The radius
+     * @param visible The {@link CellBitSets bit set} that will store the 
+     * result. It will be cleared before the result is written.
+     * @throws IndexOutOfBoundsException If the given bit set is too small
+     * for the {@link #getRegion() region}
+     */
+    public void compute(int x, int y, int radius, long visible[])
+    {
+        CellBitSets.clear(visible);
+        int index = region.getIndex(x, y);
+        if (index >= 0)
+        {
+            CellBitSets.set(visible, index);
+        }
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        int cx = PackedCoordinates.unpackX(cube);
+        int cy = PackedCoordinates.unpackY(cube);
+        
+        Shadows s = shadows.get();
+        s.clear();
+        for (int r = 1; r <= radius && !s.isComplete(); r++)
+        {
+            double cellSize = 1.0 / (6 * r);
+            int rx = cx + CubeCoordinates.DIRECTIONS_X[4] * r;
+            int ry = cy + CubeCoordinates.DIRECTIONS_Y[4] * r;
+            int k = 0;
+            for (int d = 0; d < 6; d++)
+            {
+                int dx = CubeCoordinates.DIRECTIONS_X[d];
+                int dy = CubeCoordinates.DIRECTIONS_Y[d];
+                for (int i = 0; i < r; i++)
+                {
+                    long offset = 
+                        hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                            PackedCoordinates.pack(rx, ry));
+                    int ox = PackedCoordinates.unpackX(offset);
+                    int oy = PackedCoordinates.unpackY(offset);
+                    double center = k * cellSize;
+                    int cellIndex = region.getIndex(ox, oy);
+                    if (cellIndex >= 0 && !s.covers(center))
+                    {
+                        CellBitSets.set(visible, cellIndex);
+                    }
+                    if (cellIndex < 0 || opaque.test(ox, oy))
+                    {
+                        s.add(center - 0.5 * cellSize, center + 0.5 * cellSize);
+                    }
+                    rx += dx;
+                    ry += dy;
+                    k++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Compute the fields of view for all given observer cells, in 
+     * parallel. The result for the <code>i</code>-th observer will be 
+     * written into the bit set <code>visible[i]</code>.
+     * 
+     * @param xs The x-coordinates of the observers
+     * @param ys The y-coordinates of the observers
+     * @param count The number of observers
+     * @param radius The radius
+     * @param visible The {@link CellBitSets bit sets} that will store 
+     * the results
+     * @throws IndexOutOfBoundsException If any of the given arrays has 
+     * a length that is smaller than the given count, or any of the bit 
+     * sets is too small for the {@link #getRegion() region}
+     */
+    public void computeAll(int xs[], int ys[], int count, int radius, 
+        long visible[][])
+    {
+        ParallelRanges.run(pool, 0, count, OBSERVERS_PER_TASK, 
+            (start, end) -> 
+        {
+            for (int i = start; i < end; i++)
+            {
+                compute(xs[i], ys[i], radius, visible[i]);
+            }
+        });
+    }
+    
+    /**
+     * Returns the pool that is used for the parallel computations
+     * 
+     * @return The pool
+     */
+    ForkJoinPool getPool()
+    {
+        return pool;
+    }
+    
+    /**
+     * Returns whether the cell with the given offset coordinates is 
+     * opaque. Cells outside of the region are opaque.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return Whether the cell is opaque
+     */
+    private boolean isOpaque(int x, int y)
+    {
+        return !region.contains(x, y) || opaque.test(x, y);
+    }
+    
+    /**
+     * A set of disjoint, sorted angular intervals in [0,1), describing
+     * the shadows that are cast by opaque cells
+     */
+    private static final class Shadows
+    {
+        /**
+         * The start angles of the intervals
+         */
+        private double starts[] = new double[16];
+        
+        /**
+         * The end angles of the intervals
+         */
+        private double ends[] = new double[16];
+        
+        /**
+         * The number of intervals
+         */
+        private int count;
+        
+        /**
+         * A buffer for the cells of a line
+         */
+        private int line[] = new int[32];
+        
+        /**
+         * Make sure that the line buffer can store the given number 
+         * of cells
+         * 
+         * @param numCells The number of cells
+         */
+        void ensureLineCapacity(int numCells)
+        {
+            if (line.length < numCells * 2)
+            {
+                line = new int[numCells * 2];
+            }
+        }
+        
+        /**
+         * Remove all intervals
+         */
+        void clear()
+        {
+            count = 0;
+        }
+        
+        /**
+         * Returns whether the whole range [0,1) is covered
+         * 
+         * @return Whether the whole range is covered
+         */
+        boolean isComplete()
+        {
+            return count == 1 && starts[0] <= 0.0 && ends[0] >= 1.0;
+        }
+        
+        /**
+         * Returns whether the given angle is strictly inside one 
+         * of the intervals. An interval that starts at 0 is the part
+         * of an interval that wraps around at 0, and thus also covers
+         * the angle 0.
+         * 
+         * @param angle The angle, in [0,1)
+         * @return Whether the angle is covered
+         */
+        boolean covers(double angle)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                if (angle < starts[i] || (angle == starts[i] && angle > 0.0))
+                {
+                    return false;
+                }
+                if (angle < ends[i])
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Add the given interval. If the interval wraps around at 0,
+         * then it is split into two intervals.
+         * 
+         * @param start The start angle
+         * @param end The end angle
+         */
+        void add(double start, double end)
+        {
+            if (start < 0.0)
+            {
+                addInterval(start + 1.0, 1.0);
+                addInterval(0.0, end);
+            }
+            else
+            {
+                addInterval(start, end);
+            }
+        }
+        
+        /**
+         * Add the given interval, merging it with all intervals that 
+         * it overlaps or touches
+         * 
+         * @param start The start angle
+         * @param end The end angle
+         */
+        private void addInterval(double start, double end)
+        {
+            // Find the first interval that ends at or after the start
+            int first = 0;
+            while (first < count && ends[first] < start)
+            {
+                first++;
+            }
+            // Find the first interval that starts after the end
+            int last = first;
+            while (last < count && starts[last] <= end)
+            {
+                last++;
+            }
+            if (first < last)
+            {
+                start = Math.min(start, starts[first]);
+                end = Math.max(end, ends[last - 1]);
+            }
+            int removed = last - first;
+            int delta = 1 - removed;
+            if (count + delta > starts.length)
+            {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                ends = Arrays.copyOf(ends, ends.length * 2);
+            }
+            System.arraycopy(starts, last, starts, first + 1, count - last);
+            System.arraycopy(ends, last, ends, first + 1, count - last);
+            starts[first] = start;
+            ends[first] = end;
+            count += delta;
+        }
+    }
+}
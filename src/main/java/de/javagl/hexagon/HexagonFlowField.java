@@ -0,0 +1,343 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A flow field for the cells of a {@link HexagonGridRegion}.<br>
+ * <br>
+ * The flow field is computed for a set of source cells. For each cell, 
+ * it stores the cost of the cheapest path from this cell to any of the
+ * source cells, and the direction in which the next cell of this path
+ * is located. The directions are the same as in 
+ * {@link HexagonGrid#getNeighbor}. The costs for entering the cells 
+ * are given by a {@link CellCostFunction}.<br>
+ * <br>
+ * The distances are computed with a single multi-source Dijkstra pass. 
+ * The directions are then computed from the distances, with the rows 
+ * of the region being processed in parallel, in bands of 
+ * {@link #BAND_HEIGHT} rows, in a <code>ForkJoinPool</code>, so the 
+ * cost function must support concurrent calls.<br>
+ * <br>
+ * The arrays that store the results are allocated once, and reused for
+ * subsequent computations. 
+ */
+public final class HexagonFlowField
+{
+    /**
+     * The direction value for cells that do not have a direction. These
+     * are the source cells and the cells from which no source cell can
+     * be reached.
+     */
+    public static final int NO_DIRECTION = -1;
+    
+    /**
+     * The number of rows that are processed by one task when computing
+     * the directions
+     */
+    private static final int BAND_HEIGHT = 64;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The {@link CellCostFunction}
+     */
+    private final CellCostFunction costFunction;
+    
+    /**
+     * The pool for the parallel computations
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The heap for the Dijkstra pass
+     */
+    private final IndexedDoubleHeap heap;
+    
+    /**
+     * The distances of the cells
+     */
+    private final double distances[];
+    
+    /**
+     * The directions of the cells
+     */
+    private final byte directions[];
+    
+    /**
+     * Creates a new flow field that uses the common pool for the parallel
+     * computations
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param costFunction The {@link CellCostFunction}
+     */
+    public HexagonFlowField(
+        HexagonGridRegion region, CellCostFunction costFunction)
+    {
+        this(region, costFunction, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new flow field
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param costFunction The {@link CellCostFunction}
+     * @param pool The pool for the parallel computations
+     */
+    public HexagonFlowField(HexagonGridRegion region, 
+        CellCostFunction costFunction, ForkJoinPool pool)
+    {
+        this.region = region;
+        this.costFunction = costFunction;
+        this.pool = pool;
+        int numCells = region.getNumCells();
+        this.heap = new IndexedDoubleHeap(numCells);
+        this.distances = new double[numCells];
+        this.directions = new byte[numCells];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(directions, (byte)NO_DIRECTION);
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this flow field
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Compute the flow field for the given source cells. Note that 
+     * source cells can only be reached if the cost for entering them
+     * is finite.
+     * 
+     * @param sourcesX The x-coordinates of the source cells
+     * @param sourcesY The y-coordinates of the source cells
+     * @param numSources The number of source cells
+     * @throws IndexOutOfBoundsException If any source cell is not
+     * contained in the {@link #getRegion() region}, or one of the 
+     * given arrays is shorter than the given number of sources
+     */
+    public void compute(int sourcesX[], int sourcesY[], int numSources)
+    {
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        heap.clear();
+        for (int i = 0; i < numSources; i++)
+        {
+            int x = sourcesX[i];
+            int y = sourcesY[i];
+            int index = region.getIndex(x, y);
+            if (index < 0)
+            {
+                throw new IndexOutOfBoundsException(
+                    "Cell (" + x + "," + y + ") is not contained in " + 
+                    region);
+            }
+            distances[index] = 0.0;
+            heap.insertOrDecrease(index, 0.0);
+        }
+        computeDistances();
+        ParallelRanges.run(pool, 0, region.getHeight(), BAND_HEIGHT, 
+            this::computeDirections);
+    }
+    
+    /**
+     * Compute the distances of all cells, with a Dijkstra pass that starts
+     * at the cells that are currently contained in the heap
+     */
+    private void computeDistances()
+    {
+        NeighborOffsets neighborOffsets = region.getNeighborOffsets();
+        while (!heap.isEmpty())
+        {
+            int current = heap.poll();
+            int x = region.getX(current);
+            int y = region.getY(current);
+            
+            // Moving from a neighbor into the current cell 
+            // causes the cost of the current cell
+            double stepCost = costFunction.getCost(x, y);
+            if (!(stepCost < Double.POSITIVE_INFINITY))
+            {
+                continue;
+            }
+            double newDistance = distances[current] + stepCost;
+            int parity = neighborOffsets.getParity(x, y);
+            for (int d = 0; d < 6; d++)
+            {
+                int nx = x + neighborOffsets.getDx(parity, d);
+                int ny = y + neighborOffsets.getDy(parity, d);
+                int neighbor = region.getIndex(nx, ny);
+                if (neighbor < 0 || newDistance >= distances[neighbor])
+                {
+                    continue;
+                }
+                distances[neighbor] = newDistance;
+                heap.insertOrDecrease(neighbor, newDistance);
+            }
+        }
+    }
+    
+    /**
+     * Compute the directions of all cells in the given range of rows
+     * of the region
+     * 
+     * @param startRow The start row, inclusive, relative to the region
+     * @param endRow The end row, exclusive, relative to the region
+     */
+    private void computeDirections(int startRow, int endRow)
+    {
+        NeighborOffsets neighborOffsets = region.getNeighborOffsets();
+        int minX = region.getMinX();
+        int minY = region.getMinY();
+        int width = region.getWidth();
+        for (int row = startRow; row < endRow; row++)
+        {
+            int y = minY + row;
+            for (int column = 0; column < width; column++)
+            {
+                int x = minX + column;
+                int index = region.getIndex(x, y);
+                double distance = distances[index];
+                int bestDirection = NO_DIRECTION;
+                if (distance > 0.0 && distance < Double.POSITIVE_INFINITY)
+                {
+                    // The best neighbor is the one from which the
+                    // current distance was derived
+                    double best = distance;
+                    int parity = neighborOffsets.getParity(x, y);
+                    for (int d = 0; d < 6; d++)
+                    {
+                        int nx = x + neighborOffsets.getDx(parity, d);
+                        int ny = y + neighborOffsets.getDy(parity, d);
+                        int neighbor = region.getIndex(nx, ny);
+                        if (neighbor < 0)
+                        {
+                            continue;
+                        }
+                        double nd = distances[neighbor] + 
+                            costFunction.getCost(nx, ny);
+                        if (nd <= best)
+                        {
+                            best = nd;
+                            bestDirection = d;
+                        }
+                    }
+                }
+                directions[index] = (byte)bestDirection;
+            }
+        }
+    }
+    
+    /**
+     * Returns the cost of the cheapest path from the cell with the given 
+     * offset coordinates to any source cell. If no source cell can be 
+     * reached from the given cell, then this is 
+     * <code>Double.POSITIVE_INFINITY</code>.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The distance
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public double getDistance(int x, int y)
+    {
+        return distances[validIndex(x, y)];
+    }
+    
+    /**
+     * Returns the direction of the neighbor of the cell with the given 
+     * offset coordinates that is the next cell on the cheapest path to
+     * a source cell. If the given cell is a source cell, or no source
+     * cell can be reached from the given cell, then this is 
+     * {@link #NO_DIRECTION}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The direction
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public int getDirection(int x, int y)
+    {
+        return directions[validIndex(x, y)];
+    }
+    
+    /**
+     * Returns a reference to the array that stores the distances of 
+     * all cells, in the order of the
+     * {@link HexagonGridRegion#getIndex(int, int) indices} of the region.
+     * The array will be updated by each call to {@link #compute}.
+     * 
+     * @return The distances
+     */
+    public double[] getDistances()
+    {
+        return distances;
+    }
+
+    /**
+     * Returns a reference to the array that stores the directions of 
+     * all cells, in the order of the
+     * {@link HexagonGridRegion#getIndex(int, int) indices} of the region.
+     * The array will be updated by each call to {@link #compute}.
+     * 
+     * @return The directions
+     */
+    public byte[] getDirections()
+    {
+        return directions;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+}
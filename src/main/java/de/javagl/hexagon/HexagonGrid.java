@@ -44,7 +44,20 @@ import java.awt.geom.Point2D;
  * may be {@link Hexagon vertical or horizontal}. Additionally, they may 
  * differ in the shifting of rows and columns. Namely, whether the odd 
  * rows/columns are shifted, or whether the even rows/columns
- * are shifted. 
+ * are shifted.<br>
+ * <br>
+ * The methods for bulk computations and for 
+ * {@link PackedCoordinates packed coordinates} have default 
+ * implementations that are based on the other methods. Implementations
+ * may override them with more efficient computations.<br>
+ * <br>
+ * <b>Thread safety:</b> Implementations of this interface must be 
+ * immutable, and all methods must be safe to be called concurrently 
+ * by multiple threads. The only state that may be modified by these 
+ * methods are the objects and arrays that are passed in by the caller, 
+ * and it is the responsibility of the caller to not share these 
+ * between threads. All instances that are created with the 
+ * {@link HexagonGrids} class fulfill this contract.
  */
 public interface HexagonGrid
 {
@@ -67,6 +80,119 @@ public interface HexagonGrid
      */
     Point2D getCenter(int x, int y, Point2D p);
     
+    /**
+     * Computes the centers of all {@link Hexagon}s in the given range of
+     * offset coordinates. The range includes the minimum coordinates and
+     * excludes the maximum coordinates. The centers are written into the
+     * given arrays in row-major order: The center of the hexagon with the
+     * offset coordinates <code>(x,y)</code> will be stored at index
+     * <code>(y-y0)*(x1-x0)+(x-x0)</code>.
+     * 
+     * @param x0 The minimum x-coordinate (inclusive)
+     * @param y0 The minimum y-coordinate (inclusive)
+     * @param x1 The maximum x-coordinate (exclusive)
+     * @param y1 The maximum y-coordinate (exclusive)
+     * @param xs The array that will store the x-coordinates of the centers
+     * @param ys The array that will store the y-coordinates of the centers
+     * @throws IndexOutOfBoundsException If any of the given arrays has 
+     * a length that is smaller than the number of cells in the range
+     */
+    default void getCenters(
+        int x0, int y0, int x1, int y1, double xs[], double ys[])
+    {
+        Point2D p = new Point2D.Double();
+        int index = 0;
+        for (int y = y0; y < y1; y++)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                getCenter(x, y, p);
+                xs[index] = p.getX();
+                ys[index] = p.getY();
+                index++;
+            }
+        }
+    }
+    
+    /**
+     * Returns the offset coordinates of the {@link Hexagon} that contains
+     * the given point. This is the inverse of 
+     * {@link #getCenter(int, int, Point2D)}.<br>
+     * <br>
+     * The default implementation estimates the cell from the spacing of
+     * the centers that are returned by 
+     * {@link #getCenter(int, int, Point2D)}, and returns the cell with 
+     * the center that is closest to the given point, among the cells 
+     * around this estimate. Implementations may override this method 
+     * with a direct computation.
+     * 
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @param p The point that will store the result. If this point is
+     * <code>null</code>, then a new point will be created and returned
+     * @return The offset coordinates of the hexagon
+     */
+    default Point getCell(double x, double y, Point p)
+    {
+        // The centers of cells whose coordinates differ by 2 are not
+        // affected by the shifting of rows or columns
+        Point2D c00 = getCenter(0, 0, null);
+        Point2D c20 = getCenter(2, 0, null);
+        Point2D c02 = getCenter(0, 2, null);
+        double spacingX = (c20.getX() - c00.getX()) / 2.0;
+        double spacingY = (c02.getY() - c00.getY()) / 2.0;
+        int estimatedX = (int)Math.round((x - c00.getX()) / spacingX);
+        int estimatedY = (int)Math.round((y - c00.getY()) / spacingY);
+        if (p == null)
+        {
+            p = new Point();
+        }
+        Point2D center = new Point2D.Double();
+        double minDistanceSquared = Double.POSITIVE_INFINITY;
+        for (int cy = estimatedY - 2; cy <= estimatedY + 2; cy++)
+        {
+            for (int cx = estimatedX - 2; cx <= estimatedX + 2; cx++)
+            {
+                getCenter(cx, cy, center);
+                double distanceSquared = center.distanceSq(x, y);
+                if (distanceSquared < minDistanceSquared)
+                {
+                    minDistanceSquared = distanceSquared;
+                    p.x = cx;
+                    p.y = cy;
+                }
+            }
+        }
+        return p;
+    }
+    
+    /**
+     * Computes the offset coordinates of the {@link Hexagon}s that contain 
+     * the given points. For each index <code>i</code> in [0, count), the 
+     * offset coordinates of the hexagon that contains the point 
+     * <code>(xs[i], ys[i])</code> will be written into 
+     * <code>cellXs[i]</code> and <code>cellYs[i]</code>.
+     * 
+     * @param xs The x-coordinates of the points
+     * @param ys The y-coordinates of the points
+     * @param cellXs The array that will store the x-coordinates of the cells
+     * @param cellYs The array that will store the y-coordinates of the cells
+     * @param count The number of points
+     * @throws IndexOutOfBoundsException If any of the given arrays has 
+     * a length that is smaller than the given count
+     */
+    default void getCells(double xs[], double ys[], 
+        int cellXs[], int cellYs[], int count)
+    {
+        Point p = new Point();
+        for (int i = 0; i < count; i++)
+        {
+            getCell(xs[i], ys[i], p);
+            cellXs[i] = p.x;
+            cellYs[i] = p.y;
+        }
+    }
+    
     /**
      * Returns the coordinates of the neighbor of the {@link Hexagon} with
      * the given offset coordinates in the given direction. The direction
@@ -117,6 +243,57 @@ public interface HexagonGrid
      */
     Point convertCubeToOffsetCoordinates(int x, int y, Point p);
     
+    /**
+     * Returns the {@link PackedCoordinates packed} offset coordinates of 
+     * the neighbor of the {@link Hexagon} with the given packed offset 
+     * coordinates in the given direction. The directions are the same
+     * as in {@link #getNeighbor(int, int, int, Point)}.
+     * 
+     * @param offset The packed offset coordinates
+     * @param direction The direction
+     * @return The packed offset coordinates of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    default long getNeighborPacked(long offset, int direction)
+    {
+        Point p = getNeighbor(PackedCoordinates.unpackX(offset), 
+            PackedCoordinates.unpackY(offset), direction, null);
+        return PackedCoordinates.pack(p.x, p.y);
+    }
+    
+    /**
+     * Converts the given {@link PackedCoordinates packed} offset 
+     * coordinates into packed cube coordinates. The z-component of 
+     * the resulting cube coordinates is given implicitly as 
+     * <code>-x-y</code>.
+     * 
+     * @param offset The packed offset coordinates
+     * @return The packed cube coordinates
+     */
+    default long convertOffsetToCubeCoordinatesPacked(long offset)
+    {
+        Point p = convertOffsetToCubeCoordinates(
+            PackedCoordinates.unpackX(offset), 
+            PackedCoordinates.unpackY(offset), null);
+        return PackedCoordinates.pack(p.x, p.y);
+    }
+
+    /**
+     * Converts the given {@link PackedCoordinates packed} cube 
+     * coordinates into packed offset coordinates.
+     * 
+     * @param cube The packed cube coordinates
+     * @return The packed offset coordinates
+     */
+    default long convertCubeToOffsetCoordinatesPacked(long cube)
+    {
+        Point p = convertCubeToOffsetCoordinates(
+            PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), null);
+        return PackedCoordinates.pack(p.x, p.y);
+    }
+    
     /**
      * Computes the distance, in number of steps, between the cells which
      * are specified in offset coordinates
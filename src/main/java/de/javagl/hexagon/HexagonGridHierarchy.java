@@ -0,0 +1,371 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+/**
+ * A hierarchy of {@link HexagonGridRegion} instances with decreasing 
+ * resolution.<br>
+ * <br>
+ * Level 0 of the hierarchy is the region that was given in the 
+ * constructor. The grid of each coarser level has the same layout 
+ * as the grid of level 0, but the radius of its hexagons is larger 
+ * by the {@link #getFactor() factor} of the hierarchy. Each cell 
+ * of a coarse level aggregates a block of <code>factor x factor</code>
+ * cells of the next finer level. The blocks follow the shifting of 
+ * the coarse grid: For grids with vertical hexagons, the blocks of 
+ * the shifted coarse columns are shifted by <code>factor/2</code> 
+ * fine rows, and for grids with horizontal hexagons, the blocks of 
+ * the shifted coarse rows are shifted by <code>factor/2</code> fine 
+ * columns. This way, the centers of the blocks form the same layout 
+ * as the centers of the coarse cells, and neighboring coarse cells 
+ * aggregate neighboring blocks.<br>
+ * <br>
+ * The mapping between the {@link HexagonGridRegion#getIndex(int, int) 
+ * indices} of parent cells and child cells is precomputed for all 
+ * levels.<br>
+ * <br>
+ * Instances of this class are immutable.
+ */
+public final class HexagonGridHierarchy
+{
+    /**
+     * The factor by which the hexagon radius increases from one 
+     * level to the next
+     */
+    private final int factor;
+    
+    /**
+     * Whether the hexagons of the grids are vertical
+     */
+    private final boolean vertical;
+    
+    /**
+     * Whether the even rows or columns of the grids are shifted
+     */
+    private final boolean evenShifted;
+    
+    /**
+     * The regions of all levels
+     */
+    private final HexagonGridRegion regions[];
+    
+    /**
+     * The index of the parent of each cell, for all levels except 
+     * for the coarsest one
+     */
+    private final int parents[][];
+    
+    /**
+     * The start of the children of each cell in the {@link #children}
+     * array, for all levels except for the finest one. The last element 
+     * is the total number of children.
+     */
+    private final int childStarts[][];
+    
+    /**
+     * The indices of the children of the cells, for all levels except 
+     * for the finest one
+     */
+    private final int children[][];
+    
+    /**
+     * Creates a new hierarchy. The given region must be a region of a 
+     * {@link HexagonGrid} that was created with
+     * {@link HexagonGrids#create(double, boolean, boolean)}.
+     * 
+     * @param region The {@link HexagonGridRegion} of level 0
+     * @param factor The factor by which the hexagon radius increases 
+     * from one level to the next. This must be a positive, even number.
+     * @param numLevels The number of levels
+     * @throws IllegalArgumentException If the factor is not a positive,
+     * even number, or the number of levels is not positive, or the 
+     * grid of the given region was not created with 
+     * {@link HexagonGrids}
+     */
+    public HexagonGridHierarchy(
+        HexagonGridRegion region, int factor, int numLevels)
+    {
+        if (factor <= 0 || (factor & 1) != 0)
+        {
+            throw new IllegalArgumentException(
+                "The factor must be a positive, even number, but is " + 
+                factor);
+        }
+        if (numLevels <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of levels must be positive, but is " + 
+                numLevels);
+        }
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        this.factor = factor;
+        this.vertical = HexagonGrids.isVertical(hexagonGrid);
+        this.evenShifted = HexagonGrids.isEvenShifted(hexagonGrid);
+        this.regions = new HexagonGridRegion[numLevels];
+        this.parents = new int[numLevels - 1][];
+        this.childStarts = new int[numLevels - 1][];
+        this.children = new int[numLevels - 1][];
+        
+        regions[0] = region;
+        double radius = hexagonGrid.getHexagon().getRadius();
+        Point parent = new Point();
+        for (int level = 0; level < numLevels - 1; level++)
+        {
+            HexagonGridRegion fine = regions[level];
+            
+            // Compute the range of parents of all cells of the level
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            int numCells = fine.getNumCells();
+            for (int i = 0; i < numCells; i++)
+            {
+                getParent(fine.getX(i), fine.getY(i), parent);
+                minX = Math.min(minX, parent.x);
+                minY = Math.min(minY, parent.y);
+                maxX = Math.max(maxX, parent.x);
+                maxY = Math.max(maxY, parent.y);
+            }
+            radius *= factor;
+            HexagonGrid coarseGrid = 
+                HexagonGrids.create(radius, vertical, evenShifted);
+            HexagonGridRegion coarse = numCells == 0 ? 
+                new HexagonGridRegion(coarseGrid, 0, 0) : 
+                new HexagonGridRegion(coarseGrid, 
+                    minX, minY, maxX - minX + 1, maxY - minY + 1);
+            regions[level + 1] = coarse;
+            
+            // Compute the parent indices, and the children in 
+            // compressed form, ordered by their index
+            int levelParents[] = new int[numCells];
+            int starts[] = new int[coarse.getNumCells() + 1];
+            for (int i = 0; i < numCells; i++)
+            {
+                getParent(fine.getX(i), fine.getY(i), parent);
+                int p = coarse.getIndex(parent.x, parent.y);
+                levelParents[i] = p;
+                starts[p + 1]++;
+            }
+            for (int p = 0; p < coarse.getNumCells(); p++)
+            {
+                starts[p + 1] += starts[p];
+            }
+            int levelChildren[] = new int[numCells];
+            int positions[] = starts.clone();
+            for (int i = 0; i < numCells; i++)
+            {
+                levelChildren[positions[levelParents[i]]++] = i;
+            }
+            parents[level] = levelParents;
+            childStarts[level] = starts;
+            children[level] = levelChildren;
+        }
+    }
+    
+    /**
+     * Returns the number of levels of this hierarchy
+     * 
+     * @return The number of levels
+     */
+    public int getNumLevels()
+    {
+        return regions.length;
+    }
+    
+    /**
+     * Returns the factor by which the hexagon radius increases from one
+     * level to the next
+     * 
+     * @return The factor
+     */
+    public int getFactor()
+    {
+        return factor;
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of the given level
+     * 
+     * @param level The level
+     * @return The {@link HexagonGridRegion}
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [0, numLevels)
+     */
+    public HexagonGridRegion getRegion(int level)
+    {
+        return regions[level];
+    }
+    
+    /**
+     * Returns the index of the parent of the cell with the given index
+     * in the given level. The index of the parent refers to the region
+     * of the next coarser level.
+     * 
+     * @param level The level
+     * @param index The index of the cell
+     * @return The index of the parent
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [0, numLevels-1), or the index is not in [0, numCells) 
+     */
+    public int getParentIndex(int level, int index)
+    {
+        return parents[level][index];
+    }
+    
+    /**
+     * Returns the number of children of the cell with the given index
+     * in the given level. These are the cells of the next finer level
+     * that are aggregated by the given cell. This is at most 
+     * <code>factor*factor</code>, and may be smaller for cells at the 
+     * border of the region.
+     * 
+     * @param level The level
+     * @param index The index of the cell
+     * @return The number of children
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [1, numLevels), or the index is not in [0, numCells) 
+     */
+    public int getNumChildren(int level, int index)
+    {
+        int starts[] = childStarts[level - 1];
+        return starts[index + 1] - starts[index];
+    }
+    
+    /**
+     * Returns the index of the specified child of the cell with the given 
+     * index in the given level. The index of the child refers to the 
+     * region of the next finer level. The children are sorted by their
+     * index.
+     * 
+     * @param level The level
+     * @param index The index of the cell
+     * @param child The child, in [0, {@link #getNumChildren})
+     * @return The index of the child
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [1, numLevels), or the index is not in [0, numCells), or the
+     * child is not in [0, numChildren)
+     */
+    public int getChildIndex(int level, int index, int child)
+    {
+        int starts[] = childStarts[level - 1];
+        int start = starts[index];
+        if (child < 0 || start + child >= starts[index + 1])
+        {
+            throw new IndexOutOfBoundsException(
+                "Child " + child + " is not in [0," + 
+                (starts[index + 1] - start) + ")");
+        }
+        return children[level - 1][start + child];
+    }
+    
+    /**
+     * Computes the offset coordinates of the parent of the cell with the 
+     * given offset coordinates, and writes them into the given point. 
+     * If the given point is <code>null</code>, then a new point will be 
+     * created and returned. This mapping is the same for all levels.
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param p The point that will store the result
+     * @return The result
+     */
+    public Point getParent(int x, int y, Point p)
+    {
+        int half = factor / 2;
+        int px;
+        int py;
+        if (vertical)
+        {
+            px = Math.floorDiv(x, factor);
+            int shift = isShifted(px) ? half : 0;
+            py = Math.floorDiv(y - shift, factor);
+        }
+        else
+        {
+            py = Math.floorDiv(y, factor);
+            int shift = isShifted(py) ? half : 0;
+            px = Math.floorDiv(x - shift, factor);
+        }
+        if (p == null)
+        {
+            return new Point(px, py);
+        }
+        p.setLocation(px, py);
+        return p;
+    }
+    
+    /**
+     * Computes the range of offset coordinates of the children of the 
+     * cell with the given offset coordinates, and writes it into the 
+     * given rectangle. If the given rectangle is <code>null</code>, then 
+     * a new rectangle will be created and returned. The width and height 
+     * of the range are always equal to the {@link #getFactor() factor}. 
+     * This mapping is the same for all levels.
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param range The rectangle that will store the result
+     * @return The result
+     */
+    public Rectangle getChildRange(int x, int y, Rectangle range)
+    {
+        int half = factor / 2;
+        int minX = x * factor;
+        int minY = y * factor;
+        if (vertical)
+        {
+            minY += isShifted(x) ? half : 0;
+        }
+        else
+        {
+            minX += isShifted(y) ? half : 0;
+        }
+        if (range == null)
+        {
+            return new Rectangle(minX, minY, factor, factor);
+        }
+        range.setBounds(minX, minY, factor, factor);
+        return range;
+    }
+    
+    /**
+     * Returns whether the row or column with the given coordinate is 
+     * shifted in the grids of this hierarchy
+     * 
+     * @param coordinate The coordinate
+     * @return Whether the row or column is shifted
+     */
+    private boolean isShifted(int coordinate)
+    {
+        boolean even = (coordinate & 1) == 0;
+        return even == evenShifted;
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * A rectangular region of a {@link HexagonGrid}, in offset coordinates.<br>
+ * <br>
+ * The region assigns a linear index to each cell that it contains. 
+ * The cells are enumerated in row-major order: The cell with the offset
+ * coordinates <code>(x,y)</code> has the index 
+ * <code>(y-minY)*width+(x-minX)</code>. These indices are used for
+ * storing per-cell data in arrays, for example, in a 
+ * {@link HexagonIntMap}.<br>
+ * <br>
+ * Instances of this class are immutable.
+ */
+public final class HexagonGridRegion
+{
+    /**
+     * The {@link HexagonGrid}
+     */
+    private final HexagonGrid hexagonGrid;
+    
+    /**
+     * The neighbor offsets of the {@link HexagonGrid}
+     */
+    private final NeighborOffsets neighborOffsets;
+    
+    /**
+     * The differences between the indices of cells and their neighbors, 
+     * for cells whose neighbors are all contained in this region, 
+     * indexed by [parity][direction]
+     */
+    private final int indexDeltas[][];
+    
+    /**
+     * The minimum x-coordinate
+     */
+    private final int minX;
+
+    /**
+     * The minimum y-coordinate
+     */
+    private final int minY;
+    
+    /**
+     * The width, in number of cells
+     */
+    private final int width;
+
+    /**
+     * The height, in number of cells
+     */
+    private final int height;
+    
+    /**
+     * Creates a new region of the given {@link HexagonGrid}, starting at
+     * the offset coordinates (0,0)
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param width The width, in number of cells
+     * @param height The height, in number of cells
+     * @throws IllegalArgumentException If the width or height is negative,
+     * or the total number of cells is larger than 
+     * <code>Integer.MAX_VALUE</code>
+     */
+    public HexagonGridRegion(HexagonGrid hexagonGrid, int width, int height)
+    {
+        this(hexagonGrid, 0, 0, width, height);
+    }
+    
+    /**
+     * Creates a new region of the given {@link HexagonGrid}
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param minX The minimum x-coordinate
+     * @param minY The minimum y-coordinate
+     * @param width The width, in number of cells
+     * @param height The height, in number of cells
+     * @throws IllegalArgumentException If the width or height is negative,
+     * or the total number of cells is larger than 
+     * <code>Integer.MAX_VALUE</code>
+     */
+    public HexagonGridRegion(HexagonGrid hexagonGrid, 
+        int minX, int minY, int width, int height)
+    {
+        if (width < 0 || height < 0)
+        {
+            throw new IllegalArgumentException(
+                "The size may not be negative, but is "+width+"x"+height);
+        }
+        if ((long)width * height > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "The size is too large: "+width+"x"+height);
+        }
+        this.hexagonGrid = hexagonGrid;
+        this.neighborOffsets = NeighborOffsets.of(hexagonGrid);
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.indexDeltas = neighborOffsets.computeIndexDeltas(width);
+    }
+    
+    /**
+     * Returns the {@link HexagonGrid} that this region belongs to
+     * 
+     * @return The {@link HexagonGrid}
+     */
+    public HexagonGrid getHexagonGrid()
+    {
+        return hexagonGrid;
+    }
+    
+    /**
+     * Returns the {@link NeighborOffsets} of the {@link HexagonGrid}
+     * 
+     * @return The {@link NeighborOffsets}
+     */
+    NeighborOffsets getNeighborOffsets()
+    {
+        return neighborOffsets;
+    }
+    
+    /**
+     * Returns the minimum x-coordinate (inclusive) of this region
+     * 
+     * @return The minimum x-coordinate
+     */
+    public int getMinX()
+    {
+        return minX;
+    }
+    
+    /**
+     * Returns the minimum y-coordinate (inclusive) of this region
+     * 
+     * @return The minimum y-coordinate
+     */
+    public int getMinY()
+    {
+        return minY;
+    }
+    
+    /**
+     * Returns the width of this region, in number of cells
+     * 
+     * @return The width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+    
+    /**
+     * Returns the height of this region, in number of cells
+     * 
+     * @return The height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+    
+    /**
+     * Returns the number of cells in this region
+     * 
+     * @return The number of cells
+     */
+    public int getNumCells()
+    {
+        return width * height;
+    }
+    
+    /**
+     * Returns whether the cell with the given offset coordinates is
+     * contained in this region
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return Whether the cell is contained in this region
+     */
+    public boolean contains(int x, int y)
+    {
+        int rx = x - minX;
+        int ry = y - minY;
+        return rx >= 0 && rx < width && ry >= 0 && ry < height;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates,
+     * or -1 if the cell is not contained in this region
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     */
+    public int getIndex(int x, int y)
+    {
+        int rx = x - minX;
+        int ry = y - minY;
+        if (rx < 0 || rx >= width || ry < 0 || ry >= height)
+        {
+            return -1;
+        }
+        return ry * width + rx;
+    }
+    
+    /**
+     * Returns the x-coordinate of the cell with the given index. The
+     * result is unspecified if the index is not in [0, numCells).
+     * 
+     * @param index The index
+     * @return The x-coordinate
+     */
+    public int getX(int index)
+    {
+        return minX + index % width;
+    }
+    
+    /**
+     * Returns the y-coordinate of the cell with the given index. The
+     * result is unspecified if the index is not in [0, numCells).
+     * 
+     * @param index The index
+     * @return The y-coordinate
+     */
+    public int getY(int index)
+    {
+        return minY + index / width;
+    }
+    
+    /**
+     * Returns the index of the neighbor of the cell with the given offset
+     * coordinates in the given direction, or -1 if the neighbor is not
+     * contained in this region. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param direction The direction
+     * @return The index of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getNeighborIndex(int x, int y, int direction)
+    {
+        if (direction < 0 || direction >= 6)
+        {
+            throw new IllegalArgumentException(
+                "Direction must be in [0,6), but is "+direction);
+        }
+        int parity = neighborOffsets.getParity(x, y);
+        int nx = x + neighborOffsets.getDx(parity, direction);
+        int ny = y + neighborOffsets.getDy(parity, direction);
+        return getIndex(nx, ny);
+    }
+    
+    /**
+     * Returns the index of the neighbor of the cell with the given index
+     * in the given direction, or -1 if the neighbor is not contained in 
+     * this region. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param index The index of the cell
+     * @param direction The direction
+     * @return The index of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getNeighborIndex(int index, int direction)
+    {
+        return getNeighborIndex(getX(index), getY(index), direction);
+    }
+    
+    /**
+     * Returns the parity of the cell with the given offset coordinates,
+     * which is 0 or 1. This is the first index of the array that is 
+     * returned by {@link #getNeighborIndexDeltas()}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The parity
+     */
+    public int getParity(int x, int y)
+    {
+        return neighborOffsets.getParity(x, y);
+    }
+    
+    /**
+     * Returns the differences between the index of a cell and the 
+     * indices of its neighbors in this region, indexed by 
+     * <code>[parity][direction]</code>. These differences are only 
+     * valid for cells that are not at the border of this region. See
+     * {@link HexagonGrids#computeNeighborIndexDeltas} for details.<br>
+     * <br>
+     * The result will be a new array.
+     * 
+     * @return The index deltas
+     */
+    public int[][] getNeighborIndexDeltas()
+    {
+        return new int[][] { indexDeltas[0].clone(), indexDeltas[1].clone() };
+    }
+    
+    /**
+     * Computes the indices of all neighbors of the cell with the given
+     * index, and writes them into the given array. The index of the 
+     * neighbor in direction <code>d</code> is written to 
+     * <code>neighbors[d]</code>, or -1 if the neighbor is not contained 
+     * in this region. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.<br>
+     * <br>
+     * For cells that are not at the border of this region, this only 
+     * adds precomputed deltas to the given index. 
+     * 
+     * @param index The index of the cell
+     * @param neighbors The array that will store the neighbor indices, 
+     * with a length of at least 6
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void getNeighborIndices(int index, int neighbors[])
+    {
+        int numCells = width * height;
+        if (index < 0 || index >= numCells)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + numCells + "), but is " + index);
+        }
+        int lx = index % width;
+        int ly = index / width;
+        int x = minX + lx;
+        int y = minY + ly;
+        int parity = neighborOffsets.getParity(x, y);
+        if (lx > 0 && lx < width - 1 && ly > 0 && ly < height - 1)
+        {
+            int deltas[] = indexDeltas[parity];
+            for (int d = 0; d < 6; d++)
+            {
+                neighbors[d] = index + deltas[d];
+            }
+            return;
+        }
+        for (int d = 0; d < 6; d++)
+        {
+            neighbors[d] = getIndex(
+                x + neighborOffsets.getDx(parity, d), 
+                y + neighborOffsets.getDy(parity, d));
+        }
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "HexagonGridRegion[" + 
+            "minX=" + minX + ",minY=" + minY + "," +
+            "width=" + width + ",height=" + height + "]";
+    }
+}
@@ -26,6 +26,11 @@
  */
 package de.javagl.hexagon;
 
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
@@ -61,11 +66,69 @@ public class HexagonGrids
     }
     
     
+    /**
+     * Returns whether the given {@link HexagonGrid} consists of vertical 
+     * hexagons. The given grid must have been created with 
+     * {@link #create(double, boolean, boolean)}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return Whether the grid is vertical
+     * @throws IllegalArgumentException If the given grid was not created
+     * with this class
+     */
+    static boolean isVertical(HexagonGrid hexagonGrid)
+    {
+        if (hexagonGrid instanceof VerticalEvenShiftedHexagonGrid ||
+            hexagonGrid instanceof VerticalOddShiftedHexagonGrid)
+        {
+            return true;
+        }
+        if (hexagonGrid instanceof HorizontalEvenShiftedHexagonGrid ||
+            hexagonGrid instanceof HorizontalOddShiftedHexagonGrid)
+        {
+            return false;
+        }
+        throw new IllegalArgumentException(
+            "Unsupported grid implementation: " + hexagonGrid);
+    }
+    
+    /**
+     * Returns whether the even rows or columns of the given 
+     * {@link HexagonGrid} are shifted. The given grid must have been 
+     * created with {@link #create(double, boolean, boolean)}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return Whether the even rows or columns are shifted
+     * @throws IllegalArgumentException If the given grid was not created
+     * with this class
+     */
+    static boolean isEvenShifted(HexagonGrid hexagonGrid)
+    {
+        if (hexagonGrid instanceof VerticalEvenShiftedHexagonGrid ||
+            hexagonGrid instanceof HorizontalEvenShiftedHexagonGrid)
+        {
+            return true;
+        }
+        if (hexagonGrid instanceof VerticalOddShiftedHexagonGrid ||
+            hexagonGrid instanceof HorizontalOddShiftedHexagonGrid)
+        {
+            return false;
+        }
+        throw new IllegalArgumentException(
+            "Unsupported grid implementation: " + hexagonGrid);
+    }
+    
     /**
      * Computes the bounds of the specified portion of the given 
      * {@link HexagonGrid}, and writes them into the given rectangle.
      * If the given rectangle is <code>null</code>, then a new rectangle 
-     * will be created and returned
+     * will be created and returned.<br>
+     * <br>
+     * The bounds are computed in constant time, from the spacing of the
+     * hexagons, the extent of their corners, and the parity of the 
+     * first and last row or column of the range. This works for all 
+     * grids where the shifting of the cells only depends on the parity 
+     * of the rows or columns.
      * 
      * @param hexagonGrid The {@link HexagonGrid}
      * @param x0 The upper left x-coordinate
@@ -79,49 +142,617 @@ public class HexagonGrids
         HexagonGrid hexagonGrid, int x0, int y0, int x1, int y1, 
         Rectangle2D bounds)
     {
-        Rectangle2D r = new Rectangle2D.Double();
-        Point2D center = new Point2D.Double();
-
-        hexagonGrid.getCenter(x0, y0, center);
-        Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-        if (bounds == null)
-        {
-            bounds = new Rectangle2D.Double(); 
-        }
-        bounds.setRect(r);
+        Hexagon hexagon = hexagonGrid.getHexagon();
+        double shifts[] = computeParityShifts(hexagonGrid);
+        double shiftXEven = shifts[0];
+        double shiftXOdd = shifts[1];
+        double shiftYEven = shifts[2];
+        double shiftYOdd = shifts[3];
         
-        hexagonGrid.getCenter(x1, y1, center);
-        Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-        Rectangle2D.union(r, bounds, bounds);
+        int minX = Math.min(x0, x1);
+        int maxX = Math.max(x0, x1);
+        int minY = Math.min(y0, y1);
+        int maxY = Math.max(y0, y1);
         
-        if (x0 + 1 < x1 - 1)
+        // The shifts of the rows (or columns) that appear in the range
+        double minShiftX;
+        double maxShiftX;
+        if (minY == maxY)
         {
-            hexagonGrid.getCenter(x0+1, y0, center);
-            Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-            Rectangle2D.union(r, bounds, bounds);
+            minShiftX = (minY & 1) == 0 ? shiftXEven : shiftXOdd;
+            maxShiftX = minShiftX;
         }
-        if (x1 - 1 > x0 + 1)
+        else
         {
-            hexagonGrid.getCenter(x1-1, y1, center);
-            Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-            Rectangle2D.union(r, bounds, bounds);
+            minShiftX = Math.min(shiftXEven, shiftXOdd);
+            maxShiftX = Math.max(shiftXEven, shiftXOdd);
         }
-        if (y0 + 1 < y1 - 1)
+        double minShiftY;
+        double maxShiftY;
+        if (minX == maxX)
         {
-            hexagonGrid.getCenter(x0, y0+1, center);
-            Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-            Rectangle2D.union(r, bounds, bounds);
+            minShiftY = (minX & 1) == 0 ? shiftYEven : shiftYOdd;
+            maxShiftY = minShiftY;
         }
-        if (y1 - 1 > y0 + 1)
+        else
         {
-            hexagonGrid.getCenter(x1, y1-1, center);
-            Hexagons.computeBounds(hexagonGrid.getHexagon(), center, r);
-            Rectangle2D.union(r, bounds, bounds);
+            minShiftY = Math.min(shiftYEven, shiftYOdd);
+            maxShiftY = Math.max(shiftYEven, shiftYOdd);
         }
         
+        double corners[] = computeCornerBounds(hexagon);
+        double minCornerX = corners[0];
+        double minCornerY = corners[1];
+        double maxCornerX = corners[2];
+        double maxCornerY = corners[3];
+        
+        double spacingX = hexagon.getSpacingX();
+        double spacingY = hexagon.getSpacingY();
+        double boundsMinX = minCornerX + (minX * spacingX + minShiftX);
+        double boundsMinY = minCornerY + (minY * spacingY + minShiftY);
+        double boundsMaxX = maxCornerX + (maxX * spacingX + maxShiftX);
+        double boundsMaxY = maxCornerY + (maxY * spacingY + maxShiftY);
+        if (bounds == null)
+        {
+            bounds = new Rectangle2D.Double(); 
+        }
+        bounds.setRect(boundsMinX, boundsMinY, 
+            boundsMaxX - boundsMinX, boundsMaxY - boundsMinY);
         return bounds;
     }
 
+    /**
+     * Computes the smallest range of offset coordinates that contains
+     * all cells of the given {@link HexagonGrid} whose hexagon intersects
+     * the given area, and writes it into the given rectangle. If the 
+     * given rectangle is <code>null</code>, then a new rectangle will be 
+     * created and returned. If no cell intersects the given area, then
+     * the width and height of the result will be 0.<br>
+     * <br>
+     * The time that is required for this computation is proportional 
+     * to the number of cells that intersect the area.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param area The area
+     * @param range The result
+     * @return The result
+     */
+    public static Rectangle computeCellRange(
+        HexagonGrid hexagonGrid, Rectangle2D area, Rectangle range)
+    {
+        int minX[] = { Integer.MAX_VALUE };
+        int minY[] = { Integer.MAX_VALUE };
+        int maxX[] = { Integer.MIN_VALUE };
+        int maxY[] = { Integer.MIN_VALUE };
+        forEachIntersectingCell(hexagonGrid, area, (x, y) -> 
+        {
+            minX[0] = Math.min(minX[0], x);
+            minY[0] = Math.min(minY[0], y);
+            maxX[0] = Math.max(maxX[0], x);
+            maxY[0] = Math.max(maxY[0], y);
+        });
+        if (range == null)
+        {
+            range = new Rectangle();
+        }
+        if (minX[0] > maxX[0])
+        {
+            range.setBounds(0, 0, 0, 0);
+        }
+        else
+        {
+            range.setBounds(minX[0], minY[0], 
+                maxX[0] - minX[0] + 1, maxY[0] - minY[0] + 1);
+        }
+        return range;
+    }
+    
+    /**
+     * Pass the offset coordinates of all cells of the given 
+     * {@link HexagonGrid} whose hexagon intersects the given shape
+     * to the given consumer. The cells are passed to the consumer 
+     * row by row, in the order of increasing coordinates. Cells whose
+     * hexagon only touches the boundary of the shape are not 
+     * included.<br>
+     * <br>
+     * If the given shape is a <code>Rectangle2D</code>, then the hexagons
+     * are tested against the rectangle directly. Otherwise, the hexagons
+     * that intersect the bounds of the shape are first tested with
+     * <code>Shape#intersects</code> and <code>Shape#contains</code>, 
+     * using the bounds of the hexagon, and the remaining ones are 
+     * intersected with the shape, using an <code>Area</code>.<br>
+     * <br>
+     * The time that is required for this computation is proportional to 
+     * the number of cells that intersect the bounds of the given shape.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param shape The shape
+     * @param consumer The consumer
+     */
+    public static void forEachIntersectingCell(
+        HexagonGrid hexagonGrid, Shape shape, CellConsumer consumer)
+    {
+        Rectangle2D area = shape.getBounds2D();
+        if (area.isEmpty())
+        {
+            return;
+        }
+        HexagonShape hexagonShape = 
+            new HexagonShape(hexagonGrid.getHexagon());
+        Rectangle2D hexagonBounds = hexagonShape.getBounds2D();
+        double halfSizeX = hexagonBounds.getWidth() * 0.5;
+        double halfSizeY = hexagonBounds.getHeight() * 0.5;
+        int range[] = new int[4];
+        computeCandidateRange(hexagonGrid, area, range);
+        int x0 = range[0];
+        int y0 = range[1];
+        int x1 = range[2];
+        int y1 = range[3];
+        Point2D center = new Point2D.Double();
+        
+        Area shapeArea = null;
+        if (!(shape instanceof Rectangle2D))
+        {
+            shapeArea = new Area(shape);
+        }
+        for (int y = y0; y <= y1; y++)
+        {
+            for (int x = x0; x <= x1; x++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                hexagonShape.setCenter(center);
+                if (!hexagonShape.intersects(area))
+                {
+                    continue;
+                }
+                if (shapeArea != null)
+                {
+                    hexagonBounds.setRect(
+                        center.getX() - halfSizeX, center.getY() - halfSizeY,
+                        halfSizeX + halfSizeX, halfSizeY + halfSizeY);
+                    if (!shape.intersects(hexagonBounds))
+                    {
+                        continue;
+                    }
+                    if (!shape.contains(hexagonBounds))
+                    {
+                        Area intersection = new Area(hexagonShape);
+                        intersection.intersect(shapeArea);
+                        if (intersection.isEmpty())
+                        {
+                            continue;
+                        }
+                    }
+                }
+                consumer.accept(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Computes a range of offset coordinates that contains all cells of 
+     * the given {@link HexagonGrid} whose hexagon intersects the given 
+     * area. The range may contain additional cells that do not intersect 
+     * the area. The range is written into the given array, as 
+     * <code>{minX, minY, maxX, maxY}</code>, all inclusive.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param area The area
+     * @param range The result
+     */
+    static void computeCandidateRange(
+        HexagonGrid hexagonGrid, Rectangle2D area, int range[])
+    {
+        Hexagon hexagon = hexagonGrid.getHexagon();
+        double corners[] = computeCornerBounds(hexagon);
+        double minCornerX = corners[0];
+        double minCornerY = corners[1];
+        double maxCornerX = corners[2];
+        double maxCornerY = corners[3];
+        double spacingX = hexagon.getSpacingX();
+        double spacingY = hexagon.getSpacingY();
+        
+        double shifts[] = computeParityShifts(hexagonGrid);
+        double shiftX0 = shifts[0];
+        double shiftX1 = shifts[1];
+        double shiftY0 = shifts[2];
+        double shiftY1 = shifts[3];
+        
+        double minCenterX = area.getMinX() - maxCornerX;
+        double maxCenterX = area.getMaxX() - minCornerX;
+        double minCenterY = area.getMinY() - maxCornerY;
+        double maxCenterY = area.getMaxY() - minCornerY;
+        range[0] = (int)Math.floor(
+            (minCenterX - Math.max(shiftX0, shiftX1)) / spacingX);
+        range[1] = (int)Math.floor(
+            (minCenterY - Math.max(shiftY0, shiftY1)) / spacingY);
+        range[2] = (int)Math.ceil(
+            (maxCenterX - Math.min(shiftX0, shiftX1)) / spacingX);
+        range[3] = (int)Math.ceil(
+            (maxCenterY - Math.min(shiftY0, shiftY1)) / spacingY);
+    }
+    
+    /**
+     * Computes the shifts of the centers of the cells of the given 
+     * {@link HexagonGrid}. The centers of the cells are assumed to be 
+     * at <code>(x*spacingX + shiftX(y), y*spacingY + shiftY(x))</code>, 
+     * where the shifts only depend on the parity of the respective 
+     * coordinate. The shifts are obtained from the centers of the cells
+     * (0,0), (0,1) and (1,0), and returned as an array
+     * <code>{shiftXEven, shiftXOdd, shiftYEven, shiftYOdd}</code>.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return The shifts
+     */
+    private static double[] computeParityShifts(HexagonGrid hexagonGrid)
+    {
+        Point2D center = new Point2D.Double();
+        hexagonGrid.getCenter(0, 0, center);
+        double shiftXEven = center.getX();
+        double shiftYEven = center.getY();
+        hexagonGrid.getCenter(0, 1, center);
+        double shiftXOdd = center.getX();
+        hexagonGrid.getCenter(1, 0, center);
+        double shiftYOdd = center.getY();
+        return new double[] { shiftXEven, shiftXOdd, shiftYEven, shiftYOdd };
+    }
+    
+    /**
+     * Computes the bounds of the corners of the given {@link Hexagon},
+     * relative to its center, and returns them as an array
+     * <code>{minX, minY, maxX, maxY}</code>
+     * 
+     * @param hexagon The {@link Hexagon}
+     * @return The bounds
+     */
+    private static double[] computeCornerBounds(Hexagon hexagon)
+    {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 6; i++)
+        {
+            minX = Math.min(minX, hexagon.getCornerX(i));
+            minY = Math.min(minY, hexagon.getCornerY(i));
+            maxX = Math.max(maxX, hexagon.getCornerX(i));
+            maxY = Math.max(maxY, hexagon.getCornerY(i));
+        }
+        return new double[] { minX, minY, maxX, maxY };
+    }
+    
+    /**
+     * Creates a path that consists of the edges of all cells in the
+     * specified portion of the given {@link HexagonGrid}. Each edge 
+     * is only contained once, even when it is shared by two cells. 
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x0 The upper left x-coordinate
+     * @param y0 The upper left y-coordinate
+     * @param x1 The lower right x-coordinate (inclusive!)
+     * @param y1 The lower right y-coordinate (inclusive!)
+     * @return The path
+     */
+    public static Path2D createOutline(
+        HexagonGrid hexagonGrid, int x0, int y0, int x1, int y1)
+    {
+        Hexagon hexagon = hexagonGrid.getHexagon();
+        double corners[] = hexagon.getCorners(null);
+        int edges[] = computeNeighborEdges(hexagonGrid);
+        
+        Path2D path = new Path2D.Double();
+        Point2D center = new Point2D.Double();
+        Point neighbor = new Point();
+        for (int y = y0; y <= y1; y++)
+        {
+            for (int x = x0; x <= x1; x++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                for (int d = 0; d < 6; d++)
+                {
+                    // The edge towards a neighbor inside the range is 
+                    // only emitted for the first three directions. The
+                    // neighbor will emit it for the opposite direction.
+                    if (d >= 3)
+                    {
+                        hexagonGrid.getNeighbor(x, y, d, neighbor);
+                        if (neighbor.x >= x0 && neighbor.x <= x1 && 
+                            neighbor.y >= y0 && neighbor.y <= y1)
+                        {
+                            continue;
+                        }
+                    }
+                    int c0 = edges[d];
+                    int c1 = (c0 + 1) % 6;
+                    path.moveTo(
+                        corners[c0*2+0] + center.getX(), 
+                        corners[c0*2+1] + center.getY());
+                    path.lineTo(
+                        corners[c1*2+0] + center.getX(), 
+                        corners[c1*2+1] + center.getY());
+                }
+            }
+        }
+        return path;
+    }
+    
+    /**
+     * Computes the edges of the {@link Hexagon} of the given 
+     * {@link HexagonGrid} that are shared with the neighbors. The
+     * result will contain, for each neighbor direction, the index
+     * of the corner where the edge starts. The edge ends at the 
+     * next corner.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return The edges
+     */
+    private static int[] computeNeighborEdges(HexagonGrid hexagonGrid)
+    {
+        Hexagon hexagon = hexagonGrid.getHexagon();
+        Point2D center = hexagonGrid.getCenter(0, 0, null);
+        Point2D neighborCenter = new Point2D.Double();
+        Point neighbor = new Point();
+        int edges[] = new int[6];
+        for (int d = 0; d < 6; d++)
+        {
+            hexagonGrid.getNeighbor(0, 0, d, neighbor);
+            hexagonGrid.getCenter(neighbor.x, neighbor.y, neighborCenter);
+            double dx = neighborCenter.getX() - center.getX();
+            double dy = neighborCenter.getY() - center.getY();
+            double maxDot = -Double.MAX_VALUE;
+            for (int c = 0; c < 6; c++)
+            {
+                int c1 = (c + 1) % 6;
+                double mx = hexagon.getCornerX(c) + hexagon.getCornerX(c1);
+                double my = hexagon.getCornerY(c) + hexagon.getCornerY(c1);
+                double dot = mx * dx + my * dy;
+                if (dot > maxDot)
+                {
+                    maxDot = dot;
+                    edges[d] = c;
+                }
+            }
+        }
+        return edges;
+    }
+    
+    /**
+     * Computes the differences between the index of a cell and the 
+     * indices of its neighbors, for an array that stores the cells of 
+     * the given {@link HexagonGrid} in row-major order, with the given 
+     * number of elements per row.<br>
+     * <br>
+     * The result is indexed by <code>[parity][direction]</code>. The
+     * directions are the same as in {@link HexagonGrid#getNeighbor}. The
+     * parity of the cell with the offset coordinates <code>(x,y)</code>
+     * is given by {@link HexagonGridRegion#getParity(int, int)}. The 
+     * index of the neighbor in direction <code>d</code> of a cell that 
+     * is stored at index <code>i</code> then is 
+     * <code>i+deltas[parity][d]</code>.<br>
+     * <br>
+     * These differences are only valid for cells whose neighbors are 
+     * all stored in the array. For cells at the border of a region, 
+     * either use {@link HexagonGridRegion#getNeighborIndices}, or store
+     * the region in an array with a border of one cell on each side, 
+     * using a row stride of <code>width+2</code>.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param rowStride The number of elements per row
+     * @return The index deltas
+     */
+    public static int[][] computeNeighborIndexDeltas(
+        HexagonGrid hexagonGrid, int rowStride)
+    {
+        return NeighborOffsets.of(hexagonGrid).computeIndexDeltas(rowStride);
+    }
+    
+    /**
+     * Pass the offset coordinates of all cells whose distance from the
+     * given center cell is at most the given radius to the given 
+     * consumer, in the same order as in 
+     * {@link CubeCoordinates#forEachInRange}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInRange(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, CellConsumer consumer)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        CubeCoordinates.forEachInRange(PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), radius, 
+            toOffset(hexagonGrid, consumer));
+    }
+    
+    /**
+     * Writes the offset coordinates of all cells within the given radius
+     * around the given center cell into the given array, in the same 
+     * order as in {@link CubeCoordinates#forEachInRange}. The x- and 
+     * y-coordinate of the <code>i</code>-th cell are written to index 
+     * <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link CubeCoordinates#computeRangeSize(int) number of cells}
+     */
+    public static int computeRange(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInRange(hexagonGrid, x, y, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Pass the offset coordinates of all cells that have exactly the
+     * given distance from the given center cell to the given consumer, 
+     * in the same order as in {@link CubeCoordinates#forEachInRing}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInRing(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, CellConsumer consumer)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        CubeCoordinates.forEachInRing(PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), radius, 
+            toOffset(hexagonGrid, consumer));
+    }
+    
+    /**
+     * Writes the offset coordinates of the ring of cells around the 
+     * given center cell with the given radius into the given array, in 
+     * the same order as in {@link CubeCoordinates#forEachInRing}. The x- 
+     * and y-coordinate of the <code>i</code>-th cell are written to 
+     * index <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link CubeCoordinates#computeRingSize(int) number of cells}
+     */
+    public static int computeRing(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInRing(hexagonGrid, x, y, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Pass the offset coordinates of all cells within the given radius
+     * around the given center cell to the given consumer, ring by ring,
+     * in the same order as in {@link CubeCoordinates#forEachInSpiral}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public static void forEachInSpiral(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, CellConsumer consumer)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        CubeCoordinates.forEachInSpiral(PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), radius, 
+            toOffset(hexagonGrid, consumer));
+    }
+    
+    /**
+     * Writes the offset coordinates of all cells within the given radius
+     * around the given center cell into the given array, ring by ring, 
+     * in the same order as in {@link CubeCoordinates#forEachInSpiral}. 
+     * The x- and y-coordinate of the <code>i</code>-th cell are written 
+     * to index <code>i*2+0</code> and <code>i*2+1</code>, respectively.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x The x-coordinate of the center cell
+     * @param y The y-coordinate of the center cell
+     * @param radius The radius
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * twice the {@link CubeCoordinates#computeRangeSize(int) number of cells}
+     */
+    public static int computeSpiral(HexagonGrid hexagonGrid, 
+        int x, int y, int radius, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInSpiral(hexagonGrid, x, y, radius, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Pass the offset coordinates of all cells on the line between the
+     * given cells to the given consumer, in the same order as in
+     * {@link CubeCoordinates#forEachInLine}.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x0 The x-coordinate of the first cell
+     * @param y0 The y-coordinate of the first cell
+     * @param x1 The x-coordinate of the second cell
+     * @param y1 The y-coordinate of the second cell
+     * @param consumer The consumer
+     */
+    public static void forEachInLine(HexagonGrid hexagonGrid, 
+        int x0, int y0, int x1, int y1, CellConsumer consumer)
+    {
+        long cube0 = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x0, y0));
+        long cube1 = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x1, y1));
+        CubeCoordinates.forEachInLine(
+            PackedCoordinates.unpackX(cube0), PackedCoordinates.unpackY(cube0),
+            PackedCoordinates.unpackX(cube1), PackedCoordinates.unpackY(cube1),
+            toOffset(hexagonGrid, consumer));
+    }
+    
+    /**
+     * Writes the offset coordinates of all cells on the line between the 
+     * given cells into the given array, in the same order as in 
+     * {@link CubeCoordinates#forEachInLine}. The x- and y-coordinate of 
+     * the <code>i</code>-th cell are written to index <code>i*2+0</code> 
+     * and <code>i*2+1</code>, respectively. The number of cells is
+     * the {@link HexagonGrid#computeStepsDistance steps distance} plus one.
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param x0 The x-coordinate of the first cell
+     * @param y0 The y-coordinate of the first cell
+     * @param x1 The x-coordinate of the second cell
+     * @param y1 The y-coordinate of the second cell
+     * @param result The array that will store the result
+     * @return The number of cells
+     * @throws IndexOutOfBoundsException If the array is too short
+     */
+    public static int computeLine(HexagonGrid hexagonGrid, 
+        int x0, int y0, int x1, int y1, int result[])
+    {
+        CellBuffer cellBuffer = new CellBuffer(result);
+        forEachInLine(hexagonGrid, x0, y0, x1, y1, cellBuffer);
+        return cellBuffer.getCount();
+    }
+    
+    /**
+     * Returns a {@link CellConsumer} that converts the cube coordinates
+     * that it receives into offset coordinates, and passes them to the
+     * given consumer
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param consumer The consumer
+     * @return The converting consumer
+     */
+    private static CellConsumer toOffset(
+        HexagonGrid hexagonGrid, CellConsumer consumer)
+    {
+        return (cx, cy) -> 
+        {
+            long offset = hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                PackedCoordinates.pack(cx, cy));
+            consumer.accept(PackedCoordinates.unpackX(offset), 
+                PackedCoordinates.unpackY(offset));
+        };
+    }
+    
     /**
      * Private constructor to prevent instantiation
      */
@@ -0,0 +1,1554 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A hierarchical path finder for the cells of a {@link HexagonGridRegion}, 
+ * following the HPA* approach.<br>
+ * <br>
+ * The region is partitioned into square clusters of 
+ * {@link #getClusterSize() clusterSize} x {@link #getClusterSize() 
+ * clusterSize} cells (in offset coordinates). Along the border between 
+ * two adjacent clusters, the pairs of passable neighboring cells are 
+ * grouped into entrances, and each entrance contributes one or two of 
+ * these pairs as transitions between the clusters. The cells that are 
+ * endpoints of transitions are the nodes of an abstract graph. Inside 
+ * each cluster, the costs of the cheapest paths between all its nodes 
+ * are precomputed.<br>
+ * <br>
+ * A query is answered by connecting the start and the goal cell to the 
+ * nodes of their clusters, running an A* search on the abstract graph,
+ * and refining the resulting abstract path into a path of adjacent cells
+ * with local searches that are confined to single clusters. The resulting
+ * paths are usually close to, but not necessarily as cheap as the optimal 
+ * paths that are found by a {@link HexagonPathFinder}.<br>
+ * <br>
+ * The costs for entering the cells are given by a {@link CellCostFunction}.
+ * When the costs of cells change, then the affected cells have to be 
+ * passed to {@link #invalidate(int, int)}. This marks the clusters that
+ * contain these cells as dirty, and only these clusters and their 
+ * neighbors will be updated in the next call to {@link #repair()}, 
+ * which is also called at the beginning of each {@link #findPath} call.
+ * The clusters are built and repaired in parallel, in a 
+ * <code>ForkJoinPool</code>, so the cost function must support 
+ * concurrent calls.<br>
+ * <br>
+ * The result of the latest search is stored in this instance, and may be
+ * obtained with {@link #getPathLength()}, {@link #getPathX(int)} and 
+ * {@link #getPathY(int)}.<br>
+ * <br>
+ * This class is not thread-safe. Each thread has to use its own instance.
+ */
+public final class HexagonHierarchicalPathFinder
+{
+    /**
+     * The number of pairs of adjacent cells in an entrance, starting at 
+     * which it contributes two transitions (at both ends) instead of a 
+     * single one (in the middle)
+     */
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+    
+    /**
+     * The x-offsets of the clusters that are "forward" neighbors of a
+     * cluster. Each pair of adjacent clusters appears exactly once when
+     * combining each cluster with its forward neighbors.
+     */
+    private static final int FORWARD_X[] = { 1, -1, 0, 1 };
+
+    /**
+     * The y-offsets of the clusters that are "forward" neighbors of a
+     * cluster
+     */
+    private static final int FORWARD_Y[] = { 0, 1, 1, 1 };
+    
+    /**
+     * The number of clusters that are processed by one task when building
+     * or repairing the clusters
+     */
+    private static final int GRAIN_SIZE = 16;
+    
+    /**
+     * An empty array for borders without transitions
+     */
+    private static final int EMPTY[] = new int[0];
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The {@link CellCostFunction}
+     */
+    private final CellCostFunction costFunction;
+    
+    /**
+     * The minimum cost for entering a cell
+     */
+    private final double minimumCost;
+    
+    /**
+     * The size of the clusters
+     */
+    private final int clusterSize;
+    
+    /**
+     * The pool for building and repairing the clusters
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The number of clusters in x-direction
+     */
+    private final int numClustersX;
+    
+    /**
+     * The number of clusters in y-direction
+     */
+    private final int numClustersY;
+    
+    /**
+     * The total number of clusters
+     */
+    private final int numClusters;
+    
+    /**
+     * The transitions between each cluster and its forward neighbors. 
+     * The element <code>borders[c][k]</code> contains the region indices
+     * of pairs of cells, where the first one is contained in cluster 
+     * <code>c</code>, and the second one in its forward neighbor 
+     * <code>k</code>.
+     */
+    private final int borders[][][];
+    
+    /**
+     * The {@link Cluster} objects
+     */
+    private final Cluster clusters[];
+    
+    /**
+     * Whether each cluster is dirty
+     */
+    private final boolean dirty[];
+    
+    /**
+     * The indices of the dirty clusters
+     */
+    private final int dirtyClusters[];
+    
+    /**
+     * The number of dirty clusters
+     */
+    private int numDirtyClusters;
+    
+    /**
+     * The stamps that are used for collecting the clusters that are 
+     * affected by a repair
+     */
+    private final int affectedStamps[];
+    
+    /**
+     * The indices of the clusters that are affected by a repair
+     */
+    private final int affectedClusters[];
+    
+    /**
+     * The current stamp for collecting the affected clusters
+     */
+    private int affectedStamp;
+    
+    /**
+     * The offsets of the abstract nodes of each cluster. The abstract 
+     * nodes of cluster <code>c</code> have the identifiers in 
+     * <code>[nodeOffsets[c], nodeOffsets[c+1])</code>.
+     */
+    private final int nodeOffsets[];
+    
+    /**
+     * The region indices of the cells of all abstract nodes
+     */
+    private int nodeCells[];
+    
+    /**
+     * The heap for the abstract search
+     */
+    private IndexedDoubleHeap heap;
+    
+    /**
+     * The costs of the best known paths to the abstract nodes
+     */
+    private double costs[];
+    
+    /**
+     * The predecessors of the abstract nodes on the best known paths
+     */
+    private int predecessors[];
+    
+    /**
+     * The generation in which the cost of each abstract node was set
+     */
+    private int visited[];
+    
+    /**
+     * The generation in which each abstract node was closed
+     */
+    private int closed[];
+    
+    /**
+     * The current generation, which is incremented for each search
+     */
+    private int generation;
+    
+    /**
+     * The local search from the start cell
+     */
+    private final LocalSearch startSearch;
+    
+    /**
+     * The reverse local search from the goal cell
+     */
+    private final LocalSearch goalSearch;
+    
+    /**
+     * The local search for refining the abstract path
+     */
+    private final LocalSearch refineSearch;
+    
+    /**
+     * The abstract nodes of the abstract path that was found
+     */
+    private int abstractPath[];
+    
+    /**
+     * The indices of the cells of the path that was found
+     */
+    private int path[];
+    
+    /**
+     * The length of the path that was found
+     */
+    private int pathLength;
+    
+    /**
+     * The cost of the path that was found
+     */
+    private double pathCost;
+    
+    /**
+     * Creates a new hierarchical path finder that uses the common pool 
+     * for building and repairing the clusters.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param costFunction The {@link CellCostFunction}
+     * @param minimumCost The minimum cost for entering a cell
+     * @param clusterSize The size of the clusters
+     * @throws IllegalArgumentException If the minimum cost is negative,
+     * or the cluster size is not positive
+     */
+    public HexagonHierarchicalPathFinder(HexagonGridRegion region, 
+        CellCostFunction costFunction, double minimumCost, int clusterSize)
+    {
+        this(region, costFunction, minimumCost, clusterSize, 
+            ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new hierarchical path finder. The clusters will be built
+     * immediately, in the given pool.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param costFunction The {@link CellCostFunction}
+     * @param minimumCost The minimum cost for entering a cell
+     * @param clusterSize The size of the clusters
+     * @param pool The pool for building and repairing the clusters
+     * @throws IllegalArgumentException If the minimum cost is negative,
+     * or the cluster size is not positive
+     */
+    public HexagonHierarchicalPathFinder(HexagonGridRegion region, 
+        CellCostFunction costFunction, double minimumCost, int clusterSize,
+        ForkJoinPool pool)
+    {
+        if (!(minimumCost >= 0))
+        {
+            throw new IllegalArgumentException(
+                "The minimum cost must be nonnegative, but is " + minimumCost);
+        }
+        if (clusterSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The cluster size must be positive, but is " + clusterSize);
+        }
+        this.region = region;
+        this.costFunction = costFunction;
+        this.minimumCost = minimumCost;
+        this.clusterSize = clusterSize;
+        this.pool = pool;
+        this.numClustersX = 
+            (region.getWidth() + clusterSize - 1) / clusterSize;
+        this.numClustersY = 
+            (region.getHeight() + clusterSize - 1) / clusterSize;
+        this.numClusters = numClustersX * numClustersY;
+        this.borders = new int[numClusters][FORWARD_X.length][];
+        this.clusters = new Cluster[numClusters];
+        this.dirty = new boolean[numClusters];
+        this.dirtyClusters = new int[numClusters];
+        this.numDirtyClusters = 0;
+        this.affectedStamps = new int[numClusters];
+        this.affectedClusters = new int[numClusters];
+        this.affectedStamp = 0;
+        this.nodeOffsets = new int[numClusters + 1];
+        this.nodeCells = EMPTY;
+        this.heap = new IndexedDoubleHeap(2);
+        this.costs = new double[2];
+        this.predecessors = new int[2];
+        this.visited = new int[2];
+        this.closed = new int[2];
+        this.generation = 0;
+        this.startSearch = new LocalSearch();
+        this.goalSearch = new LocalSearch();
+        this.refineSearch = new LocalSearch();
+        this.abstractPath = new int[16];
+        this.path = new int[16];
+        this.pathLength = 0;
+        this.pathCost = Double.POSITIVE_INFINITY;
+        
+        for (int c = 0; c < numClusters; c++)
+        {
+            markDirty(c);
+        }
+        repair();
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this path finder
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the size of the clusters
+     * 
+     * @return The cluster size
+     */
+    public int getClusterSize()
+    {
+        return clusterSize;
+    }
+    
+    /**
+     * Returns the number of nodes of the abstract graph. This does not
+     * include the nodes that are temporarily inserted for the start
+     * and goal cell of a search.
+     * 
+     * @return The number of abstract nodes
+     */
+    public int getNumAbstractNodes()
+    {
+        repair();
+        return nodeOffsets[numClusters];
+    }
+    
+    /**
+     * Notify this path finder that the cost for entering the cell with 
+     * the given offset coordinates has changed. The cluster that contains
+     * the cell will be repaired in the next call to {@link #repair()}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public void invalidate(int x, int y)
+    {
+        validIndex(x, y);
+        markDirty(computeCluster(x, y));
+    }
+    
+    /**
+     * Repair the clusters that have been marked as dirty by calls to
+     * {@link #invalidate(int, int)}. This recomputes the transitions 
+     * between the dirty clusters and their neighbors, and the costs
+     * inside the dirty clusters. The costs inside the neighbors are only
+     * recomputed when their nodes changed. If no cluster is dirty, then 
+     * nothing is done.
+     */
+    public void repair()
+    {
+        if (numDirtyClusters == 0)
+        {
+            return;
+        }
+        int numAffected = collectAffectedClusters();
+        ParallelRanges.run(pool, 0, numAffected, GRAIN_SIZE, (s, e) -> 
+        {
+            for (int i = s; i < e; i++)
+            {
+                computeBorders(affectedClusters[i]);
+            }
+        });
+        ParallelRanges.run(pool, 0, numAffected, GRAIN_SIZE, (s, e) -> 
+        {
+            LocalSearch localSearch = new LocalSearch();
+            for (int i = s; i < e; i++)
+            {
+                int c = affectedClusters[i];
+                clusters[c] = buildCluster(c, localSearch);
+            }
+        });
+        for (int i = 0; i < numDirtyClusters; i++)
+        {
+            dirty[dirtyClusters[i]] = false;
+        }
+        numDirtyClusters = 0;
+        updateAbstractNodes();
+    }
+    
+    /**
+     * Try to find a path between the cells with the given offset 
+     * coordinates. If a path is found, then it may afterwards be 
+     * obtained from this instance. If any clusters are dirty, they
+     * are {@link #repair() repaired} first.<br>
+     * <br>
+     * In contrast to the {@link HexagonPathFinder}, the start cell itself
+     * has to be passable, meaning that the cost for entering it has to
+     * be finite. Otherwise, no path will be found.
+     * 
+     * @param startX The x-coordinate of the start cell
+     * @param startY The y-coordinate of the start cell
+     * @param goalX The x-coordinate of the goal cell
+     * @param goalY The y-coordinate of the goal cell
+     * @return Whether a path was found
+     * @throws IndexOutOfBoundsException If the start or goal cell is not
+     * contained in the {@link #getRegion() region}
+     */
+    public boolean findPath(int startX, int startY, int goalX, int goalY)
+    {
+        int start = validIndex(startX, startY);
+        validIndex(goalX, goalY);
+        repair();
+        
+        pathLength = 0;
+        pathCost = Double.POSITIVE_INFINITY;
+        if (!isPassable(startX, startY))
+        {
+            return false;
+        }
+        
+        int startCluster = computeCluster(startX, startY);
+        int goalCluster = computeCluster(goalX, goalY);
+        startSearch.setCluster(startCluster);
+        startSearch.search(startX, startY, false, -1);
+        goalSearch.setCluster(goalCluster);
+        goalSearch.search(goalX, goalY, true, -1);
+        
+        int numNodes = nodeOffsets[numClusters];
+        int startNode = numNodes;
+        int goalNode = numNodes + 1;
+        
+        nextGeneration();
+        heap.clear();
+        costs[startNode] = 0.0;
+        predecessors[startNode] = -1;
+        visited[startNode] = generation;
+        heap.insertOrDecrease(startNode, 0.0);
+        while (!heap.isEmpty())
+        {
+            int current = heap.poll();
+            if (current == goalNode)
+            {
+                storePath(start, goalNode, goalX, goalY);
+                return true;
+            }
+            closed[current] = generation;
+            double currentCost = costs[current];
+            
+            if (current == startNode)
+            {
+                Cluster cluster = clusters[startCluster];
+                int offset = nodeOffsets[startCluster];
+                for (int j = 0; j < cluster.nodes.length; j++)
+                {
+                    int cell = cluster.nodes[j];
+                    double cost = startSearch.getCost(
+                        region.getX(cell), region.getY(cell));
+                    relax(current, offset + j, currentCost + cost, 
+                        goalNode, goalX, goalY);
+                }
+                if (startCluster == goalCluster)
+                {
+                    double cost = startSearch.getCost(goalX, goalY);
+                    relax(current, goalNode, currentCost + cost, 
+                        goalNode, goalX, goalY);
+                }
+                continue;
+            }
+            
+            int cell = nodeCells[current];
+            int x = region.getX(cell);
+            int y = region.getY(cell);
+            int c = computeCluster(x, y);
+            int offset = nodeOffsets[c];
+            int local = current - offset;
+            Cluster cluster = clusters[c];
+            int n = cluster.nodes.length;
+            for (int j = 0; j < n; j++)
+            {
+                if (j != local)
+                {
+                    double cost = cluster.costs[local * n + j];
+                    relax(current, offset + j, currentCost + cost, 
+                        goalNode, goalX, goalY);
+                }
+            }
+            int t0 = cluster.transitionStarts[local];
+            int t1 = cluster.transitionStarts[local + 1];
+            for (int t = t0; t < t1; t++)
+            {
+                int target = cluster.transitionTargets[t];
+                int tx = region.getX(target);
+                int ty = region.getY(target);
+                int tc = computeCluster(tx, ty);
+                int tl = Arrays.binarySearch(clusters[tc].nodes, target);
+                double cost = costFunction.getCost(tx, ty);
+                relax(current, nodeOffsets[tc] + tl, currentCost + cost, 
+                    goalNode, goalX, goalY);
+            }
+            if (c == goalCluster)
+            {
+                double cost = goalSearch.getCost(x, y);
+                relax(current, goalNode, currentCost + cost, 
+                    goalNode, goalX, goalY);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the number of cells in the path that was found in the 
+     * latest call to {@link #findPath}, including the start and the
+     * goal cell. If no path was found, then this is 0.
+     * 
+     * @return The path length
+     */
+    public int getPathLength()
+    {
+        return pathLength;
+    }
+    
+    /**
+     * Returns the x-coordinate of the cell with the given index in the
+     * path that was found in the latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The x-coordinate
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathX(int index)
+    {
+        return region.getX(getPathIndex(index));
+    }
+    
+    /**
+     * Returns the y-coordinate of the cell with the given index in the
+     * path that was found in the latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The y-coordinate
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathY(int index)
+    {
+        return region.getY(getPathIndex(index));
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion#getIndex(int, int) region index}
+     * of the cell with the given index in the path that was found in the 
+     * latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The region index of the cell
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathIndex(int index)
+    {
+        if (index < 0 || index >= pathLength)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + pathLength + "), but is " + index);
+        }
+        return path[index];
+    }
+    
+    /**
+     * Returns the total cost of the path that was found in the latest
+     * call to {@link #findPath}. This is the sum of the costs for 
+     * entering all cells of the path, except for the start cell. If no 
+     * path was found, then this is <code>Double.POSITIVE_INFINITY</code>.
+     * 
+     * @return The path cost
+     */
+    public double getPathCost()
+    {
+        return pathCost;
+    }
+    
+    /**
+     * Relax the edge from the given abstract node to the given other 
+     * abstract node, in the abstract search
+     * 
+     * @param current The current node
+     * @param node The node that the edge leads to
+     * @param newCost The cost of the path to the node via the edge
+     * @param goalNode The goal node
+     * @param goalX The x-coordinate of the goal cell
+     * @param goalY The y-coordinate of the goal cell
+     */
+    private void relax(int current, int node, double newCost, 
+        int goalNode, int goalX, int goalY)
+    {
+        if (!(newCost < Double.POSITIVE_INFINITY) || 
+            closed[node] == generation)
+        {
+            return;
+        }
+        if (visited[node] == generation && newCost >= costs[node])
+        {
+            return;
+        }
+        visited[node] = generation;
+        costs[node] = newCost;
+        predecessors[node] = current;
+        double h = 0.0;
+        if (node != goalNode)
+        {
+            int cell = nodeCells[node];
+            h = minimumCost * region.getHexagonGrid().computeStepsDistance(
+                region.getX(cell), region.getY(cell), goalX, goalY);
+        }
+        heap.insertOrDecrease(node, newCost + h);
+    }
+    
+    /**
+     * Refine the abstract path that ends at the given goal node into
+     * the path of cells, and store it
+     * 
+     * @param start The region index of the start cell
+     * @param goalNode The goal node
+     * @param goalX The x-coordinate of the goal cell
+     * @param goalY The y-coordinate of the goal cell
+     */
+    private void storePath(int start, int goalNode, int goalX, int goalY)
+    {
+        int length = 0;
+        for (int n = goalNode; n != -1; n = predecessors[n])
+        {
+            length++;
+        }
+        if (abstractPath.length < length)
+        {
+            abstractPath = new int[Math.max(length, abstractPath.length * 2)];
+        }
+        int i = length - 1;
+        for (int n = goalNode; n != -1; n = predecessors[n])
+        {
+            abstractPath[i] = n;
+            i--;
+        }
+        
+        pathLength = 0;
+        appendCell(start);
+        int previousCell = start;
+        for (int a = 1; a < length; a++)
+        {
+            int node = abstractPath[a];
+            if (node == goalNode)
+            {
+                if (a == 1)
+                {
+                    appendForwardPath(startSearch, 
+                        region.getIndex(goalX, goalY));
+                }
+                else
+                {
+                    appendReversePath(goalSearch, previousCell);
+                }
+                break;
+            }
+            int cell = nodeCells[node];
+            if (a == 1)
+            {
+                appendForwardPath(startSearch, cell);
+            }
+            else
+            {
+                int px = region.getX(previousCell);
+                int py = region.getY(previousCell);
+                int x = region.getX(cell);
+                int y = region.getY(cell);
+                int pc = computeCluster(px, py);
+                if (pc == computeCluster(x, y))
+                {
+                    refineSearch.setCluster(pc);
+                    refineSearch.search(px, py, false, cell);
+                    appendForwardPath(refineSearch, cell);
+                }
+                else
+                {
+                    appendCell(cell);
+                }
+            }
+            previousCell = cell;
+        }
+        double cost = 0.0;
+        for (int p = 1; p < pathLength; p++)
+        {
+            int cell = path[p];
+            cost += costFunction.getCost(region.getX(cell), region.getY(cell));
+        }
+        pathCost = cost;
+    }
+    
+    /**
+     * Append the cells of the path from the source of the given forward
+     * search to the given cell, excluding the source, to the path
+     * 
+     * @param localSearch The {@link LocalSearch}
+     * @param cell The region index of the cell
+     */
+    private void appendForwardPath(LocalSearch localSearch, int cell)
+    {
+        int length = 0;
+        for (int c = cell; c != -1; c = localSearch.getPredecessor(c))
+        {
+            length++;
+        }
+        length--;
+        ensurePathCapacity(pathLength + length);
+        int i = pathLength + length - 1;
+        for (int c = cell; i >= pathLength; c = localSearch.getPredecessor(c))
+        {
+            path[i] = c;
+            i--;
+        }
+        pathLength += length;
+    }
+    
+    /**
+     * Append the cells of the path from the given cell to the source of 
+     * the given reverse search, excluding the given cell, to the path
+     * 
+     * @param localSearch The {@link LocalSearch}
+     * @param cell The region index of the cell
+     */
+    private void appendReversePath(LocalSearch localSearch, int cell)
+    {
+        int c = localSearch.getPredecessor(cell);
+        while (c != -1)
+        {
+            appendCell(c);
+            c = localSearch.getPredecessor(c);
+        }
+    }
+    
+    /**
+     * Append the given cell to the path
+     * 
+     * @param cell The region index of the cell
+     */
+    private void appendCell(int cell)
+    {
+        ensurePathCapacity(pathLength + 1);
+        path[pathLength] = cell;
+        pathLength++;
+    }
+    
+    /**
+     * Make sure that the path array has at least the given length
+     * 
+     * @param length The length
+     */
+    private void ensurePathCapacity(int length)
+    {
+        if (path.length < length)
+        {
+            path = Arrays.copyOf(path, Math.max(length, path.length * 2));
+        }
+    }
+    
+    /**
+     * Mark the given cluster as dirty
+     * 
+     * @param c The cluster
+     */
+    private void markDirty(int c)
+    {
+        if (!dirty[c])
+        {
+            dirty[c] = true;
+            dirtyClusters[numDirtyClusters] = c;
+            numDirtyClusters++;
+        }
+    }
+    
+    /**
+     * Collect the dirty clusters and all their neighbors in the array of
+     * affected clusters
+     * 
+     * @return The number of affected clusters
+     */
+    private int collectAffectedClusters()
+    {
+        if (affectedStamp == Integer.MAX_VALUE)
+        {
+            Arrays.fill(affectedStamps, 0);
+            affectedStamp = 0;
+        }
+        affectedStamp++;
+        int numAffected = 0;
+        for (int i = 0; i < numDirtyClusters; i++)
+        {
+            int c = dirtyClusters[i];
+            int cx = c % numClustersX;
+            int cy = c / numClustersX;
+            int minX = Math.max(0, cx - 1);
+            int maxX = Math.min(numClustersX - 1, cx + 1);
+            int minY = Math.max(0, cy - 1);
+            int maxY = Math.min(numClustersY - 1, cy + 1);
+            for (int y = minY; y <= maxY; y++)
+            {
+                for (int x = minX; x <= maxX; x++)
+                {
+                    int a = y * numClustersX + x;
+                    if (affectedStamps[a] != affectedStamp)
+                    {
+                        affectedStamps[a] = affectedStamp;
+                        affectedClusters[numAffected] = a;
+                        numAffected++;
+                    }
+                }
+            }
+        }
+        return numAffected;
+    }
+    
+    /**
+     * Compute the transitions between the given cluster and each of its
+     * forward neighbors
+     * 
+     * @param c The cluster
+     */
+    private void computeBorders(int c)
+    {
+        int cx = c % numClustersX;
+        int cy = c / numClustersX;
+        int x0 = region.getMinX() + cx * clusterSize;
+        int y0 = region.getMinY() + cy * clusterSize;
+        int x1 = Math.min(x0 + clusterSize, 
+            region.getMinX() + region.getWidth()) - 1;
+        int y1 = Math.min(y0 + clusterSize, 
+            region.getMinY() + region.getHeight()) - 1;
+        int maxCandidates = 4 * clusterSize * 6;
+        int candidatesA[] = new int[maxCandidates];
+        int candidatesB[] = new int[maxCandidates];
+        int components[] = new int[maxCandidates];
+        int stack[] = new int[maxCandidates];
+        for (int k = 0; k < FORWARD_X.length; k++)
+        {
+            int bx = cx + FORWARD_X[k];
+            int by = cy + FORWARD_Y[k];
+            if (bx < 0 || bx >= numClustersX || by >= numClustersY)
+            {
+                borders[c][k] = EMPTY;
+                continue;
+            }
+            int b = by * numClustersX + bx;
+            
+            // Collect the pairs of passable cells on the boundary of this 
+            // cluster and their passable neighbors in the other cluster
+            int numCandidates = 0;
+            for (int y = y0; y <= y1; y++)
+            {
+                boolean fullRow = y == y0 || y == y1;
+                for (int x = x0; x <= x1; x++)
+                {
+                    if (!fullRow && x != x0 && x != x1)
+                    {
+                        continue;
+                    }
+                    if (!isPassable(x, y))
+                    {
+                        continue;
+                    }
+                    for (int d = 0; d < 6; d++)
+                    {
+                        int neighbor = region.getNeighborIndex(x, y, d);
+                        if (neighbor >= 0 && isPassableInCluster(neighbor, b))
+                        {
+                            candidatesA[numCandidates] = 
+                                region.getIndex(x, y);
+                            candidatesB[numCandidates] = neighbor;
+                            numCandidates++;
+                        }
+                    }
+                }
+            }
+            
+            // Group the pairs into entrances, where the cells on both 
+            // sides of an entrance are connected
+            Arrays.fill(components, 0, numCandidates, -1);
+            int numComponents = 0;
+            for (int i = 0; i < numCandidates; i++)
+            {
+                if (components[i] != -1)
+                {
+                    continue;
+                }
+                components[i] = numComponents;
+                int stackSize = 0;
+                stack[stackSize++] = i;
+                while (stackSize > 0)
+                {
+                    int j = stack[--stackSize];
+                    for (int m = 0; m < numCandidates; m++)
+                    {
+                        if (components[m] == -1 && 
+                            areConnected(candidatesA[j], candidatesA[m]) &&
+                            areConnected(candidatesB[j], candidatesB[m]))
+                        {
+                            components[m] = numComponents;
+                            stack[stackSize++] = m;
+                        }
+                    }
+                }
+                numComponents++;
+            }
+            
+            // Create one transition in the middle of each entrance, or 
+            // two transitions at the ends of wide entrances
+            int border[] = new int[4 * numComponents];
+            int size = 0;
+            for (int component = 0; component < numComponents; component++)
+            {
+                int first = -1;
+                int last = -1;
+                int count = 0;
+                for (int i = 0; i < numCandidates; i++)
+                {
+                    if (components[i] == component)
+                    {
+                        if (first == -1)
+                        {
+                            first = i;
+                        }
+                        last = i;
+                        count++;
+                    }
+                }
+                if (count >= MAX_ENTRANCE_WIDTH)
+                {
+                    border[size++] = candidatesA[first];
+                    border[size++] = candidatesB[first];
+                    border[size++] = candidatesA[last];
+                    border[size++] = candidatesB[last];
+                }
+                else
+                {
+                    int middle = -1;
+                    int remaining = count / 2;
+                    for (int i = first; i <= last; i++)
+                    {
+                        if (components[i] == component)
+                        {
+                            if (remaining == 0)
+                            {
+                                middle = i;
+                                break;
+                            }
+                            remaining--;
+                        }
+                    }
+                    border[size++] = candidatesA[middle];
+                    border[size++] = candidatesB[middle];
+                }
+            }
+            borders[c][k] = Arrays.copyOf(border, size);
+        }
+    }
+    
+    /**
+     * Returns whether the cell with the given offset coordinates can be
+     * entered
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return Whether the cell is passable
+     */
+    private boolean isPassable(int x, int y)
+    {
+        return costFunction.getCost(x, y) < Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Returns whether the cell with the given region index is contained
+     * in the given cluster and can be entered
+     * 
+     * @param index The region index
+     * @param c The cluster
+     * @return Whether the cell is a passable cell of the cluster
+     */
+    private boolean isPassableInCluster(int index, int c)
+    {
+        int x = region.getX(index);
+        int y = region.getY(index);
+        return computeCluster(x, y) == c && isPassable(x, y);
+    }
+    
+    /**
+     * Returns whether the cells with the given region indices are 
+     * equal or adjacent
+     * 
+     * @param index0 The first index
+     * @param index1 The second index
+     * @return Whether the cells are connected
+     */
+    private boolean areConnected(int index0, int index1)
+    {
+        return region.getHexagonGrid().computeStepsDistance(
+            region.getX(index0), region.getY(index0), 
+            region.getX(index1), region.getY(index1)) <= 1;
+    }
+    
+    /**
+     * Build the {@link Cluster} for the given cluster index, from the 
+     * borders that touch this cluster
+     * 
+     * @param c The cluster
+     * @param localSearch The {@link LocalSearch} for computing the costs
+     * @return The {@link Cluster}
+     */
+    private Cluster buildCluster(int c, LocalSearch localSearch)
+    {
+        int cx = c % numClustersX;
+        int cy = c / numClustersX;
+        
+        // Collect the transitions that start in this cluster
+        int numTransitions = 0;
+        for (int k = 0; k < FORWARD_X.length; k++)
+        {
+            numTransitions += borders[c][k].length / 2;
+            int backward[] = backwardBorder(cx, cy, k);
+            numTransitions += backward.length / 2;
+        }
+        int sources[] = new int[numTransitions];
+        int targets[] = new int[numTransitions];
+        int t = 0;
+        for (int k = 0; k < FORWARD_X.length; k++)
+        {
+            int forward[] = borders[c][k];
+            for (int i = 0; i < forward.length; i += 2)
+            {
+                sources[t] = forward[i];
+                targets[t] = forward[i + 1];
+                t++;
+            }
+            int backward[] = backwardBorder(cx, cy, k);
+            for (int i = 0; i < backward.length; i += 2)
+            {
+                sources[t] = backward[i + 1];
+                targets[t] = backward[i];
+                t++;
+            }
+        }
+        
+        // Create the nodes, and sort the transitions by their source node
+        int sortedSources[] = sources.clone();
+        Arrays.sort(sortedSources);
+        int n = 0;
+        for (int i = 0; i < numTransitions; i++)
+        {
+            if (i == 0 || sortedSources[i] != sortedSources[i - 1])
+            {
+                sortedSources[n++] = sortedSources[i];
+            }
+        }
+        int nodes[] = Arrays.copyOf(sortedSources, n);
+        int transitionStarts[] = new int[n + 1];
+        for (int i = 0; i < numTransitions; i++)
+        {
+            transitionStarts[Arrays.binarySearch(nodes, sources[i]) + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+        {
+            transitionStarts[i + 1] += transitionStarts[i];
+        }
+        int fill[] = Arrays.copyOf(transitionStarts, n);
+        int transitionTargets[] = new int[numTransitions];
+        for (int i = 0; i < numTransitions; i++)
+        {
+            int node = Arrays.binarySearch(nodes, sources[i]);
+            transitionTargets[fill[node]++] = targets[i];
+        }
+        
+        // Compute the costs of the paths between all nodes. If the cells
+        // of the cluster did not change, and the nodes are the same as 
+        // before, then the previous costs are still valid.
+        Cluster previous = clusters[c];
+        if (previous != null && !dirty[c] && 
+            Arrays.equals(previous.nodes, nodes))
+        {
+            return new Cluster(
+                nodes, transitionStarts, transitionTargets, previous.costs);
+        }
+        double nodeCosts[] = new double[n * n];
+        localSearch.setCluster(c);
+        for (int i = 0; i < n; i++)
+        {
+            localSearch.search(
+                region.getX(nodes[i]), region.getY(nodes[i]), false, -1);
+            for (int j = 0; j < n; j++)
+            {
+                nodeCosts[i * n + j] = localSearch.getCost(
+                    region.getX(nodes[j]), region.getY(nodes[j]));
+            }
+        }
+        return new Cluster(
+            nodes, transitionStarts, transitionTargets, nodeCosts);
+    }
+    
+    /**
+     * Returns the border between the cluster that is the backward 
+     * neighbor of the given cluster with the given direction, and the
+     * given cluster, or an empty array if there is no such neighbor
+     * 
+     * @param cx The x-coordinate of the cluster
+     * @param cy The y-coordinate of the cluster
+     * @param k The forward direction
+     * @return The border
+     */
+    private int[] backwardBorder(int cx, int cy, int k)
+    {
+        int ax = cx - FORWARD_X[k];
+        int ay = cy - FORWARD_Y[k];
+        if (ax < 0 || ax >= numClustersX || ay < 0)
+        {
+            return EMPTY;
+        }
+        return borders[ay * numClustersX + ax][k];
+    }
+    
+    /**
+     * Update the offsets and cells of the abstract nodes after clusters
+     * have been built, and make sure that the data structures for the 
+     * abstract search are large enough
+     */
+    private void updateAbstractNodes()
+    {
+        for (int c = 0; c < numClusters; c++)
+        {
+            nodeOffsets[c + 1] = nodeOffsets[c] + clusters[c].nodes.length;
+        }
+        int numNodes = nodeOffsets[numClusters];
+        if (nodeCells.length < numNodes)
+        {
+            nodeCells = new int[numNodes];
+        }
+        for (int c = 0; c < numClusters; c++)
+        {
+            int nodes[] = clusters[c].nodes;
+            System.arraycopy(nodes, 0, nodeCells, nodeOffsets[c], 
+                nodes.length);
+        }
+        int capacity = numNodes + 2;
+        if (costs.length < capacity)
+        {
+            heap = new IndexedDoubleHeap(capacity);
+            costs = new double[capacity];
+            predecessors = new int[capacity];
+            visited = new int[capacity];
+            closed = new int[capacity];
+            generation = 0;
+        }
+    }
+    
+    /**
+     * Start a new generation of the abstract search. This implicitly 
+     * resets the visited and closed states of all abstract nodes.
+     */
+    private void nextGeneration()
+    {
+        if (generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(closed, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+    
+    /**
+     * Returns the index of the cluster that contains the cell with the
+     * given offset coordinates, which must be contained in the region
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The cluster index
+     */
+    private int computeCluster(int x, int y)
+    {
+        int cx = (x - region.getMinX()) / clusterSize;
+        int cy = (y - region.getMinY()) / clusterSize;
+        return cy * numClustersX + cx;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+    
+    /**
+     * The precomputed data of a single cluster
+     */
+    private static final class Cluster
+    {
+        /**
+         * The region indices of the nodes of the cluster, in ascending
+         * order
+         */
+        final int nodes[];
+        
+        /**
+         * The start of the transitions of each node. The transitions of 
+         * node <code>i</code> are stored in 
+         * <code>[transitionStarts[i], transitionStarts[i+1])</code>.
+         */
+        final int transitionStarts[];
+        
+        /**
+         * The region indices of the targets of the transitions
+         */
+        final int transitionTargets[];
+        
+        /**
+         * The costs of the cheapest paths between the nodes inside the 
+         * cluster, where <code>costs[i*n+j]</code> is the cost of the 
+         * path from node <code>i</code> to node <code>j</code>
+         */
+        final double costs[];
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param nodes The nodes
+         * @param transitionStarts The transition starts
+         * @param transitionTargets The transition targets
+         * @param costs The costs
+         */
+        Cluster(int nodes[], int transitionStarts[], 
+            int transitionTargets[], double costs[])
+        {
+            this.nodes = nodes;
+            this.transitionStarts = transitionStarts;
+            this.transitionTargets = transitionTargets;
+            this.costs = costs;
+        }
+    }
+    
+    /**
+     * A Dijkstra search that is confined to the cells of a single cluster
+     */
+    private final class LocalSearch
+    {
+        /**
+         * The heap for the open set
+         */
+        private final IndexedDoubleHeap localHeap;
+        
+        /**
+         * The costs for entering the cells of the current cluster
+         */
+        private final double cellCosts[];
+        
+        /**
+         * The costs of the best known paths to the cells
+         */
+        private final double localCosts[];
+        
+        /**
+         * The local indices of the predecessors of the cells
+         */
+        private final int localPredecessors[];
+        
+        /**
+         * The generation in which the cost of each cell was set
+         */
+        private final int localVisited[];
+        
+        /**
+         * The generation in which each cell was closed
+         */
+        private final int localClosed[];
+        
+        /**
+         * The current generation
+         */
+        private int localGeneration;
+        
+        /**
+         * The minimum x-coordinate of the current cluster
+         */
+        private int x0;
+        
+        /**
+         * The minimum y-coordinate of the current cluster
+         */
+        private int y0;
+        
+        /**
+         * The maximum x-coordinate of the current cluster, inclusive
+         */
+        private int x1;
+        
+        /**
+         * The maximum y-coordinate of the current cluster, inclusive
+         */
+        private int y1;
+        
+        /**
+         * Creates a new instance
+         */
+        LocalSearch()
+        {
+            int size = clusterSize * clusterSize;
+            this.localHeap = new IndexedDoubleHeap(size);
+            this.cellCosts = new double[size];
+            this.localCosts = new double[size];
+            this.localPredecessors = new int[size];
+            this.localVisited = new int[size];
+            this.localClosed = new int[size];
+            this.localGeneration = 0;
+        }
+        
+        /**
+         * Set the cluster for the subsequent searches, and fetch the 
+         * costs for entering its cells from the cost function
+         * 
+         * @param c The cluster
+         */
+        void setCluster(int c)
+        {
+            int cx = c % numClustersX;
+            int cy = c / numClustersX;
+            x0 = region.getMinX() + cx * clusterSize;
+            y0 = region.getMinY() + cy * clusterSize;
+            x1 = Math.min(x0 + clusterSize, 
+                region.getMinX() + region.getWidth()) - 1;
+            y1 = Math.min(y0 + clusterSize, 
+                region.getMinY() + region.getHeight()) - 1;
+            for (int y = y0; y <= y1; y++)
+            {
+                for (int x = x0; x <= x1; x++)
+                {
+                    cellCosts[localIndex(x, y)] = costFunction.getCost(x, y);
+                }
+            }
+        }
+        
+        /**
+         * Run a search inside the current cluster, starting at the given
+         * source cell. <br>
+         * <br>
+         * For a forward search, the cost of a cell is the cost of the 
+         * cheapest path from the source to the cell, and the predecessor 
+         * of a cell is the previous cell on this path. For a reverse 
+         * search, the cost of a cell is the cost of the cheapest path 
+         * from the cell to the source, and the "predecessor" of a cell 
+         * is the next cell on this path.<br>
+         * <br>
+         * If a target is given, then the search stops as soon as the 
+         * target was reached, and only the results for the cells on
+         * the path to the target are valid.
+         * 
+         * @param sourceX The x-coordinate of the source cell
+         * @param sourceY The y-coordinate of the source cell
+         * @param reverse Whether the search is a reverse search
+         * @param target The region index of the target, or -1
+         */
+        void search(int sourceX, int sourceY, boolean reverse, int target)
+        {
+            if (localGeneration == Integer.MAX_VALUE)
+            {
+                Arrays.fill(localVisited, 0);
+                Arrays.fill(localClosed, 0);
+                localGeneration = 0;
+            }
+            localGeneration++;
+            localHeap.clear();
+            
+            int targetLocal = -1;
+            if (target != -1)
+            {
+                targetLocal = localIndex(
+                    region.getX(target), region.getY(target));
+            }
+            NeighborOffsets neighborOffsets = region.getNeighborOffsets();
+            int source = localIndex(sourceX, sourceY);
+            localCosts[source] = 0.0;
+            localPredecessors[source] = -1;
+            localVisited[source] = localGeneration;
+            localHeap.insertOrDecrease(source, 0.0);
+            while (!localHeap.isEmpty())
+            {
+                int current = localHeap.poll();
+                localClosed[current] = localGeneration;
+                if (current == targetLocal)
+                {
+                    return;
+                }
+                int x = x0 + current % clusterSize;
+                int y = y0 + current / clusterSize;
+                double enterCost = 0.0;
+                if (reverse)
+                {
+                    enterCost = cellCosts[current];
+                    if (!(enterCost < Double.POSITIVE_INFINITY))
+                    {
+                        continue;
+                    }
+                }
+                int parity = neighborOffsets.getParity(x, y);
+                double currentCost = localCosts[current];
+                for (int d = 0; d < 6; d++)
+                {
+                    int nx = x + neighborOffsets.getDx(parity, d);
+                    int ny = y + neighborOffsets.getDy(parity, d);
+                    int neighbor = localIndex(nx, ny);
+                    if (neighbor < 0 || 
+                        localClosed[neighbor] == localGeneration)
+                    {
+                        continue;
+                    }
+                    double stepCost = 
+                        reverse ? enterCost : cellCosts[neighbor];
+                    if (!(stepCost < Double.POSITIVE_INFINITY))
+                    {
+                        continue;
+                    }
+                    double newCost = currentCost + stepCost;
+                    if (localVisited[neighbor] == localGeneration && 
+                        newCost >= localCosts[neighbor])
+                    {
+                        continue;
+                    }
+                    localVisited[neighbor] = localGeneration;
+                    localCosts[neighbor] = newCost;
+                    localPredecessors[neighbor] = current;
+                    localHeap.insertOrDecrease(neighbor, newCost);
+                }
+            }
+        }
+        
+        /**
+         * Returns the cost of the given cell in the latest search, or
+         * <code>Double.POSITIVE_INFINITY</code> if the cell was not 
+         * reached
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The cost
+         */
+        double getCost(int x, int y)
+        {
+            int local = localIndex(x, y);
+            if (local < 0 || localVisited[local] != localGeneration)
+            {
+                return Double.POSITIVE_INFINITY;
+            }
+            return localCosts[local];
+        }
+        
+        /**
+         * Returns the region index of the predecessor of the cell with
+         * the given region index in the latest search, or -1 if the 
+         * cell is the source
+         * 
+         * @param cell The region index of the cell
+         * @return The region index of the predecessor
+         */
+        int getPredecessor(int cell)
+        {
+            int local = localIndex(region.getX(cell), region.getY(cell));
+            int predecessor = localPredecessors[local];
+            if (predecessor == -1)
+            {
+                return -1;
+            }
+            return region.getIndex(
+                x0 + predecessor % clusterSize, 
+                y0 + predecessor / clusterSize);
+        }
+        
+        /**
+         * Returns the local index of the given cell, or -1 if the cell
+         * is not contained in the current cluster
+         * 
+         * @param x The x-coordinate
+         * @param y The y-coordinate
+         * @return The local index
+         */
+        private int localIndex(int x, int y)
+        {
+            if (x < x0 || x > x1 || y < y0 || y > y1)
+            {
+                return -1;
+            }
+            return (y - y0) * clusterSize + (x - x0);
+        }
+    }
+}
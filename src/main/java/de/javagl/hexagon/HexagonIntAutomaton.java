@@ -0,0 +1,247 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A cellular automaton on the cells of a {@link HexagonGridRegion}, 
+ * with one <code>int</code> value per cell.<br>
+ * <br>
+ * The automaton stores the values of the current generation and of 
+ * the next generation in two {@link HexagonIntMap} instances. Each 
+ * {@link #step(CellIntRule) step} computes the values of the next 
+ * generation from the values of the current generation, using a 
+ * {@link CellIntRule}, and then swaps the two maps.<br>
+ * <br>
+ * The rows of the region are processed in parallel, in bands of 
+ * {@link #BAND_HEIGHT} rows, in a <code>ForkJoinPool</code>. For the 
+ * cells that are not at the border of the region, the values of the 
+ * neighbors are gathered using precomputed differences between the 
+ * index of a cell and the indices of its neighbors, for each parity. 
+ * Neighbors of border cells that are not contained in the region 
+ * receive the boundary value that was given in the constructor.
+ */
+public final class HexagonIntAutomaton
+{
+    /**
+     * The number of rows that are processed by one task
+     */
+    private static final int BAND_HEIGHT = 16;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The value for neighbors that are not contained in the region
+     */
+    private final int boundaryValue;
+    
+    /**
+     * The pool for the parallel computations
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The {@link NeighborOffsets} of the grid
+     */
+    private final NeighborOffsets neighborOffsets;
+    
+    /**
+     * The differences between the index of a cell and the indices
+     * of its neighbors, indexed by [parity][direction]
+     */
+    private final int indexDeltas[][];
+    
+    /**
+     * The values of the current generation
+     */
+    private HexagonIntMap current;
+    
+    /**
+     * The values of the next generation
+     */
+    private HexagonIntMap next;
+    
+    /**
+     * The number of generations that have been computed
+     */
+    private long generation;
+    
+    /**
+     * Creates a new automaton that uses the common pool for the parallel
+     * computations. All values will initially be <code>0</code>.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param boundaryValue The value for neighbors that are not contained
+     * in the region
+     */
+    public HexagonIntAutomaton(HexagonGridRegion region, int boundaryValue)
+    {
+        this(region, boundaryValue, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new automaton. All values will initially be 
+     * <code>0</code>.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param boundaryValue The value for neighbors that are not contained
+     * in the region
+     * @param pool The pool for the parallel computations
+     */
+    public HexagonIntAutomaton(
+        HexagonGridRegion region, int boundaryValue, ForkJoinPool pool)
+    {
+        this.region = region;
+        this.boundaryValue = boundaryValue;
+        this.pool = pool;
+        this.neighborOffsets = region.getNeighborOffsets();
+        this.indexDeltas = region.getNeighborIndexDeltas();
+        this.current = new HexagonIntMap(region);
+        this.next = new HexagonIntMap(region);
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this automaton
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the map that contains the values of the current generation.
+     * This map may be modified in order to set the initial state, or to
+     * modify the state between two steps. Note that the returned map
+     * is only valid until the next call to {@link #step}, which will
+     * swap the maps for the current and the next generation.
+     * 
+     * @return The current values
+     */
+    public HexagonIntMap getCurrent()
+    {
+        return current;
+    }
+    
+    /**
+     * Returns the number of generations that have been computed
+     * 
+     * @return The number of generations
+     */
+    public long getGeneration()
+    {
+        return generation;
+    }
+    
+    /**
+     * Compute the next generation, using the given rule
+     * 
+     * @param rule The {@link CellIntRule}
+     */
+    public void step(CellIntRule rule)
+    {
+        int source[] = current.getValues();
+        int target[] = next.getValues();
+        ParallelRanges.run(pool, 0, region.getHeight(), BAND_HEIGHT, 
+            (startRow, endRow) -> 
+                stepRows(rule, source, target, startRow, endRow));
+        HexagonIntMap temp = current;
+        current = next;
+        next = temp;
+        generation++;
+    }
+    
+    /**
+     * Compute the given number of generations, using the given rule
+     * 
+     * @param rule The {@link CellIntRule}
+     * @param generations The number of generations
+     */
+    public void step(CellIntRule rule, int generations)
+    {
+        for (int i = 0; i < generations; i++)
+        {
+            step(rule);
+        }
+    }
+    
+    /**
+     * Compute the values of the next generation for the given range of
+     * rows of the region
+     * 
+     * @param rule The {@link CellIntRule}
+     * @param source The values of the current generation
+     * @param target The values of the next generation
+     * @param startRow The start row, inclusive, relative to the region
+     * @param endRow The end row, exclusive, relative to the region
+     */
+    private void stepRows(CellIntRule rule, int source[], int target[], 
+        int startRow, int endRow)
+    {
+        int minX = region.getMinX();
+        int minY = region.getMinY();
+        int width = region.getWidth();
+        int height = region.getHeight();
+        int neighbors[] = new int[6];
+        for (int row = startRow; row < endRow; row++)
+        {
+            int y = minY + row;
+            boolean innerRow = row > 0 && row < height - 1;
+            int index = row * width;
+            for (int column = 0; column < width; column++, index++)
+            {
+                int x = minX + column;
+                if (innerRow && column > 0 && column < width - 1)
+                {
+                    int deltas[] = 
+                        indexDeltas[neighborOffsets.getParity(x, y)];
+                    neighbors[0] = source[index + deltas[0]];
+                    neighbors[1] = source[index + deltas[1]];
+                    neighbors[2] = source[index + deltas[2]];
+                    neighbors[3] = source[index + deltas[3]];
+                    neighbors[4] = source[index + deltas[4]];
+                    neighbors[5] = source[index + deltas[5]];
+                }
+                else
+                {
+                    for (int d = 0; d < 6; d++)
+                    {
+                        int neighbor = region.getNeighborIndex(x, y, d);
+                        neighbors[d] = 
+                            neighbor < 0 ? boundaryValue : source[neighbor];
+                    }
+                }
+                target[index] = rule.apply(index, source[index], neighbors);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * A dense, array-backed map from the cells of a {@link HexagonGridRegion}
+ * to <code>int</code> values.<br>
+ * <br>
+ * The values are stored in a single array, in the order of the
+ * {@link HexagonGridRegion#getIndex(int, int) indices} of the region.
+ * The {@link #getValues() values array} may be accessed directly, for
+ * example, for processing all cells in one loop. Changes of the values
+ * that are done with the methods of this class may be tracked with a
+ * {@link HexagonChangeTracker}.<br>
+ * <br>
+ * This class is not thread-safe. For values that are read and written
+ * by multiple threads, a {@link ConcurrentHexagonIntMap} may be used.
+ */
+public final class HexagonIntMap
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The values
+     */
+    private final int values[];
+    
+    /**
+     * The {@link HexagonChangeTracker} that is notified about changes,
+     * or <code>null</code>
+     */
+    private HexagonChangeTracker changeTracker;
+    
+    /**
+     * Creates a new map for the given {@link HexagonGridRegion}. All
+     * values will initially be <code>0</code>.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public HexagonIntMap(HexagonGridRegion region)
+    {
+        this.region = region;
+        this.values = new int[region.getNumCells()];
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this map
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Set the {@link HexagonChangeTracker} that will be notified about
+     * all values that are changed with the methods of this map. Changes
+     * that are done directly in the {@link #getValues() values array} 
+     * are not tracked.
+     * 
+     * @param changeTracker The {@link HexagonChangeTracker}. May be
+     * <code>null</code>
+     * @throws IllegalArgumentException If the region of the given tracker
+     * has a different number of cells than the region of this map
+     */
+    public void setChangeTracker(HexagonChangeTracker changeTracker)
+    {
+        if (changeTracker != null)
+        {
+            changeTracker.validateNumCells(region);
+        }
+        this.changeTracker = changeTracker;
+    }
+    
+    /**
+     * Returns the {@link HexagonChangeTracker} of this map
+     * 
+     * @return The {@link HexagonChangeTracker}. May be <code>null</code>
+     */
+    public HexagonChangeTracker getChangeTracker()
+    {
+        return changeTracker;
+    }
+    
+    /**
+     * Returns the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public int get(int x, int y)
+    {
+        return get(validIndex(x, y));
+    }
+    
+    /**
+     * Set the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public void set(int x, int y, int value)
+    {
+        set(validIndex(x, y), value);
+    }
+    
+    /**
+     * Returns the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @return The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public int get(int index)
+    {
+        return values[index];
+    }
+    
+    /**
+     * Set the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void set(int index, int value)
+    {
+        if (changeTracker != null && values[index] != value)
+        {
+            changeTracker.markChanged(index);
+        }
+        values[index] = value;
+    }
+    
+    /**
+     * Returns the value of the neighbor of the cell with the given offset 
+     * coordinates in the given direction. If the neighbor is not contained
+     * in the {@link #getRegion() region}, then the given default value
+     * is returned. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param direction The direction
+     * @param defaultValue The default value
+     * @return The value of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getNeighbor(int x, int y, int direction, int defaultValue)
+    {
+        int index = region.getNeighborIndex(x, y, direction);
+        if (index < 0)
+        {
+            return defaultValue;
+        }
+        return get(index);
+    }
+    
+    /**
+     * Set all values of this map to the given value
+     * 
+     * @param value The value
+     */
+    public void fill(int value)
+    {
+        Arrays.fill(values, value);
+        if (changeTracker != null)
+        {
+            changeTracker.markAllChanged();
+        }
+    }
+    
+    /**
+     * Returns a reference to the array that stores the values of this
+     * map. Changes in the array will be visible in this map, and vice 
+     * versa.
+     * 
+     * @return The values
+     */
+    public int[] getValues()
+    {
+        return values;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * A pyramid of aggregated <code>int</code> values for the cells of a
+ * {@link HexagonGridHierarchy}.<br>
+ * <br>
+ * The pyramid stores one value for each cell of level 0 of the 
+ * hierarchy. For each cell of the coarser levels, it stores the sum, 
+ * the minimum and the maximum of the values of all level-0 cells that
+ * are aggregated by this cell. When a value is {@link #set(int, int) 
+ * set}, then only the aggregates of the ancestors of the respective 
+ * cell are updated. The sums are updated with the difference between 
+ * the old and the new value. The minimum and maximum of a cell are only 
+ * recomputed from its children when the old value was the minimum or 
+ * maximum, and the update stops at the first level where no aggregate 
+ * changed.<br>
+ * <br>
+ * The aggregates of level 0 are the values themselves.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class HexagonIntPyramid
+{
+    /**
+     * The {@link HexagonGridHierarchy}
+     */
+    private final HexagonGridHierarchy hierarchy;
+    
+    /**
+     * The values of the cells of level 0
+     */
+    private final int values[];
+    
+    /**
+     * The sums, for all levels except for level 0
+     */
+    private final long sums[][];
+    
+    /**
+     * The minimums, for all levels except for level 0
+     */
+    private final int mins[][];
+
+    /**
+     * The maximums, for all levels except for level 0
+     */
+    private final int maxs[][];
+    
+    /**
+     * Creates a new pyramid for the given {@link HexagonGridHierarchy}. 
+     * All values will initially be <code>0</code>.
+     * 
+     * @param hierarchy The {@link HexagonGridHierarchy}
+     */
+    public HexagonIntPyramid(HexagonGridHierarchy hierarchy)
+    {
+        this.hierarchy = hierarchy;
+        int numLevels = hierarchy.getNumLevels();
+        this.values = new int[hierarchy.getRegion(0).getNumCells()];
+        this.sums = new long[numLevels - 1][];
+        this.mins = new int[numLevels - 1][];
+        this.maxs = new int[numLevels - 1][];
+        for (int level = 1; level < numLevels; level++)
+        {
+            int numCells = hierarchy.getRegion(level).getNumCells();
+            sums[level - 1] = new long[numCells];
+            mins[level - 1] = new int[numCells];
+            maxs[level - 1] = new int[numCells];
+        }
+        rebuild();
+    }
+    
+    /**
+     * Returns the {@link HexagonGridHierarchy} of this pyramid
+     * 
+     * @return The {@link HexagonGridHierarchy}
+     */
+    public HexagonGridHierarchy getHierarchy()
+    {
+        return hierarchy;
+    }
+    
+    /**
+     * Returns the value of the level-0 cell with the given index
+     * 
+     * @param index The index
+     * @return The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public int get(int index)
+    {
+        return values[index];
+    }
+    
+    /**
+     * Set the value of the level-0 cell with the given index, and 
+     * update the aggregates of all its ancestors
+     * 
+     * @param index The index
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void set(int index, int value)
+    {
+        int oldValue = values[index];
+        if (oldValue == value)
+        {
+            return;
+        }
+        values[index] = value;
+        long delta = (long)value - oldValue;
+        
+        // The old and new minimum and maximum of the current cell
+        int oldMin = oldValue;
+        int newMin = value;
+        int oldMax = oldValue;
+        int newMax = value;
+        boolean minChanged = true;
+        boolean maxChanged = true;
+        int child = index;
+        for (int level = 0; level < sums.length; level++)
+        {
+            int parent = hierarchy.getParentIndex(level, child);
+            sums[level][parent] += delta;
+            if (minChanged)
+            {
+                int parentMin = mins[level][parent];
+                int newParentMin = parentMin;
+                if (newMin < parentMin)
+                {
+                    newParentMin = newMin;
+                }
+                else if (oldMin == parentMin && newMin > oldMin)
+                {
+                    newParentMin = computeMin(level + 1, parent);
+                }
+                mins[level][parent] = newParentMin;
+                minChanged = newParentMin != parentMin;
+                oldMin = parentMin;
+                newMin = newParentMin;
+            }
+            if (maxChanged)
+            {
+                int parentMax = maxs[level][parent];
+                int newParentMax = parentMax;
+                if (newMax > parentMax)
+                {
+                    newParentMax = newMax;
+                }
+                else if (oldMax == parentMax && newMax < oldMax)
+                {
+                    newParentMax = computeMax(level + 1, parent);
+                }
+                maxs[level][parent] = newParentMax;
+                maxChanged = newParentMax != parentMax;
+                oldMax = parentMax;
+                newMax = newParentMax;
+            }
+            child = parent;
+        }
+    }
+    
+    /**
+     * Returns a reference to the array that stores the values of the
+     * level-0 cells. After this array was modified, {@link #rebuild()} 
+     * has to be called to update the aggregates.
+     * 
+     * @return The values
+     */
+    public int[] getValues()
+    {
+        return values;
+    }
+    
+    /**
+     * Recompute all aggregates from the values of the level-0 cells
+     */
+    public void rebuild()
+    {
+        for (int level = 1; level < hierarchy.getNumLevels(); level++)
+        {
+            int numCells = hierarchy.getRegion(level).getNumCells();
+            for (int index = 0; index < numCells; index++)
+            {
+                long sum = 0;
+                int numChildren = hierarchy.getNumChildren(level, index);
+                for (int c = 0; c < numChildren; c++)
+                {
+                    sum += getSum(level - 1, 
+                        hierarchy.getChildIndex(level, index, c));
+                }
+                sums[level - 1][index] = sum;
+                mins[level - 1][index] = computeMin(level, index);
+                maxs[level - 1][index] = computeMax(level, index);
+            }
+        }
+    }
+    
+    /**
+     * Returns the sum of the values of all level-0 cells that are 
+     * aggregated by the cell with the given index in the given level
+     * 
+     * @param level The level
+     * @param index The index
+     * @return The sum
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [0, numLevels), or the index is not in [0, numCells) 
+     */
+    public long getSum(int level, int index)
+    {
+        if (level == 0)
+        {
+            return values[index];
+        }
+        return sums[level - 1][index];
+    }
+    
+    /**
+     * Returns the minimum of the values of all level-0 cells that are 
+     * aggregated by the cell with the given index in the given level. 
+     * For cells that do not aggregate any level-0 cells, this is 
+     * <code>Integer.MAX_VALUE</code>.
+     * 
+     * @param level The level
+     * @param index The index
+     * @return The minimum
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [0, numLevels), or the index is not in [0, numCells) 
+     */
+    public int getMin(int level, int index)
+    {
+        if (level == 0)
+        {
+            return values[index];
+        }
+        return mins[level - 1][index];
+    }
+    
+    /**
+     * Returns the maximum of the values of all level-0 cells that are 
+     * aggregated by the cell with the given index in the given level.
+     * For cells that do not aggregate any level-0 cells, this is 
+     * <code>Integer.MIN_VALUE</code>.
+     * 
+     * @param level The level
+     * @param index The index
+     * @return The maximum
+     * @throws IndexOutOfBoundsException If the level is not in 
+     * [0, numLevels), or the index is not in [0, numCells) 
+     */
+    public int getMax(int level, int index)
+    {
+        if (level == 0)
+        {
+            return values[index];
+        }
+        return maxs[level - 1][index];
+    }
+    
+    /**
+     * Compute the minimum of the minimums of the children of the given
+     * cell
+     * 
+     * @param level The level of the cell
+     * @param index The index of the cell
+     * @return The minimum
+     */
+    private int computeMin(int level, int index)
+    {
+        int min = Integer.MAX_VALUE;
+        int numChildren = hierarchy.getNumChildren(level, index);
+        for (int c = 0; c < numChildren; c++)
+        {
+            int child = hierarchy.getChildIndex(level, index, c);
+            min = Math.min(min, getMin(level - 1, child));
+        }
+        return min;
+    }
+    
+    /**
+     * Compute the maximum of the maximums of the children of the given
+     * cell
+     * 
+     * @param level The level of the cell
+     * @param index The index of the cell
+     * @return The maximum
+     */
+    private int computeMax(int level, int index)
+    {
+        int max = Integer.MIN_VALUE;
+        int numChildren = hierarchy.getNumChildren(level, index);
+        for (int c = 0; c < numChildren; c++)
+        {
+            int child = hierarchy.getChildIndex(level, index, c);
+            max = Math.max(max, getMax(level - 1, child));
+        }
+        return max;
+    }
+}
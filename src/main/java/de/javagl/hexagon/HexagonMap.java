@@ -0,0 +1,197 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * A dense, array-backed map from the cells of a {@link HexagonGridRegion}
+ * to arbitrary values.<br>
+ * <br>
+ * The values are stored in a single array, in the order of the
+ * {@link HexagonGridRegion#getIndex(int, int) indices} of the region.
+ * The {@link #getValues() values array} may be accessed directly, for
+ * example, for processing all cells in one loop.
+ *
+ * @param <T> The value type
+ */
+public final class HexagonMap<T>
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The values
+     */
+    private final Object values[];
+    
+    /**
+     * Creates a new map for the given {@link HexagonGridRegion}. All
+     * values will initially be <code>null</code>.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public HexagonMap(HexagonGridRegion region)
+    {
+        this.region = region;
+        this.values = new Object[region.getNumCells()];
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this map
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public T get(int x, int y)
+    {
+        return get(validIndex(x, y));
+    }
+    
+    /**
+     * Set the value for the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    public void set(int x, int y, T value)
+    {
+        set(validIndex(x, y), value);
+    }
+    
+    /**
+     * Returns the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @return The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index)
+    {
+        return (T)values[index];
+    }
+    
+    /**
+     * Set the value for the cell with the given index
+     * 
+     * @param index The {@link HexagonGridRegion#getIndex(int, int) index}
+     * @param value The value
+     * @throws IndexOutOfBoundsException If the index is not in 
+     * [0, numCells)
+     */
+    public void set(int index, T value)
+    {
+        values[index] = value;
+    }
+    
+    /**
+     * Returns the value of the neighbor of the cell with the given offset 
+     * coordinates in the given direction. If the neighbor is not contained
+     * in the {@link #getRegion() region}, then the given default value
+     * is returned. The directions are the same as in 
+     * {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param direction The direction
+     * @param defaultValue The default value
+     * @return The value of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public T getNeighbor(int x, int y, int direction, T defaultValue)
+    {
+        int index = region.getNeighborIndex(x, y, direction);
+        if (index < 0)
+        {
+            return defaultValue;
+        }
+        return get(index);
+    }
+    
+    /**
+     * Set all values of this map to the given value
+     * 
+     * @param value The value
+     */
+    public void fill(T value)
+    {
+        Arrays.fill(values, value);
+    }
+    
+    /**
+     * Returns a reference to the array that stores the values of this
+     * map. Changes in the array will be visible in this map, and vice 
+     * versa.
+     * 
+     * @return The values
+     */
+    public Object[] getValues()
+    {
+        return values;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+}
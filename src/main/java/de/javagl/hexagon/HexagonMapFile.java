@@ -0,0 +1,467 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file that contains the per-cell data of a {@link HexagonGridRegion},
+ * in a compact binary format, opened via memory mapping.<br>
+ * <br>
+ * Files of this format are written with a {@link HexagonMapFileWriter}, 
+ * and opened with {@link #open(Path)}. Opening a file only reads the 
+ * header, and maps the payload of each layer into memory. The data is 
+ * paged in lazily by the operating system when it is accessed, either 
+ * through the buffers that are returned by {@link #getIntLayer(int)}, 
+ * {@link #getFloatLayer(int)} and {@link #getDoubleLayer(int)}, or 
+ * when copying a layer into a map, for example with 
+ * {@link #readIntMap(int)}.<br>
+ * <br>
+ * The format is little-endian, and consists of
+ * <ul>
+ *   <li>The magic number <code>"HEXM"</code> (4 bytes)</li>
+ *   <li>The {@link #VERSION version} (int)</li>
+ *   <li>The layout flags (int), where bit 0 indicates a vertical grid
+ *   and bit 1 indicates an even-shifted grid, as passed to 
+ *   {@link HexagonGrids#create(double, boolean, boolean)}</li>
+ *   <li>The number of layers (int)</li>
+ *   <li>The radius of the hexagons (double)</li>
+ *   <li>The minimum x- and y-coordinate, width and height of the 
+ *   region (4 ints)</li>
+ *   <li>For each layer, the type (int), a reserved value (int) and the 
+ *   offset of the payload in the file (long)</li>
+ *   <li>The payloads of the layers, each consisting of one primitive 
+ *   value for each cell of the region, in the order of the
+ *   {@link HexagonGridRegion#getIndex(int, int) region indices}, 
+ *   and padded to a multiple of 8 bytes</li>
+ * </ul>
+ * Instances of this class are immutable and thread-safe. Note that the
+ * memory mappings are released only when the buffers are garbage 
+ * collected.
+ */
+public final class HexagonMapFile
+{
+    /**
+     * The current version of the format
+     */
+    public static final int VERSION = 1;
+    
+    /**
+     * The type of layers that contain <code>int</code> values
+     */
+    public static final int TYPE_INT = 1;
+    
+    /**
+     * The type of layers that contain <code>float</code> values
+     */
+    public static final int TYPE_FLOAT = 2;
+    
+    /**
+     * The type of layers that contain <code>double</code> values
+     */
+    public static final int TYPE_DOUBLE = 3;
+    
+    /**
+     * The magic number at the start of the file, <code>"HEXM"</code> 
+     * in little-endian byte order
+     */
+    static final int MAGIC = 0x4D584548;
+    
+    /**
+     * The size of the header, excluding the layer table, in bytes
+     */
+    static final int HEADER_SIZE = 40;
+    
+    /**
+     * The size of one entry of the layer table, in bytes
+     */
+    static final int LAYER_ENTRY_SIZE = 16;
+    
+    /**
+     * The layout flag for vertical grids
+     */
+    static final int FLAG_VERTICAL = 1;
+    
+    /**
+     * The layout flag for even-shifted grids
+     */
+    static final int FLAG_EVEN_SHIFTED = 2;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The types of the layers
+     */
+    private final int types[];
+    
+    /**
+     * The mapped payloads of the layers
+     */
+    private final ByteBuffer payloads[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param types The types of the layers
+     * @param payloads The payloads of the layers
+     */
+    private HexagonMapFile(HexagonGridRegion region, 
+        int types[], ByteBuffer payloads[])
+    {
+        this.region = region;
+        this.types = types;
+        this.payloads = payloads;
+    }
+    
+    /**
+     * Open the file at the given path. This reads the header, and maps
+     * the payloads of all layers into memory.
+     * 
+     * @param path The path
+     * @return The {@link HexagonMapFile}
+     * @throws IOException If the file can not be read, or does not 
+     * contain valid data of a supported version
+     */
+    public static HexagonMapFile open(Path path) throws IOException
+    {
+        try (FileChannel channel = 
+            FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            ByteBuffer header = read(channel, 0, HEADER_SIZE, size);
+            if (header.getInt() != MAGIC)
+            {
+                throw new IOException("Not a hexagon map file: " + path);
+            }
+            int version = header.getInt();
+            if (version < 1 || version > VERSION)
+            {
+                throw new IOException(
+                    "Unsupported version " + version + " in " + path);
+            }
+            int flags = header.getInt();
+            int numLayers = header.getInt();
+            double radius = header.getDouble();
+            int minX = header.getInt();
+            int minY = header.getInt();
+            int width = header.getInt();
+            int height = header.getInt();
+            if (numLayers < 0 || !(radius > 0) || width < 0 || height < 0 ||
+                (long)width * height > Integer.MAX_VALUE)
+            {
+                throw new IOException("Invalid header in " + path);
+            }
+            HexagonGrid hexagonGrid = HexagonGrids.create(radius, 
+                (flags & FLAG_VERTICAL) != 0, 
+                (flags & FLAG_EVEN_SHIFTED) != 0);
+            HexagonGridRegion region = new HexagonGridRegion(
+                hexagonGrid, minX, minY, width, height);
+            
+            ByteBuffer table = read(channel, HEADER_SIZE, 
+                (long)numLayers * LAYER_ENTRY_SIZE, size);
+            int types[] = new int[numLayers];
+            ByteBuffer payloads[] = new ByteBuffer[numLayers];
+            for (int i = 0; i < numLayers; i++)
+            {
+                int type = table.getInt();
+                table.getInt();
+                long offset = table.getLong();
+                if (type < TYPE_INT || type > TYPE_DOUBLE)
+                {
+                    throw new IOException(
+                        "Invalid type " + type + " of layer " + i + 
+                        " in " + path);
+                }
+                long length = (long)region.getNumCells() * sizeOf(type);
+                if (offset < 0 || offset + length > size)
+                {
+                    throw new IOException(
+                        "Layer " + i + " exceeds the size of " + path);
+                }
+                if (length > Integer.MAX_VALUE)
+                {
+                    throw new IOException(
+                        "Layer " + i + " is too large to be mapped");
+                }
+                types[i] = type;
+                payloads[i] = channel.map(MapMode.READ_ONLY, offset, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new HexagonMapFile(region, types, payloads);
+        }
+    }
+    
+    /**
+     * Read the specified part of the given channel into a buffer
+     * 
+     * @param channel The channel
+     * @param position The position
+     * @param length The length
+     * @param size The size of the channel
+     * @return The buffer, prepared for reading
+     * @throws IOException If the channel is too small, or an IO error
+     * occurs
+     */
+    private static ByteBuffer read(FileChannel channel, 
+        long position, long length, long size) throws IOException
+    {
+        if (position + length > size || length > Integer.MAX_VALUE)
+        {
+            throw new IOException("Unexpected end of file");
+        }
+        ByteBuffer buffer = 
+            ByteBuffer.allocate((int)length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * Returns the size of one value of the given layer type, in bytes
+     * 
+     * @param type The type
+     * @return The size
+     */
+    static int sizeOf(int type)
+    {
+        return type == TYPE_DOUBLE ? Double.BYTES : Integer.BYTES;
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this file
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Returns the number of layers in this file
+     * 
+     * @return The number of layers
+     */
+    public int getNumLayers()
+    {
+        return types.length;
+    }
+    
+    /**
+     * Returns the type of the given layer. This is one of 
+     * {@link #TYPE_INT}, {@link #TYPE_FLOAT} or {@link #TYPE_DOUBLE}.
+     * 
+     * @param layer The layer
+     * @return The type
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     */
+    public int getLayerType(int layer)
+    {
+        return types[validLayer(layer)];
+    }
+    
+    /**
+     * Returns a new read-only view on the payload of the given layer. 
+     * The buffer has little-endian byte order.
+     * 
+     * @param layer The layer
+     * @return The buffer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     */
+    public ByteBuffer getLayerBuffer(int layer)
+    {
+        return payloads[validLayer(layer)].asReadOnlyBuffer()
+            .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Returns a new read-only view on the values of the given layer, 
+     * which must have the type {@link #TYPE_INT}
+     * 
+     * @param layer The layer
+     * @return The buffer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public IntBuffer getIntLayer(int layer)
+    {
+        return validPayload(layer, TYPE_INT).asIntBuffer();
+    }
+    
+    /**
+     * Returns a new read-only view on the values of the given layer, 
+     * which must have the type {@link #TYPE_FLOAT}
+     * 
+     * @param layer The layer
+     * @return The buffer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public FloatBuffer getFloatLayer(int layer)
+    {
+        return validPayload(layer, TYPE_FLOAT).asFloatBuffer();
+    }
+    
+    /**
+     * Returns a new read-only view on the values of the given layer, 
+     * which must have the type {@link #TYPE_DOUBLE}
+     * 
+     * @param layer The layer
+     * @return The buffer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public DoubleBuffer getDoubleLayer(int layer)
+    {
+        return validPayload(layer, TYPE_DOUBLE).asDoubleBuffer();
+    }
+    
+    /**
+     * Creates a new {@link HexagonIntMap} that contains the values of
+     * the given layer, which must have the type {@link #TYPE_INT}
+     * 
+     * @param layer The layer
+     * @return The {@link HexagonIntMap}
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public HexagonIntMap readIntMap(int layer)
+    {
+        IntBuffer buffer = getIntLayer(layer);
+        HexagonIntMap map = new HexagonIntMap(region);
+        buffer.get(map.getValues());
+        return map;
+    }
+    
+    /**
+     * Creates a new {@link HexagonFloatMap} that contains the values of
+     * the given layer, which must have the type {@link #TYPE_FLOAT}
+     * 
+     * @param layer The layer
+     * @return The {@link HexagonFloatMap}
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public HexagonFloatMap readFloatMap(int layer)
+    {
+        FloatBuffer buffer = getFloatLayer(layer);
+        HexagonFloatMap map = new HexagonFloatMap(region);
+        buffer.get(map.getValues());
+        return map;
+    }
+    
+    /**
+     * Creates a new {@link HexagonDoubleMap} that contains the values of
+     * the given layer, which must have the type {@link #TYPE_DOUBLE}
+     * 
+     * @param layer The layer
+     * @return The {@link HexagonDoubleMap}
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    public HexagonDoubleMap readDoubleMap(int layer)
+    {
+        DoubleBuffer buffer = getDoubleLayer(layer);
+        HexagonDoubleMap map = new HexagonDoubleMap(region);
+        buffer.get(map.getValues());
+        return map;
+    }
+    
+    /**
+     * Returns a new read-only view on the payload of the given layer,
+     * after checking that it has the given type
+     * 
+     * @param layer The layer
+     * @param type The expected type
+     * @return The buffer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     * @throws IllegalArgumentException If the layer has a different type
+     */
+    private ByteBuffer validPayload(int layer, int type)
+    {
+        if (getLayerType(layer) != type)
+        {
+            throw new IllegalArgumentException(
+                "Layer " + layer + " has type " + types[layer] + 
+                ", expected " + type);
+        }
+        return getLayerBuffer(layer);
+    }
+    
+    /**
+     * Make sure that the given layer index is valid
+     * 
+     * @param layer The layer
+     * @return The layer
+     * @throws IndexOutOfBoundsException If the layer is negative or not
+     * smaller than the {@link #getNumLayers() number of layers}
+     */
+    private int validLayer(int layer)
+    {
+        if (layer < 0 || layer >= types.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Layer must be in [0," + types.length + "), but is " + layer);
+        }
+        return layer;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "HexagonMapFile[region=" + region + 
+            ", numLayers=" + types.length + "]";
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class for writing the per-cell data of a {@link HexagonGridRegion}
+ * into a file that can be opened as a {@link HexagonMapFile}.<br>
+ * <br>
+ * The maps that are added as layers are not copied. Their values are 
+ * only read when the file is {@link #write(Path) written}. The payloads
+ * are written through a <code>FileChannel</code>, in chunks of 
+ * {@link #CHUNK_SIZE} bytes, so that writing does not require a copy of
+ * a whole layer in memory.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class HexagonMapFileWriter
+{
+    /**
+     * The size of the chunks in which the payloads are written, in bytes
+     */
+    public static final int CHUNK_SIZE = 1 << 20;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The layout flags of the grid
+     */
+    private final int flags;
+    
+    /**
+     * The types of the layers
+     */
+    private final List<Integer> types;
+    
+    /**
+     * The arrays that store the values of the layers
+     */
+    private final List<Object> layers;
+    
+    /**
+     * Creates a new writer for the given region. The {@link HexagonGrid}
+     * of the region must have been created with 
+     * {@link HexagonGrids#create(double, boolean, boolean)}.
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @throws IllegalArgumentException If the grid of the region was
+     * not created with {@link HexagonGrids#create}
+     */
+    public HexagonMapFileWriter(HexagonGridRegion region)
+    {
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        int flags = 0;
+        if (HexagonGrids.isVertical(hexagonGrid))
+        {
+            flags |= HexagonMapFile.FLAG_VERTICAL;
+        }
+        if (HexagonGrids.isEvenShifted(hexagonGrid))
+        {
+            flags |= HexagonMapFile.FLAG_EVEN_SHIFTED;
+        }
+        this.region = region;
+        this.flags = flags;
+        this.types = new ArrayList<Integer>();
+        this.layers = new ArrayList<Object>();
+    }
+    
+    /**
+     * Add the given map as the next layer
+     * 
+     * @param map The {@link HexagonIntMap}
+     * @throws IllegalArgumentException If the region of the given map
+     * does not cover the same cells as the region of this writer
+     */
+    public void addLayer(HexagonIntMap map)
+    {
+        validateRegion(map.getRegion());
+        types.add(HexagonMapFile.TYPE_INT);
+        layers.add(map.getValues());
+    }
+    
+    /**
+     * Add the given map as the next layer
+     * 
+     * @param map The {@link HexagonFloatMap}
+     * @throws IllegalArgumentException If the region of the given map
+     * does not cover the same cells as the region of this writer
+     */
+    public void addLayer(HexagonFloatMap map)
+    {
+        validateRegion(map.getRegion());
+        types.add(HexagonMapFile.TYPE_FLOAT);
+        layers.add(map.getValues());
+    }
+    
+    /**
+     * Add the given map as the next layer
+     * 
+     * @param map The {@link HexagonDoubleMap}
+     * @throws IllegalArgumentException If the region of the given map
+     * does not cover the same cells as the region of this writer
+     */
+    public void addLayer(HexagonDoubleMap map)
+    {
+        validateRegion(map.getRegion());
+        types.add(HexagonMapFile.TYPE_DOUBLE);
+        layers.add(map.getValues());
+    }
+    
+    /**
+     * Write the header and all layers that have been added to the file 
+     * at the given path. An existing file will be overwritten.
+     * 
+     * @param path The path
+     * @throws IOException If an IO error occurs
+     */
+    public void write(Path path) throws IOException
+    {
+        int numLayers = types.size();
+        int numCells = region.getNumCells();
+        int headerLength = HexagonMapFile.HEADER_SIZE + 
+            numLayers * HexagonMapFile.LAYER_ENTRY_SIZE;
+        ByteBuffer header = 
+            ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(HexagonMapFile.MAGIC);
+        header.putInt(HexagonMapFile.VERSION);
+        header.putInt(flags);
+        header.putInt(numLayers);
+        header.putDouble(region.getHexagonGrid().getHexagon().getRadius());
+        header.putInt(region.getMinX());
+        header.putInt(region.getMinY());
+        header.putInt(region.getWidth());
+        header.putInt(region.getHeight());
+        long offset = headerLength;
+        for (int i = 0; i < numLayers; i++)
+        {
+            int type = types.get(i);
+            header.putInt(type);
+            header.putInt(0);
+            header.putLong(offset);
+            long length = (long)numCells * HexagonMapFile.sizeOf(type);
+            offset += (length + 7) & ~7L;
+        }
+        header.flip();
+        
+        try (FileChannel channel = FileChannel.open(path, 
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            writeFully(channel, header);
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < numLayers; i++)
+            {
+                int type = types.get(i);
+                Object layer = layers.get(i);
+                int chunkCells = CHUNK_SIZE / HexagonMapFile.sizeOf(type);
+                for (int start = 0; start < numCells; start += chunkCells)
+                {
+                    int length = Math.min(chunkCells, numCells - start);
+                    chunk.clear();
+                    if (type == HexagonMapFile.TYPE_INT)
+                    {
+                        chunk.asIntBuffer().put((int[])layer, start, length);
+                        chunk.limit(length * Integer.BYTES);
+                    }
+                    else if (type == HexagonMapFile.TYPE_FLOAT)
+                    {
+                        chunk.asFloatBuffer().put(
+                            (float[])layer, start, length);
+                        chunk.limit(length * Float.BYTES);
+                    }
+                    else
+                    {
+                        chunk.asDoubleBuffer().put(
+                            (double[])layer, start, length);
+                        chunk.limit(length * Double.BYTES);
+                    }
+                    writeFully(channel, chunk);
+                }
+                long length = (long)numCells * HexagonMapFile.sizeOf(type);
+                int padding = (int)(((length + 7) & ~7L) - length);
+                if (padding > 0)
+                {
+                    writeFully(channel, ByteBuffer.allocate(padding));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write all remaining bytes of the given buffer to the given channel
+     * 
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+        throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Make sure that the given region covers the same cells as the 
+     * region of this writer
+     * 
+     * @param other The other region
+     * @throws IllegalArgumentException If the regions differ
+     */
+    private void validateRegion(HexagonGridRegion other)
+    {
+        if (other.getMinX() != region.getMinX() || 
+            other.getMinY() != region.getMinY() ||
+            other.getWidth() != region.getWidth() ||
+            other.getHeight() != region.getHeight())
+        {
+            throw new IllegalArgumentException(
+                "Expected a map for " + region + ", but got one for " + 
+                other);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * An A* path finder for the cells of a {@link HexagonGridRegion}.<br>
+ * <br>
+ * The costs for entering the cells are given by a {@link CellCostFunction}.
+ * The heuristic is the {@link HexagonGrid#computeStepsDistance steps 
+ * distance}, multiplied with the minimum cost for entering a cell. This
+ * heuristic is admissible as long as the cost function does not return 
+ * values that are smaller than this minimum cost.<br>
+ * <br>
+ * All data structures that are required for the search are allocated
+ * once, and reused for subsequent searches. The result of the latest 
+ * search is stored in this instance, and may be obtained with 
+ * {@link #getPathLength()}, {@link #getPathX(int)} and 
+ * {@link #getPathY(int)}.<br>
+ * <br>
+ * This class is not thread-safe. Each thread has to use its own instance.
+ */
+public final class HexagonPathFinder
+{
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The {@link CellCostFunction}
+     */
+    private final CellCostFunction costFunction;
+    
+    /**
+     * The minimum cost for entering a cell
+     */
+    private final double minimumCost;
+    
+    /**
+     * The heap for the open set
+     */
+    private final IndexedDoubleHeap heap;
+    
+    /**
+     * The costs of the best known paths to the cells
+     */
+    private final double costs[];
+    
+    /**
+     * The predecessors of the cells on the best known paths
+     */
+    private final int predecessors[];
+    
+    /**
+     * The generation in which the cost of each cell was set. If this
+     * is not the current generation, then the cell was not visited yet.
+     */
+    private final int visited[];
+
+    /**
+     * The generation in which each cell was closed
+     */
+    private final int closed[];
+    
+    /**
+     * The current generation, which is incremented for each search
+     */
+    private int generation;
+    
+    /**
+     * The indices of the cells of the path that was found
+     */
+    private int path[];
+    
+    /**
+     * The length of the path that was found
+     */
+    private int pathLength;
+    
+    /**
+     * The cost of the path that was found
+     */
+    private double pathCost;
+    
+    /**
+     * Creates a new path finder
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param costFunction The {@link CellCostFunction}
+     * @param minimumCost The minimum cost for entering a cell
+     * @throws IllegalArgumentException If the minimum cost is negative
+     */
+    public HexagonPathFinder(HexagonGridRegion region, 
+        CellCostFunction costFunction, double minimumCost)
+    {
+        if (!(minimumCost >= 0))
+        {
+            throw new IllegalArgumentException(
+                "The minimum cost must be nonnegative, but is " + minimumCost);
+        }
+        this.region = region;
+        this.costFunction = costFunction;
+        this.minimumCost = minimumCost;
+        int numCells = region.getNumCells();
+        this.heap = new IndexedDoubleHeap(numCells);
+        this.costs = new double[numCells];
+        this.predecessors = new int[numCells];
+        this.visited = new int[numCells];
+        this.closed = new int[numCells];
+        this.generation = 0;
+        this.path = new int[16];
+        this.pathLength = 0;
+        this.pathCost = Double.POSITIVE_INFINITY;
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this path finder
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Try to find a path between the cells with the given offset 
+     * coordinates. If a path is found, then it may afterwards be 
+     * obtained from this instance. 
+     * 
+     * @param startX The x-coordinate of the start cell
+     * @param startY The y-coordinate of the start cell
+     * @param goalX The x-coordinate of the goal cell
+     * @param goalY The y-coordinate of the goal cell
+     * @return Whether a path was found
+     * @throws IndexOutOfBoundsException If the start or goal cell is not
+     * contained in the {@link #getRegion() region}
+     */
+    public boolean findPath(int startX, int startY, int goalX, int goalY)
+    {
+        int start = validIndex(startX, startY);
+        int goal = validIndex(goalX, goalY);
+        
+        nextGeneration();
+        heap.clear();
+        pathLength = 0;
+        pathCost = Double.POSITIVE_INFINITY;
+        
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        NeighborOffsets neighborOffsets = region.getNeighborOffsets();
+        
+        costs[start] = 0.0;
+        predecessors[start] = -1;
+        visited[start] = generation;
+        double h = minimumCost * 
+            hexagonGrid.computeStepsDistance(startX, startY, goalX, goalY);
+        heap.insertOrDecrease(start, h);
+        while (!heap.isEmpty())
+        {
+            int current = heap.poll();
+            if (current == goal)
+            {
+                storePath(goal);
+                return true;
+            }
+            closed[current] = generation;
+            
+            int x = region.getX(current);
+            int y = region.getY(current);
+            int parity = neighborOffsets.getParity(x, y);
+            double currentCost = costs[current];
+            for (int d = 0; d < 6; d++)
+            {
+                int nx = x + neighborOffsets.getDx(parity, d);
+                int ny = y + neighborOffsets.getDy(parity, d);
+                int neighbor = region.getIndex(nx, ny);
+                if (neighbor < 0 || closed[neighbor] == generation)
+                {
+                    continue;
+                }
+                double stepCost = costFunction.getCost(nx, ny);
+                if (!(stepCost < Double.POSITIVE_INFINITY))
+                {
+                    continue;
+                }
+                double newCost = currentCost + stepCost;
+                if (visited[neighbor] == generation && 
+                    newCost >= costs[neighbor])
+                {
+                    continue;
+                }
+                visited[neighbor] = generation;
+                costs[neighbor] = newCost;
+                predecessors[neighbor] = current;
+                double nh = minimumCost * 
+                    hexagonGrid.computeStepsDistance(nx, ny, goalX, goalY);
+                heap.insertOrDecrease(neighbor, newCost + nh);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the number of cells in the path that was found in the 
+     * latest call to {@link #findPath}, including the start and the
+     * goal cell. If no path was found, then this is 0.
+     * 
+     * @return The path length
+     */
+    public int getPathLength()
+    {
+        return pathLength;
+    }
+    
+    /**
+     * Returns the x-coordinate of the cell with the given index in the
+     * path that was found in the latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The x-coordinate
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathX(int index)
+    {
+        return region.getX(getPathIndex(index));
+    }
+    
+    /**
+     * Returns the y-coordinate of the cell with the given index in the
+     * path that was found in the latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The y-coordinate
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathY(int index)
+    {
+        return region.getY(getPathIndex(index));
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion#getIndex(int, int) region index}
+     * of the cell with the given index in the path that was found in the 
+     * latest call to {@link #findPath}
+     * 
+     * @param index The index, in [0, pathLength)
+     * @return The region index of the cell
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public int getPathIndex(int index)
+    {
+        if (index < 0 || index >= pathLength)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + pathLength + "), but is " + index);
+        }
+        return path[index];
+    }
+    
+    /**
+     * Returns the total cost of the path that was found in the latest
+     * call to {@link #findPath}. This is the sum of the costs for 
+     * entering all cells of the path, except for the start cell. If no 
+     * path was found, then this is <code>Double.POSITIVE_INFINITY</code>.
+     * 
+     * @return The path cost
+     */
+    public double getPathCost()
+    {
+        return pathCost;
+    }
+    
+    /**
+     * Store the path that ends at the given cell
+     * 
+     * @param goal The goal cell
+     */
+    private void storePath(int goal)
+    {
+        int length = 0;
+        for (int c = goal; c != -1; c = predecessors[c])
+        {
+            length++;
+        }
+        if (path.length < length)
+        {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        int i = length - 1;
+        for (int c = goal; c != -1; c = predecessors[c])
+        {
+            path[i] = c;
+            i--;
+        }
+        pathLength = length;
+        pathCost = costs[goal];
+    }
+    
+    /**
+     * Start a new generation. This implicitly resets the visited and
+     * closed states of all cells.
+     */
+    private void nextGeneration()
+    {
+        if (generation == Integer.MAX_VALUE)
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(closed, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+    
+    /**
+     * Returns the index of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The index
+     * @throws IndexOutOfBoundsException If the cell is not contained
+     * in the {@link #getRegion() region}
+     */
+    private int validIndex(int x, int y)
+    {
+        int index = region.getIndex(x, y);
+        if (index < 0)
+        {
+            throw new IndexOutOfBoundsException(
+                "Cell (" + x + "," + y + ") is not contained in " + region);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A class for rasterizing the cells of a {@link HexagonGridRegion} 
+ * directly into an array of ARGB pixels.<br>
+ * <br>
+ * The color of each cell is taken from an <code>int</code> array that 
+ * contains one ARGB value for each cell of the region, at the 
+ * {@link HexagonGridRegion#getIndex(int, int) index} of the cell. 
+ * The colors are written into the pixels without blending. Pixels that
+ * are not covered by any cell of the region remain unmodified.<br>
+ * <br>
+ * The target pixels are divided into tiles of 
+ * {@link #TILE_SIZE}x{@link #TILE_SIZE} pixels, and the tiles are
+ * rendered in parallel, in a <code>ForkJoinPool</code>. In each tile,
+ * the hexagons are filled with one horizontal span per pixel row.<br>
+ * <br>
+ * A pixel is covered by a hexagon when the center of the pixel is 
+ * inside the hexagon. Pixel centers that are exactly on the left or
+ * upper boundary of a hexagon are considered to be inside, and pixel 
+ * centers on the right or lower boundary are considered to be outside.
+ * This is the rule that is applied when filling the shape of the 
+ * hexagon with a <code>Graphics2D</code> that does not use antialiasing
+ * and uses the <code>STROKE_PURE</code> stroke control hint. So adjacent
+ * hexagons do not overlap, and there are no gaps between them. (Note 
+ * that the <code>Graphics2D</code> internally rounds the coordinates 
+ * to a sub-pixel precision. So for pixels whose center is closer than
+ * 1/256 pixel to the boundary of a hexagon, the result may differ 
+ * from that of the <code>Graphics2D</code>).
+ */
+public final class HexagonRasterizer
+{
+    /**
+     * The width and height of the tiles, in pixels
+     */
+    public static final int TILE_SIZE = 64;
+    
+    /**
+     * The {@link HexagonGridRegion}
+     */
+    private final HexagonGridRegion region;
+    
+    /**
+     * The pool for the parallel computations
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The corners of the hexagon, relative to its center, as
+     * returned by {@link Hexagon#getCorners(double[])}
+     */
+    private final double corners[];
+    
+    /**
+     * The minimum y-coordinate of the corners, relative to the center
+     */
+    private final double minCornerY;
+
+    /**
+     * The maximum y-coordinate of the corners, relative to the center
+     */
+    private final double maxCornerY;
+    
+    /**
+     * Creates a new rasterizer that uses the common pool for the parallel
+     * computations
+     * 
+     * @param region The {@link HexagonGridRegion}
+     */
+    public HexagonRasterizer(HexagonGridRegion region)
+    {
+        this(region, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new rasterizer
+     * 
+     * @param region The {@link HexagonGridRegion}
+     * @param pool The pool for the parallel computations
+     */
+    public HexagonRasterizer(HexagonGridRegion region, ForkJoinPool pool)
+    {
+        this.region = region;
+        this.pool = pool;
+        this.corners = region.getHexagonGrid().getHexagon().getCorners(null);
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 6; i++)
+        {
+            minY = Math.min(minY, corners[i * 2 + 1]);
+            maxY = Math.max(maxY, corners[i * 2 + 1]);
+        }
+        this.minCornerY = minY;
+        this.maxCornerY = maxY;
+    }
+    
+    /**
+     * Returns the {@link HexagonGridRegion} of this rasterizer
+     * 
+     * @return The {@link HexagonGridRegion}
+     */
+    public HexagonGridRegion getRegion()
+    {
+        return region;
+    }
+    
+    /**
+     * Rasterize the cells of the region into the given image. The pixel 
+     * at (0,0) of the image corresponds to the point (originX, originY) 
+     * of the grid. The image must have the type 
+     * <code>TYPE_INT_ARGB</code>, <code>TYPE_INT_ARGB_PRE</code> or 
+     * <code>TYPE_INT_RGB</code>. The given colors are written into 
+     * the pixels without any conversion. The image may be a sub-image
+     * of another image, as returned by 
+     * <code>BufferedImage#getSubimage</code>.
+     *  
+     * @param colors The colors of the cells
+     * @param originX The x-coordinate of the origin
+     * @param originY The y-coordinate of the origin
+     * @param image The target image
+     * @throws IllegalArgumentException If the image does not have one
+     * of the supported types
+     * @throws IllegalArgumentException If the given colors array is
+     * shorter than the {@link HexagonGridRegion#getNumCells() number of
+     * cells} of the region
+     */
+    public void render(int colors[], 
+        double originX, double originY, BufferedImage image)
+    {
+        int type = image.getType();
+        if (type != BufferedImage.TYPE_INT_ARGB && 
+            type != BufferedImage.TYPE_INT_ARGB_PRE &&
+            type != BufferedImage.TYPE_INT_RGB)
+        {
+            throw new IllegalArgumentException(
+                "The image type must be TYPE_INT_ARGB, TYPE_INT_ARGB_PRE " + 
+                "or TYPE_INT_RGB, but is " + type);
+        }
+        WritableRaster raster = image.getRaster();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        SinglePixelPackedSampleModel sampleModel = 
+            (SinglePixelPackedSampleModel)raster.getSampleModel();
+        int pixels[] = ((DataBufferInt)dataBuffer).getData();
+        
+        // The raster of a sub-image shares the data buffer of its parent,
+        // and its pixel (0,0) is at the negated sample model translation
+        int offset = dataBuffer.getOffset() + sampleModel.getOffset(
+            -raster.getSampleModelTranslateX(), 
+            -raster.getSampleModelTranslateY());
+        render(colors, originX, originY, pixels, 
+            offset, sampleModel.getScanlineStride(), 
+            image.getWidth(), image.getHeight());
+    }
+    
+    /**
+     * Rasterize the cells of the region into the given pixels. The 
+     * pixel at (px,py) is stored at 
+     * <code>pixels[offset + py * scanlineStride + px]</code>, and 
+     * corresponds to the point (originX + px, originY + py) of the grid.
+     *  
+     * @param colors The colors of the cells
+     * @param originX The x-coordinate of the origin
+     * @param originY The y-coordinate of the origin
+     * @param pixels The target pixels
+     * @param offset The offset of the first pixel in the given array
+     * @param scanlineStride The scanline stride
+     * @param width The width of the target, in pixels
+     * @param height The height of the target, in pixels
+     * @throws IllegalArgumentException If the given colors array is
+     * shorter than the {@link HexagonGridRegion#getNumCells() number of
+     * cells} of the region
+     * @throws IndexOutOfBoundsException If the given pixels array is
+     * too short for the given size
+     */
+    public void render(int colors[], double originX, double originY, 
+        int pixels[], int offset, int scanlineStride, int width, int height)
+    {
+        if (colors.length < region.getNumCells())
+        {
+            throw new IllegalArgumentException(
+                "Expected at least " + region.getNumCells() + 
+                " colors, but got " + colors.length);
+        }
+        if (width <= 0 || height <= 0)
+        {
+            return;
+        }
+        long last = offset + (long)(height - 1) * scanlineStride + width;
+        if (offset < 0 || scanlineStride < width || last > pixels.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "The pixels array with length " + pixels.length + 
+                " is too short for " + width + "x" + height + 
+                " pixels with offset " + offset + 
+                " and scanline stride " + scanlineStride);
+        }
+        int numTilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int numTilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        ParallelRanges.run(pool, 0, numTilesX * numTilesY, 1, 
+            (start, end) -> 
+        {
+            for (int t = start; t < end; t++)
+            {
+                int tileMinX = (t % numTilesX) * TILE_SIZE;
+                int tileMinY = (t / numTilesX) * TILE_SIZE;
+                int tileMaxX = Math.min(width, tileMinX + TILE_SIZE);
+                int tileMaxY = Math.min(height, tileMinY + TILE_SIZE);
+                renderTile(colors, originX, originY, 
+                    pixels, offset, scanlineStride, 
+                    tileMinX, tileMinY, tileMaxX, tileMaxY);
+            }
+        });
+    }
+    
+    /**
+     * Rasterize all cells that intersect the given tile into the tile
+     * 
+     * @param colors The colors of the cells
+     * @param originX The x-coordinate of the origin
+     * @param originY The y-coordinate of the origin
+     * @param pixels The target pixels
+     * @param offset The offset of the first pixel in the given array
+     * @param scanlineStride The scanline stride
+     * @param tileMinX The minimum x-coordinate of the tile, inclusive
+     * @param tileMinY The minimum y-coordinate of the tile, inclusive
+     * @param tileMaxX The maximum x-coordinate of the tile, exclusive
+     * @param tileMaxY The maximum y-coordinate of the tile, exclusive
+     */
+    private void renderTile(int colors[], double originX, double originY, 
+        int pixels[], int offset, int scanlineStride, 
+        int tileMinX, int tileMinY, int tileMaxX, int tileMaxY)
+    {
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        Rectangle2D tile = new Rectangle2D.Double(
+            originX + tileMinX, originY + tileMinY, 
+            tileMaxX - tileMinX, tileMaxY - tileMinY);
+        int range[] = new int[4];
+        HexagonGrids.computeCandidateRange(hexagonGrid, tile, range);
+        int minX = Math.max(range[0], region.getMinX());
+        int minY = Math.max(range[1], region.getMinY());
+        int maxX = Math.min(range[2], 
+            region.getMinX() + region.getWidth() - 1);
+        int maxY = Math.min(range[3], 
+            region.getMinY() + region.getHeight() - 1);
+        Point2D center = new Point2D.Double();
+        double cornersX[] = new double[6];
+        double cornersY[] = new double[6];
+        for (int y = minY; y <= maxY; y++)
+        {
+            for (int x = minX; x <= maxX; x++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                double centerY = center.getY() - originY;
+                int minPy = Math.max(tileMinY, 
+                    (int)Math.ceil(centerY + minCornerY - 0.5));
+                int maxPy = Math.min(tileMaxY, 
+                    (int)Math.ceil(centerY + maxCornerY - 0.5));
+                if (minPy >= maxPy)
+                {
+                    continue;
+                }
+                for (int i = 0; i < 6; i++)
+                {
+                    cornersX[i] = 
+                        corners[i * 2 + 0] + center.getX() - originX;
+                    cornersY[i] = 
+                        corners[i * 2 + 1] + center.getY() - originY;
+                }
+                int color = colors[region.getIndex(x, y)];
+                for (int py = minPy; py < maxPy; py++)
+                {
+                    fillSpan(cornersX, cornersY, py, color, 
+                        pixels, offset + py * scanlineStride, 
+                        tileMinX, tileMaxX);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Fill the span of the given pixel row that is covered by the 
+     * hexagon with the given corners
+     * 
+     * @param cornersX The x-coordinates of the corners
+     * @param cornersY The y-coordinates of the corners
+     * @param py The pixel row
+     * @param color The color
+     * @param pixels The target pixels
+     * @param rowOffset The offset of the first pixel of the row
+     * @param tileMinX The minimum x-coordinate of the tile, inclusive
+     * @param tileMaxX The maximum x-coordinate of the tile, exclusive
+     */
+    private static void fillSpan(double cornersX[], double cornersY[], 
+        int py, int color, int pixels[], int rowOffset,
+        int tileMinX, int tileMaxX)
+    {
+        double sampleY = py + 0.5;
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        for (int i = 0; i < 6; i++)
+        {
+            int j = i == 5 ? 0 : i + 1;
+            double y0 = cornersY[i];
+            double y1 = cornersY[j];
+            if (y0 == y1)
+            {
+                continue;
+            }
+            double x0 = cornersX[i];
+            double x1 = cornersX[j];
+            if (y0 > y1)
+            {
+                double t = y0; y0 = y1; y1 = t;
+                t = x0; x0 = x1; x1 = t;
+            }
+            if (sampleY < y0 || sampleY >= y1)
+            {
+                continue;
+            }
+            double x = x0 + (sampleY - y0) * (x1 - x0) / (y1 - y0);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+        }
+        if (minX > maxX)
+        {
+            return;
+        }
+        int minPx = Math.max(tileMinX, (int)Math.ceil(minX - 0.5));
+        int maxPx = Math.min(tileMaxX, (int)Math.ceil(maxX - 0.5));
+        if (minPx < maxPx)
+        {
+            Arrays.fill(pixels, rowOffset + minPx, rowOffset + maxPx, color);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A lightweight implementation of the <code>Shape</code> interface for
+ * a {@link Hexagon} at a certain center.<br>
+ * <br>
+ * The shape refers to the corner coordinates of the hexagon, which 
+ * are only fetched once. The center may be changed with 
+ * {@link #setCenter(double, double)}, so that a single instance may be 
+ * reused for painting many cells of a grid:
+ * <pre><code>
+ * HexagonShape shape = new HexagonShape(hexagonGrid.getHexagon());
+ * for (...)
+ * {
+ *     hexagonGrid.getCenter(x, y, center);
+ *     shape.setCenter(center);
+ *     g.fill(shape);
+ * }
+ * </code></pre>
+ * The path iterators that are returned by this shape are not affected
+ * by subsequent changes of the center.
+ */
+public final class HexagonShape implements Shape
+{
+    /**
+     * The corners of the hexagon, relative to its center, as
+     * returned by {@link Hexagon#getCorners(double[])}
+     */
+    private final double corners[];
+    
+    /**
+     * The minimum x-coordinate of the corners, relative to the center
+     */
+    private final double minX;
+
+    /**
+     * The minimum y-coordinate of the corners, relative to the center
+     */
+    private final double minY;
+
+    /**
+     * The maximum x-coordinate of the corners, relative to the center
+     */
+    private final double maxX;
+
+    /**
+     * The maximum y-coordinate of the corners, relative to the center
+     */
+    private final double maxY;
+    
+    /**
+     * The x-coordinate of the center
+     */
+    private double centerX;
+    
+    /**
+     * The y-coordinate of the center
+     */
+    private double centerY;
+    
+    /**
+     * Creates a new shape for the given {@link Hexagon}, centered at
+     * the origin
+     * 
+     * @param hexagon The {@link Hexagon}
+     */
+    public HexagonShape(Hexagon hexagon)
+    {
+        this.corners = hexagon.getCorners(null);
+        double x0 = Double.MAX_VALUE;
+        double y0 = Double.MAX_VALUE;
+        double x1 = -Double.MAX_VALUE;
+        double y1 = -Double.MAX_VALUE;
+        for (int i=0; i<6; i++)
+        {
+            x0 = Math.min(x0, corners[i*2+0]);
+            y0 = Math.min(y0, corners[i*2+1]);
+            x1 = Math.max(x1, corners[i*2+0]);
+            y1 = Math.max(y1, corners[i*2+1]);
+        }
+        this.minX = x0;
+        this.minY = y0;
+        this.maxX = x1;
+        this.maxY = y1;
+    }
+    
+    /**
+     * Set the center of this shape
+     * 
+     * @param x The x-coordinate of the center
+     * @param y The y-coordinate of the center
+     */
+    public void setCenter(double x, double y)
+    {
+        this.centerX = x;
+        this.centerY = y;
+    }
+    
+    /**
+     * Set the center of this shape
+     * 
+     * @param center The center
+     */
+    public void setCenter(Point2D center)
+    {
+        setCenter(center.getX(), center.getY());
+    }
+    
+    /**
+     * Returns the x-coordinate of the center of this shape
+     * 
+     * @return The x-coordinate of the center
+     */
+    public double getCenterX()
+    {
+        return centerX;
+    }
+    
+    /**
+     * Returns the y-coordinate of the center of this shape
+     * 
+     * @return The y-coordinate of the center
+     */
+    public double getCenterY()
+    {
+        return centerY;
+    }
+    
+    @Override
+    public Rectangle getBounds()
+    {
+        return getBounds2D().getBounds();
+    }
+
+    @Override
+    public Rectangle2D getBounds2D()
+    {
+        return new Rectangle2D.Double(
+            centerX + minX, centerY + minY, maxX - minX, maxY - minY);
+    }
+
+    @Override
+    public boolean contains(double x, double y)
+    {
+        double px = x - centerX;
+        double py = y - centerY;
+        for (int i=0; i<6; i++)
+        {
+            int j = (i + 1) % 6;
+            double x0 = corners[i*2+0];
+            double y0 = corners[i*2+1];
+            double x1 = corners[j*2+0];
+            double y1 = corners[j*2+1];
+            double cross = (x1 - x0) * (py - y0) - (y1 - y0) * (px - x0);
+            if (cross < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Point2D p)
+    {
+        return contains(p.getX(), p.getY());
+    }
+
+    @Override
+    public boolean intersects(double x, double y, double w, double h)
+    {
+        if (w <= 0 || h <= 0)
+        {
+            return false;
+        }
+        double rx0 = x - centerX;
+        double ry0 = y - centerY;
+        double rx1 = rx0 + w;
+        double ry1 = ry0 + h;
+        if (rx1 <= minX || rx0 >= maxX || ry1 <= minY || ry0 >= maxY)
+        {
+            return false;
+        }
+        
+        // Check whether one of the normals of the edges of the 
+        // hexagon is a separating axis. Opposite edges have the 
+        // same normal, so only three edges have to be checked.
+        for (int i=0; i<3; i++)
+        {
+            int j = i + 1;
+            double nx = -(corners[j*2+1] - corners[i*2+1]);
+            double ny = corners[j*2+0] - corners[i*2+0];
+            double hexMin = Double.MAX_VALUE;
+            double hexMax = -Double.MAX_VALUE;
+            for (int k=0; k<6; k++)
+            {
+                double d = nx * corners[k*2+0] + ny * corners[k*2+1];
+                hexMin = Math.min(hexMin, d);
+                hexMax = Math.max(hexMax, d);
+            }
+            double d0 = nx * rx0 + ny * ry0;
+            double d1 = nx * rx1 + ny * ry0;
+            double d2 = nx * rx0 + ny * ry1;
+            double d3 = nx * rx1 + ny * ry1;
+            double rectMin = Math.min(Math.min(d0, d1), Math.min(d2, d3));
+            double rectMax = Math.max(Math.max(d0, d1), Math.max(d2, d3));
+            if (rectMax <= hexMin || rectMin >= hexMax)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean intersects(Rectangle2D r)
+    {
+        return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    @Override
+    public boolean contains(double x, double y, double w, double h)
+    {
+        if (w <= 0 || h <= 0)
+        {
+            return false;
+        }
+        return contains(x, y) && contains(x + w, y) && 
+            contains(x, y + h) && contains(x + w, y + h);
+    }
+
+    @Override
+    public boolean contains(Rectangle2D r)
+    {
+        return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at)
+    {
+        return new HexagonPathIterator(corners, centerX, centerY, at);
+    }
+
+    @Override
+    public PathIterator getPathIterator(AffineTransform at, double flatness)
+    {
+        return getPathIterator(at);
+    }
+    
+    /**
+     * Implementation of a path iterator for a {@link HexagonShape}
+     */
+    private static final class HexagonPathIterator implements PathIterator
+    {
+        /**
+         * The corners, relative to the center
+         */
+        private final double corners[];
+        
+        /**
+         * The x-coordinate of the center
+         */
+        private final double centerX;
+
+        /**
+         * The y-coordinate of the center
+         */
+        private final double centerY;
+        
+        /**
+         * The optional transform
+         */
+        private final AffineTransform at;
+        
+        /**
+         * The current segment index
+         */
+        private int index;
+        
+        /**
+         * Creates a new iterator
+         * 
+         * @param corners The corners
+         * @param centerX The x-coordinate of the center
+         * @param centerY The y-coordinate of the center
+         * @param at The optional transform
+         */
+        HexagonPathIterator(double corners[], 
+            double centerX, double centerY, AffineTransform at)
+        {
+            this.corners = corners;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.at = at;
+        }
+        
+        @Override
+        public int getWindingRule()
+        {
+            return WIND_NON_ZERO;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return index > 6;
+        }
+
+        @Override
+        public void next()
+        {
+            index++;
+        }
+
+        @Override
+        public int currentSegment(float[] coords)
+        {
+            if (index == 6)
+            {
+                return SEG_CLOSE;
+            }
+            coords[0] = (float)(corners[index*2+0] + centerX);
+            coords[1] = (float)(corners[index*2+1] + centerY);
+            if (at != null)
+            {
+                at.transform(coords, 0, coords, 0, 1);
+            }
+            return index == 0 ? SEG_MOVETO : SEG_LINETO;
+        }
+
+        @Override
+        public int currentSegment(double[] coords)
+        {
+            if (index == 6)
+            {
+                return SEG_CLOSE;
+            }
+            coords[0] = corners[index*2+0] + centerX;
+            coords[1] = corners[index*2+1] + centerY;
+            if (at != null)
+            {
+                at.transform(coords, 0, coords, 0, 1);
+            }
+            return index == 0 ? SEG_MOVETO : SEG_LINETO;
+        }
+    }
+}
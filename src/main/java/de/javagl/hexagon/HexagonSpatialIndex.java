@@ -0,0 +1,810 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A spatial index that maps entities with continuous positions to the 
+ * cells of a {@link HexagonGrid}.<br>
+ * <br>
+ * Entities are identified by non-negative <code>int</code> IDs. Each 
+ * entity is assigned to the cell that contains its position, as
+ * determined with {@link HexagonGrid#getCell(double, double, Point)}. 
+ * The IDs of the entities in each cell are stored in a primitive 
+ * <code>int</code> array for the cell. Moving an entity only updates 
+ * the arrays of the cells that it leaves and enters. When a cell 
+ * becomes empty, its array is released and reused for the next cell 
+ * that is entered, so that the memory requirements depend on the 
+ * number of occupied cells, and not on the number of cells that have
+ * ever been visited.<br>
+ * <br>
+ * Range queries and nearest-neighbor queries visit the cells in rings 
+ * of increasing radius around the cell that contains the query point,
+ * using cube coordinates. Cells whose center is too far away from the 
+ * center of this cell, according to 
+ * {@link HexagonGrid#computeSquaredCentersDistance}, are skipped, and 
+ * the positions of the entities in the remaining cells are checked 
+ * exactly.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class HexagonSpatialIndex
+{
+    /**
+     * The initial capacity of the array for the entities in one cell
+     */
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    
+    /**
+     * The {@link HexagonGrid}
+     */
+    private final HexagonGrid hexagonGrid;
+    
+    /**
+     * The radius of the hexagons of the grid
+     */
+    private final double hexagonRadius;
+    
+    /**
+     * The mapping from packed offset coordinates of cells to the
+     * indices of their buckets
+     */
+    private final LongIntHashMap cellBuckets;
+    
+    /**
+     * The packed offset coordinates of the cell of each bucket
+     */
+    private long bucketCells[];
+    
+    /**
+     * The IDs of the entities in each bucket
+     */
+    private int bucketEntities[][];
+    
+    /**
+     * The number of entities in each bucket
+     */
+    private int bucketSizes[];
+    
+    /**
+     * The number of buckets
+     */
+    private int numBuckets;
+    
+    /**
+     * The x-coordinates of the entities
+     */
+    private double entityX[];
+    
+    /**
+     * The y-coordinates of the entities
+     */
+    private double entityY[];
+    
+    /**
+     * The bucket of each entity, or -1 for IDs that are not contained
+     */
+    private int entityBuckets[];
+    
+    /**
+     * The position of each entity in its bucket
+     */
+    private int entitySlots[];
+    
+    /**
+     * The number of entities
+     */
+    private int size;
+    
+    /**
+     * A point for the cell computations
+     */
+    private final Point cell;
+    
+    /**
+     * The buckets of the cells of the ring that was visited last, as
+     * collected by {@link #collectRingBuckets(int, int, int)}
+     */
+    private int ringBuckets[];
+    
+    /**
+     * The number of valid elements in the ring buckets array
+     */
+    private int numRingBuckets;
+    
+    /**
+     * The consumer that collects the ring buckets
+     */
+    private final CellConsumer ringBucketCollector;
+    
+    /**
+     * The IDs of the entities in the heap of the k-nearest query
+     */
+    private int nearestIds[];
+    
+    /**
+     * The squared distances in the heap of the k-nearest query
+     */
+    private double nearestDistances[];
+    
+    /**
+     * Creates a new, empty spatial index
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     */
+    public HexagonSpatialIndex(HexagonGrid hexagonGrid)
+    {
+        this.hexagonGrid = hexagonGrid;
+        this.hexagonRadius = hexagonGrid.getHexagon().getRadius();
+        this.cellBuckets = new LongIntHashMap();
+        this.bucketCells = new long[16];
+        this.bucketEntities = new int[16][];
+        this.bucketSizes = new int[16];
+        this.entityX = new double[16];
+        this.entityY = new double[16];
+        this.entityBuckets = new int[16];
+        this.entitySlots = new int[16];
+        Arrays.fill(entityBuckets, -1);
+        this.cell = new Point();
+        this.ringBuckets = new int[6];
+        this.ringBucketCollector = this::collectRingBucket;
+        this.nearestIds = new int[0];
+        this.nearestDistances = new double[0];
+    }
+    
+    /**
+     * Returns the {@link HexagonGrid} of this index
+     * 
+     * @return The {@link HexagonGrid}
+     */
+    public HexagonGrid getHexagonGrid()
+    {
+        return hexagonGrid;
+    }
+    
+    /**
+     * Returns the number of entities in this index
+     * 
+     * @return The number of entities
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns whether the entity with the given ID is contained in 
+     * this index
+     * 
+     * @param id The ID
+     * @return Whether the entity is contained
+     */
+    public boolean contains(int id)
+    {
+        return id >= 0 && id < entityBuckets.length && entityBuckets[id] >= 0;
+    }
+    
+    /**
+     * Add the entity with the given ID at the given position
+     * 
+     * @param id The ID
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @throws IllegalArgumentException If the ID is negative, or the
+     * entity is already contained in this index
+     */
+    public void add(int id, double x, double y)
+    {
+        if (id < 0)
+        {
+            throw new IllegalArgumentException(
+                "The ID may not be negative, but is " + id);
+        }
+        if (contains(id))
+        {
+            throw new IllegalArgumentException(
+                "The entity " + id + " is already contained");
+        }
+        ensureEntityCapacity(id + 1);
+        entityX[id] = x;
+        entityY[id] = y;
+        hexagonGrid.getCell(x, y, cell);
+        insert(id, obtainBucket(PackedCoordinates.pack(cell.x, cell.y)));
+        size++;
+    }
+    
+    /**
+     * Move the entity with the given ID to the given position
+     * 
+     * @param id The ID
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @throws IllegalArgumentException If the entity is not contained 
+     * in this index
+     */
+    public void move(int id, double x, double y)
+    {
+        int oldBucket = validBucket(id);
+        entityX[id] = x;
+        entityY[id] = y;
+        hexagonGrid.getCell(x, y, cell);
+        long newCell = PackedCoordinates.pack(cell.x, cell.y);
+        if (bucketCells[oldBucket] == newCell)
+        {
+            return;
+        }
+        delete(id, oldBucket);
+        insert(id, obtainBucket(newCell));
+    }
+    
+    /**
+     * Remove the entity with the given ID from this index
+     * 
+     * @param id The ID
+     * @throws IllegalArgumentException If the entity is not contained 
+     * in this index
+     */
+    public void remove(int id)
+    {
+        int bucket = validBucket(id);
+        delete(id, bucket);
+        entityBuckets[id] = -1;
+        size--;
+    }
+    
+    /**
+     * Remove all entities from this index
+     */
+    public void clear()
+    {
+        Arrays.fill(entityBuckets, -1);
+        Arrays.fill(bucketSizes, 0, numBuckets, 0);
+        cellBuckets.clear();
+        numBuckets = 0;
+        size = 0;
+    }
+    
+    /**
+     * Returns the x-coordinate of the entity with the given ID
+     * 
+     * @param id The ID
+     * @return The x-coordinate
+     * @throws IllegalArgumentException If the entity is not contained 
+     * in this index
+     */
+    public double getX(int id)
+    {
+        validBucket(id);
+        return entityX[id];
+    }
+
+    /**
+     * Returns the y-coordinate of the entity with the given ID
+     * 
+     * @param id The ID
+     * @return The y-coordinate
+     * @throws IllegalArgumentException If the entity is not contained 
+     * in this index
+     */
+    public double getY(int id)
+    {
+        validBucket(id);
+        return entityY[id];
+    }
+    
+    /**
+     * Returns the number of entities in the cell with the given offset 
+     * coordinates
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @return The number of entities
+     */
+    public int getNumEntitiesInCell(int x, int y)
+    {
+        int bucket = cellBuckets.get(PackedCoordinates.pack(x, y), -1);
+        if (bucket < 0)
+        {
+            return 0;
+        }
+        return bucketSizes[bucket];
+    }
+    
+    /**
+     * Pass the IDs of all entities in the cell with the given offset 
+     * coordinates to the given consumer. The consumer may not modify
+     * this index.
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param consumer The consumer
+     */
+    public void forEachInCell(int x, int y, IntConsumer consumer)
+    {
+        int bucket = cellBuckets.get(PackedCoordinates.pack(x, y), -1);
+        if (bucket < 0)
+        {
+            return;
+        }
+        int entities[] = bucketEntities[bucket];
+        int n = bucketSizes[bucket];
+        for (int i = 0; i < n; i++)
+        {
+            consumer.accept(entities[i]);
+        }
+    }
+    
+    /**
+     * Pass the IDs of all entities in cells that have a distance of at 
+     * most the given number of steps from the cell with the given offset 
+     * coordinates to the given consumer. The cells are visited in rings
+     * of increasing distance. The consumer may not modify or query 
+     * this index.
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     * @param steps The maximum number of steps
+     * @param consumer The consumer
+     */
+    public void forEachInRange(int x, int y, int steps, IntConsumer consumer)
+    {
+        hexagonGrid.convertOffsetToCubeCoordinates(x, y, cell);
+        int cx = cell.x;
+        int cy = cell.y;
+        for (int r = 0; r <= steps; r++)
+        {
+            int numRingBuckets = collectRingBuckets(cx, cy, r);
+            for (int i = 0; i < numRingBuckets; i++)
+            {
+                int bucket = ringBuckets[i];
+                int entities[] = bucketEntities[bucket];
+                int n = bucketSizes[bucket];
+                for (int j = 0; j < n; j++)
+                {
+                    consumer.accept(entities[j]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Pass the IDs of all entities whose position has a distance of at 
+     * most the given radius from the given point to the given consumer.
+     * The consumer may not modify or query this index.
+     * 
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @param radius The radius
+     * @param consumer The consumer
+     */
+    public void forEachWithinDistance(
+        double x, double y, double radius, IntConsumer consumer)
+    {
+        if (size == 0 || radius < 0)
+        {
+            return;
+        }
+        hexagonGrid.getCell(x, y, cell);
+        int centerX = cell.x;
+        int centerY = cell.y;
+        
+        // The position of an entity in a cell has a distance of at most
+        // the hexagon radius from the center of the cell, and the same 
+        // holds for the query point in the center cell.
+        double maxCenterDistance = radius + 2 * hexagonRadius;
+        double maxSquaredCenterDistance = 
+            maxCenterDistance * maxCenterDistance;
+        double squaredRadius = radius * radius;
+        int maxRing = computeMaxRing(maxCenterDistance);
+        
+        hexagonGrid.convertOffsetToCubeCoordinates(centerX, centerY, cell);
+        int cx = cell.x;
+        int cy = cell.y;
+        for (int r = 0; r <= maxRing; r++)
+        {
+            int numRingBuckets = collectRingBuckets(cx, cy, r);
+            for (int i = 0; i < numRingBuckets; i++)
+            {
+                int bucket = ringBuckets[i];
+                long offset = bucketCells[bucket];
+                if (hexagonGrid.computeSquaredCentersDistance(
+                        centerX, centerY, 
+                        PackedCoordinates.unpackX(offset), 
+                        PackedCoordinates.unpackY(offset)) > 
+                    maxSquaredCenterDistance)
+                {
+                    continue;
+                }
+                int entities[] = bucketEntities[bucket];
+                int n = bucketSizes[bucket];
+                for (int j = 0; j < n; j++)
+                {
+                    int id = entities[j];
+                    double dx = entityX[id] - x;
+                    double dy = entityY[id] - y;
+                    if (dx * dx + dy * dy <= squaredRadius)
+                    {
+                        consumer.accept(id);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Computes the IDs of the (at most) <code>k</code> entities whose 
+     * positions are closest to the given point, and writes them into 
+     * the given array, sorted by increasing distance. 
+     * 
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @param k The maximum number of entities
+     * @param result The array that will store the result
+     * @return The number of entities that have been written into the
+     * given array. This is the minimum of <code>k</code> and the 
+     * {@link #size() size} of this index.
+     * @throws IndexOutOfBoundsException If the array is shorter than
+     * this number
+     */
+    public int computeNearest(double x, double y, int k, int result[])
+    {
+        int maxCount = Math.min(k, size);
+        if (maxCount <= 0)
+        {
+            return 0;
+        }
+        if (nearestIds.length < maxCount)
+        {
+            nearestIds = new int[maxCount];
+            nearestDistances = new double[maxCount];
+        }
+        hexagonGrid.getCell(x, y, cell);
+        int centerX = cell.x;
+        int centerY = cell.y;
+        hexagonGrid.convertOffsetToCubeCoordinates(centerX, centerY, cell);
+        int cx = cell.x;
+        int cy = cell.y;
+        int count = 0;
+        int numVisited = 0;
+        for (int r = 0; numVisited < size; r++)
+        {
+            // Each point in the cells of ring r has a distance of at 
+            // least (1.5 * r - 1) * hexagonRadius from the center of the 
+            // center cell, and the query point has a distance of at most 
+            // hexagonRadius from this center
+            if (count == maxCount)
+            {
+                double minDistance = (1.5 * r - 2.0) * hexagonRadius;
+                if (minDistance > 0 && 
+                    minDistance * minDistance > nearestDistances[0])
+                {
+                    break;
+                }
+            }
+            int numRingBuckets = collectRingBuckets(cx, cy, r);
+            for (int i = 0; i < numRingBuckets; i++)
+            {
+                int bucket = ringBuckets[i];
+                int entities[] = bucketEntities[bucket];
+                int n = bucketSizes[bucket];
+                numVisited += n;
+                for (int j = 0; j < n; j++)
+                {
+                    int id = entities[j];
+                    double dx = entityX[id] - x;
+                    double dy = entityY[id] - y;
+                    double distance = dx * dx + dy * dy;
+                    if (count < maxCount)
+                    {
+                        heapPush(count, id, distance);
+                        count++;
+                    }
+                    else if (distance < nearestDistances[0])
+                    {
+                        nearestIds[0] = id;
+                        nearestDistances[0] = distance;
+                        heapSiftDown(0, count);
+                    }
+                }
+            }
+        }
+        
+        // Extract the entries from the max-heap, from the back
+        for (int n = count; n > 0; n--)
+        {
+            result[n - 1] = nearestIds[0];
+            nearestIds[0] = nearestIds[n - 1];
+            nearestDistances[0] = nearestDistances[n - 1];
+            heapSiftDown(0, n - 1);
+        }
+        return count;
+    }
+    
+    /**
+     * Collect the buckets of the cells in the ring with the given radius
+     * around the cell with the given cube coordinates in the 
+     * {@link #ringBuckets} array, and return their number
+     * 
+     * @param cx The x-coordinate of the center cell
+     * @param cy The y-coordinate of the center cell
+     * @param radius The radius
+     * @return The number of buckets
+     */
+    private int collectRingBuckets(int cx, int cy, int radius)
+    {
+        int ringSize = CubeCoordinates.computeRingSize(radius);
+        if (ringBuckets.length < ringSize)
+        {
+            ringBuckets = new int[ringSize];
+        }
+        numRingBuckets = 0;
+        CubeCoordinates.forEachInRing(cx, cy, radius, ringBucketCollector);
+        return numRingBuckets;
+    }
+    
+    /**
+     * Add the bucket of the cell with the given cube coordinates to the
+     * ring buckets, if the cell has a bucket
+     * 
+     * @param cx The x-coordinate of the cell
+     * @param cy The y-coordinate of the cell
+     */
+    private void collectRingBucket(int cx, int cy)
+    {
+        long offset = hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+            PackedCoordinates.pack(cx, cy));
+        int bucket = cellBuckets.get(offset, -1);
+        if (bucket >= 0)
+        {
+            ringBuckets[numRingBuckets] = bucket;
+            numRingBuckets++;
+        }
+    }
+    
+    /**
+     * Computes the largest radius of a ring that may contain cells whose 
+     * centers have at most the given distance from the center of the
+     * center cell of the ring
+     * 
+     * @param distance The distance
+     * @return The ring radius
+     */
+    private int computeMaxRing(double distance)
+    {
+        // The centers of the cells of ring r have a distance of at 
+        // least 1.5 * r * hexagonRadius from the center
+        return (int)Math.floor(distance / (1.5 * hexagonRadius));
+    }
+    
+    /**
+     * Push the given entry into the max-heap of the k-nearest query
+     * 
+     * @param count The current number of entries in the heap
+     * @param id The ID
+     * @param distance The squared distance
+     */
+    private void heapPush(int count, int id, double distance)
+    {
+        int i = count;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (nearestDistances[parent] >= distance)
+            {
+                break;
+            }
+            nearestIds[i] = nearestIds[parent];
+            nearestDistances[i] = nearestDistances[parent];
+            i = parent;
+        }
+        nearestIds[i] = id;
+        nearestDistances[i] = distance;
+    }
+    
+    /**
+     * Restore the max-heap property for the heap of the k-nearest query,
+     * starting at the given index
+     * 
+     * @param index The index
+     * @param count The number of entries in the heap
+     */
+    private void heapSiftDown(int index, int count)
+    {
+        int id = nearestIds[index];
+        double distance = nearestDistances[index];
+        int i = index;
+        while (true)
+        {
+            int child = i * 2 + 1;
+            if (child >= count)
+            {
+                break;
+            }
+            if (child + 1 < count && 
+                nearestDistances[child + 1] > nearestDistances[child])
+            {
+                child++;
+            }
+            if (nearestDistances[child] <= distance)
+            {
+                break;
+            }
+            nearestIds[i] = nearestIds[child];
+            nearestDistances[i] = nearestDistances[child];
+            i = child;
+        }
+        nearestIds[i] = id;
+        nearestDistances[i] = distance;
+    }
+    
+    /**
+     * Returns the bucket for the cell with the given packed offset 
+     * coordinates, creating it if necessary
+     * 
+     * @param cell The packed offset coordinates of the cell
+     * @return The bucket
+     */
+    private int obtainBucket(long cell)
+    {
+        int bucket = cellBuckets.get(cell, -1);
+        if (bucket >= 0)
+        {
+            return bucket;
+        }
+        if (numBuckets == bucketSizes.length)
+        {
+            int newLength = numBuckets * 2;
+            bucketCells = Arrays.copyOf(bucketCells, newLength);
+            bucketEntities = Arrays.copyOf(bucketEntities, newLength);
+            bucketSizes = Arrays.copyOf(bucketSizes, newLength);
+        }
+        bucket = numBuckets;
+        numBuckets++;
+        bucketCells[bucket] = cell;
+        if (bucketEntities[bucket] == null)
+        {
+            bucketEntities[bucket] = new int[INITIAL_CELL_CAPACITY];
+        }
+        cellBuckets.put(cell, bucket);
+        return bucket;
+    }
+    
+    /**
+     * Release the given bucket, which must be empty, by moving the last
+     * bucket to its position. The array of the released bucket is kept
+     * for reuse.
+     * 
+     * @param bucket The bucket
+     */
+    private void releaseBucket(int bucket)
+    {
+        cellBuckets.remove(bucketCells[bucket], -1);
+        int last = numBuckets - 1;
+        if (bucket != last)
+        {
+            int entities[] = bucketEntities[last];
+            int n = bucketSizes[last];
+            bucketEntities[last] = bucketEntities[bucket];
+            bucketSizes[last] = 0;
+            bucketCells[bucket] = bucketCells[last];
+            bucketEntities[bucket] = entities;
+            bucketSizes[bucket] = n;
+            cellBuckets.put(bucketCells[bucket], bucket);
+            for (int i = 0; i < n; i++)
+            {
+                entityBuckets[entities[i]] = bucket;
+            }
+        }
+        numBuckets = last;
+    }
+    
+    /**
+     * Insert the given entity into the given bucket
+     * 
+     * @param id The ID
+     * @param bucket The bucket
+     */
+    private void insert(int id, int bucket)
+    {
+        int n = bucketSizes[bucket];
+        int entities[] = bucketEntities[bucket];
+        if (n == entities.length)
+        {
+            entities = Arrays.copyOf(entities, n * 2);
+            bucketEntities[bucket] = entities;
+        }
+        entities[n] = id;
+        bucketSizes[bucket] = n + 1;
+        entityBuckets[id] = bucket;
+        entitySlots[id] = n;
+    }
+    
+    /**
+     * Delete the given entity from the given bucket, by replacing it
+     * with the last entity of the bucket. If the bucket becomes empty,
+     * then it is released.
+     * 
+     * @param id The ID
+     * @param bucket The bucket
+     */
+    private void delete(int id, int bucket)
+    {
+        int entities[] = bucketEntities[bucket];
+        int last = bucketSizes[bucket] - 1;
+        int slot = entitySlots[id];
+        int lastId = entities[last];
+        entities[slot] = lastId;
+        entitySlots[lastId] = slot;
+        bucketSizes[bucket] = last;
+        if (last == 0)
+        {
+            releaseBucket(bucket);
+        }
+    }
+    
+    /**
+     * Make sure that the arrays for the entities can store the given
+     * number of entities
+     * 
+     * @param capacity The capacity
+     */
+    private void ensureEntityCapacity(int capacity)
+    {
+        int oldLength = entityBuckets.length;
+        if (capacity <= oldLength)
+        {
+            return;
+        }
+        int newLength = Math.max(capacity, oldLength * 2);
+        entityX = Arrays.copyOf(entityX, newLength);
+        entityY = Arrays.copyOf(entityY, newLength);
+        entityBuckets = Arrays.copyOf(entityBuckets, newLength);
+        entitySlots = Arrays.copyOf(entitySlots, newLength);
+        Arrays.fill(entityBuckets, oldLength, newLength, -1);
+    }
+    
+    /**
+     * Returns the bucket of the entity with the given ID
+     * 
+     * @param id The ID
+     * @return The bucket
+     * @throws IllegalArgumentException If the entity is not contained
+     * in this index
+     */
+    private int validBucket(int id)
+    {
+        if (!contains(id))
+        {
+            throw new IllegalArgumentException(
+                "The entity " + id + " is not contained");
+        }
+        return entityBuckets[id];
+    }
+}
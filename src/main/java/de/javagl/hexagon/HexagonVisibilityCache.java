@@ -0,0 +1,260 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * A cache for the fields of view of multiple observers, based on a 
+ * {@link HexagonFieldOfView}.<br>
+ * <br>
+ * The field of view of each observer is computed lazily, and stored
+ * until it is invalidated. When the opacity of a cell changes, then
+ * {@link #invalidate(int, int)} has to be called. This will only 
+ * invalidate the fields of view of the observers that are close enough 
+ * to the cell to be affected by the change. The invalid fields of 
+ * view may be updated in parallel with {@link #update()}.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class HexagonVisibilityCache
+{
+    /**
+     * The number of observers that are processed by one task when 
+     * updating the fields of view
+     */
+    private static final int OBSERVERS_PER_TASK = 8;
+    
+    /**
+     * The {@link HexagonFieldOfView}
+     */
+    private final HexagonFieldOfView fieldOfView;
+    
+    /**
+     * The radius of the fields of view
+     */
+    private final int radius;
+    
+    /**
+     * The x-coordinates of the observers
+     */
+    private int xs[];
+
+    /**
+     * The y-coordinates of the observers
+     */
+    private int ys[];
+    
+    /**
+     * The fields of view of the observers
+     */
+    private long visible[][];
+    
+    /**
+     * Whether the field of view of each observer is valid
+     */
+    private boolean valid[];
+    
+    /**
+     * The number of observers
+     */
+    private int numObservers;
+    
+    /**
+     * Temporary storage for the observers that have to be updated
+     */
+    private int invalidObservers[];
+    
+    /**
+     * Creates a new cache
+     * 
+     * @param fieldOfView The {@link HexagonFieldOfView}
+     * @param radius The radius of the fields of view
+     */
+    public HexagonVisibilityCache(HexagonFieldOfView fieldOfView, int radius)
+    {
+        this.fieldOfView = fieldOfView;
+        this.radius = radius;
+        this.xs = new int[16];
+        this.ys = new int[16];
+        this.visible = new long[16][];
+        this.valid = new boolean[16];
+        this.invalidObservers = new int[16];
+        this.numObservers = 0;
+    }
+    
+    /**
+     * Returns the number of observers
+     * 
+     * @return The number of observers
+     */
+    public int getNumObservers()
+    {
+        return numObservers;
+    }
+    
+    /**
+     * Add a new observer at the given cell
+     * 
+     * @param x The x-coordinate of the observer
+     * @param y The y-coordinate of the observer
+     * @return The index of the observer
+     */
+    public int addObserver(int x, int y)
+    {
+        if (numObservers == xs.length)
+        {
+            int newLength = xs.length * 2;
+            xs = Arrays.copyOf(xs, newLength);
+            ys = Arrays.copyOf(ys, newLength);
+            visible = Arrays.copyOf(visible, newLength);
+            valid = Arrays.copyOf(valid, newLength);
+            invalidObservers = Arrays.copyOf(invalidObservers, newLength);
+        }
+        int index = numObservers;
+        xs[index] = x;
+        ys[index] = y;
+        visible[index] = CellBitSets.create(fieldOfView.getRegion());
+        valid[index] = false;
+        numObservers++;
+        return index;
+    }
+    
+    /**
+     * Move the observer with the given index to the given cell. 
+     * 
+     * @param index The index of the observer
+     * @param x The x-coordinate of the observer
+     * @param y The y-coordinate of the observer
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public void setObserver(int index, int x, int y)
+    {
+        validate(index);
+        if (xs[index] != x || ys[index] != y)
+        {
+            xs[index] = x;
+            ys[index] = y;
+            valid[index] = false;
+        }
+    }
+    
+    /**
+     * Notify this cache that the opacity of the cell with the given 
+     * offset coordinates has changed. This will invalidate the fields of
+     * view of all observers that are within the radius of the cell.
+     * 
+     * @param x The x-coordinate of the cell
+     * @param y The y-coordinate of the cell
+     */
+    public void invalidate(int x, int y)
+    {
+        HexagonGrid hexagonGrid = fieldOfView.getRegion().getHexagonGrid();
+        for (int i = 0; i < numObservers; i++)
+        {
+            if (valid[i] && 
+                hexagonGrid.computeStepsDistance(xs[i], ys[i], x, y) <= radius)
+            {
+                valid[i] = false;
+            }
+        }
+    }
+    
+    /**
+     * Invalidate the fields of view of all observers
+     */
+    public void invalidateAll()
+    {
+        Arrays.fill(valid, 0, numObservers, false);
+    }
+    
+    /**
+     * Returns the {@link CellBitSets bit set} that describes the field 
+     * of view of the observer with the given index. If the field of view 
+     * is not valid, then it will be computed. The returned array will be
+     * updated by subsequent calls to this method or {@link #update()}, 
+     * and may not be modified by the caller.
+     * 
+     * @param index The index of the observer
+     * @return The field of view
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    public long[] getVisible(int index)
+    {
+        validate(index);
+        if (!valid[index])
+        {
+            fieldOfView.compute(xs[index], ys[index], radius, visible[index]);
+            valid[index] = true;
+        }
+        return visible[index];
+    }
+    
+    /**
+     * Compute all fields of view that are not valid, in parallel
+     */
+    public void update()
+    {
+        int n = 0;
+        for (int i = 0; i < numObservers; i++)
+        {
+            if (!valid[i])
+            {
+                invalidObservers[n] = i;
+                n++;
+            }
+        }
+        ParallelRanges.run(fieldOfView.getPool(), 0, n, 
+            OBSERVERS_PER_TASK, (start, end) -> 
+        {
+            for (int i = start; i < end; i++)
+            {
+                int j = invalidObservers[i];
+                fieldOfView.compute(xs[j], ys[j], radius, visible[j]);
+            }
+        });
+        for (int i = 0; i < n; i++)
+        {
+            valid[invalidObservers[i]] = true;
+        }
+    }
+    
+    /**
+     * Make sure that the given index is a valid observer index
+     * 
+     * @param index The index
+     * @throws IndexOutOfBoundsException If the index is not valid
+     */
+    private void validate(int index)
+    {
+        if (index < 0 || index >= numObservers)
+        {
+            throw new IndexOutOfBoundsException(
+                "Index must be in [0," + numObservers + "), but is " + index);
+        }
+    }
+}
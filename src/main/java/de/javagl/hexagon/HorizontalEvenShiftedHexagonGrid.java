@@ -30,20 +30,27 @@ import java.awt.Point;
 import java.awt.geom.Point2D;
 
 /**
- * Default implementation of a {@link HexagonGrid}
+ * Default implementation of a {@link HexagonGrid}.<br>
+ * <br>
+ * This class is immutable and thread-safe.
  */
 class HorizontalEvenShiftedHexagonGrid implements HexagonGrid
 {
     /**
      * The neighbor offsets
      */
-    private static final int NEIGHBORS[][][] = new int[][][]{
+    static final int NEIGHBORS[][][] = new int[][][]{
         { {+1,  0}, {+1, -1}, { 0, -1},
           {-1,  0}, { 0, +1}, {+1, +1} },
         { {+1,  0}, { 0, -1}, {-1, -1},
           {-1,  0}, {-1, +1}, { 0, +1} }
     };    
 
+    /**
+     * The square root of 3
+     */
+    private static final double SQRT_3 = Math.sqrt(3.0);
+    
     /**
      * The template {@link Hexagon}
      */
@@ -88,10 +95,60 @@ class HorizontalEvenShiftedHexagonGrid implements HexagonGrid
         return p;
     }
 
+    @Override
+    public void getCenters(
+        int x0, int y0, int x1, int y1, double xs[], double ys[])
+    {
+        Hexagon hexagon = getHexagon();
+        double spacingX = hexagon.getSpacingX();
+        double spacingY = hexagon.getSpacingY();
+        double shift = 0.5 * hexagon.getSizeX();
+        
+        int w = x1 - x0;
+        int index = 0;
+        for (int y = y0; y < y1; y++)
+        {
+            // Computed like in getCenter, to obtain the same results
+            double rowShift = ((y & 1) == 0) ? shift : 0.0;
+            double cy = y * spacingY;
+            for (int i = 0; i < w; i++)
+            {
+                xs[index + i] = (x0 + i) * spacingX + rowShift;
+                ys[index + i] = cy;
+            }
+            index += w;
+        }
+    }
+    
+    @Override
+    public Point getCell(double x, double y, Point p)
+    {
+        Hexagon hexagon = getHexagon();
+        double sx = x - 0.5 * hexagon.getSizeX();
+        double r = hexagon.getRadius();
+        double cx = (SQRT_3 / 3.0 * sx - 1.0 / 3.0 * y) / r;
+        double cz = (2.0 / 3.0 * y) / r;
+        p = CubeCoordinates.round(cx, cz, p);
+        return convertCubeToOffsetCoordinates(p.x, p.y, p);
+    }
+    
+    @Override
+    public void getCells(double xs[], double ys[], 
+        int cellXs[], int cellYs[], int count)
+    {
+        Point p = new Point();
+        for (int i = 0; i < count; i++)
+        {
+            getCell(xs[i], ys[i], p);
+            cellXs[i] = p.x;
+            cellYs[i] = p.y;
+        }
+    }
+    
     @Override
     public Point getNeighbor(int x, int y, int direction, Point p)
     {
-        if (direction < 0 || direction > 6)
+        if (direction < 0 || direction >= 6)
         {
             throw new IllegalArgumentException(
                 "Direction must be in [0,6), but is "+direction);
@@ -137,6 +194,43 @@ class HorizontalEvenShiftedHexagonGrid implements HexagonGrid
         return p;
     }
     
+    @Override
+    public long getNeighborPacked(long offset, int direction)
+    {
+        if (direction < 0 || direction >= 6)
+        {
+            throw new IllegalArgumentException(
+                "Direction must be in [0,6), but is "+direction);
+        }
+        int x = PackedCoordinates.unpackX(offset);
+        int y = PackedCoordinates.unpackY(offset);
+        int parity = y & 1;
+        int d[] = NEIGHBORS[parity][direction];
+        return PackedCoordinates.pack(x + d[0], y + d[1]);
+    }
+    
+    @Override
+    public long convertOffsetToCubeCoordinatesPacked(long offset)
+    {
+        int ox = PackedCoordinates.unpackX(offset);
+        int oy = PackedCoordinates.unpackY(offset);
+        int cx = ox - (oy + (oy&1)) / 2;
+        int cz = oy;
+        int cy = -cx-cz;
+        return PackedCoordinates.pack(cx, cy);
+    }
+    
+    @Override
+    public long convertCubeToOffsetCoordinatesPacked(long cube)
+    {
+        int cx = PackedCoordinates.unpackX(cube);
+        int cy = PackedCoordinates.unpackY(cube);
+        int cz = -cx-cy;
+        int ox = cx + (cz + (cz&1)) / 2;
+        int oy = cz;
+        return PackedCoordinates.pack(ox, oy);
+    }
+    
     @Override
     public int computeStepsDistance(int x0, int y0, int x1, int y1)
     {
@@ -0,0 +1,240 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of <code>int</code> elements in a fixed 
+ * range [0, capacity), with <code>double</code> keys. The position of 
+ * each element in the heap is tracked, so that the key of an element 
+ * may be decreased in logarithmic time.
+ */
+class IndexedDoubleHeap
+{
+    /**
+     * The elements, in heap order
+     */
+    private final int elements[];
+    
+    /**
+     * The keys, in heap order
+     */
+    private final double keys[];
+    
+    /**
+     * The position of each element in the heap, or -1 if the element
+     * is not contained in the heap
+     */
+    private final int positions[];
+    
+    /**
+     * The number of elements in the heap
+     */
+    private int size;
+    
+    /**
+     * Creates a new heap for elements in [0, capacity)
+     * 
+     * @param capacity The capacity
+     */
+    IndexedDoubleHeap(int capacity)
+    {
+        this.elements = new int[capacity];
+        this.keys = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+    
+    /**
+     * Returns whether this heap is empty
+     * 
+     * @return Whether this heap is empty
+     */
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    /**
+     * Returns whether the given element is contained in this heap
+     * 
+     * @param element The element
+     * @return Whether the element is contained
+     */
+    boolean contains(int element)
+    {
+        return positions[element] >= 0;
+    }
+    
+    /**
+     * Insert the given element with the given key, or decrease the key
+     * of the element if it is already contained in this heap and the
+     * given key is smaller than its current key.
+     * 
+     * @param element The element
+     * @param key The key
+     */
+    void insertOrDecrease(int element, double key)
+    {
+        int position = positions[element];
+        if (position < 0)
+        {
+            position = size;
+            size++;
+        }
+        else if (key >= keys[position])
+        {
+            return;
+        }
+        siftUp(position, element, key);
+    }
+    
+    /**
+     * Returns the key of the element that is at the top of this heap.
+     * The result is unspecified if the heap is empty.
+     * 
+     * @return The smallest key
+     */
+    double peekKey()
+    {
+        return keys[0];
+    }
+    
+    /**
+     * Remove the element with the smallest key from this heap, and
+     * return it. The result is unspecified if the heap is empty.
+     * 
+     * @return The element
+     */
+    int poll()
+    {
+        int result = elements[0];
+        positions[result] = -1;
+        size--;
+        if (size > 0)
+        {
+            siftDown(0, elements[size], keys[size]);
+        }
+        return result;
+    }
+    
+    /**
+     * Remove all elements from this heap
+     */
+    void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            positions[elements[i]] = -1;
+        }
+        size = 0;
+    }
+    
+    /**
+     * Move the given element with the given key up, starting at the
+     * given position, until the heap property is restored
+     * 
+     * @param position The position
+     * @param element The element
+     * @param key The key
+     */
+    private void siftUp(int position, int element, double key)
+    {
+        int p = position;
+        while (p > 0)
+        {
+            int parent = (p - 1) >>> 1;
+            if (keys[parent] <= key)
+            {
+                break;
+            }
+            move(parent, p);
+            p = parent;
+        }
+        place(p, element, key);
+    }
+    
+    /**
+     * Move the given element with the given key down, starting at the
+     * given position, until the heap property is restored
+     * 
+     * @param position The position
+     * @param element The element
+     * @param key The key
+     */
+    private void siftDown(int position, int element, double key)
+    {
+        int p = position;
+        int half = size >>> 1;
+        while (p < half)
+        {
+            int child = 2 * p + 1;
+            int right = child + 1;
+            if (right < size && keys[right] < keys[child])
+            {
+                child = right;
+            }
+            if (key <= keys[child])
+            {
+                break;
+            }
+            move(child, p);
+            p = child;
+        }
+        place(p, element, key);
+    }
+    
+    /**
+     * Move the entry at the given source position to the given target
+     * position
+     * 
+     * @param source The source position
+     * @param target The target position
+     */
+    private void move(int source, int target)
+    {
+        int element = elements[source];
+        elements[target] = element;
+        keys[target] = keys[source];
+        positions[element] = target;
+    }
+    
+    /**
+     * Place the given element with the given key at the given position
+     * 
+     * @param position The position
+     * @param element The element
+     * @param key The key
+     */
+    private void place(int position, int element, double key)
+    {
+        elements[position] = element;
+        keys[position] = key;
+        positions[element] = position;
+    }
+}
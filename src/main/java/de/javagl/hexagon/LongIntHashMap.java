@@ -0,0 +1,240 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * A simple open-addressing hash map from <code>long</code> keys to 
+ * <code>int</code> values, using linear probing. The key
+ * <code>Long.MIN_VALUE</code> is reserved and may not be used.
+ */
+class LongIntHashMap
+{
+    /**
+     * The key that marks an empty slot
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    /**
+     * The keys
+     */
+    private long keys[];
+    
+    /**
+     * The values
+     */
+    private int values[];
+    
+    /**
+     * The number of entries
+     */
+    private int size;
+    
+    /**
+     * Creates a new, empty map
+     */
+    LongIntHashMap()
+    {
+        this.keys = new long[16];
+        this.values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * Returns the number of entries in this map
+     * 
+     * @return The number of entries
+     */
+    int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns the value for the given key, or the given missing value
+     * if there is no entry for the given key
+     * 
+     * @param key The key
+     * @param missingValue The missing value
+     * @return The value
+     */
+    int get(long key, int missingValue)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true)
+        {
+            long k = keys[slot];
+            if (k == key)
+            {
+                return values[slot];
+            }
+            if (k == EMPTY)
+            {
+                return missingValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Put the given entry into this map
+     * 
+     * @param key The key
+     * @param value The value
+     */
+    void put(long key, int value)
+    {
+        if ((size + 1) * 2 > keys.length)
+        {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true)
+        {
+            long k = keys[slot];
+            if (k == key)
+            {
+                values[slot] = value;
+                return;
+            }
+            if (k == EMPTY)
+            {
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Remove the entry for the given key from this map, and return its
+     * value, or the given missing value if there is no entry for the 
+     * given key
+     * 
+     * @param key The key
+     * @param missingValue The missing value
+     * @return The value
+     */
+    int remove(long key, int missingValue)
+    {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true)
+        {
+            long k = keys[slot];
+            if (k == key)
+            {
+                break;
+            }
+            if (k == EMPTY)
+            {
+                return missingValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int value = values[slot];
+        
+        // Move the following entries of the probe sequence into the gap,
+        // unless the gap is before their home slot
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (true)
+        {
+            long k = keys[next];
+            if (k == EMPTY)
+            {
+                break;
+            }
+            int home = hash(k) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask))
+            {
+                keys[gap] = k;
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return value;
+    }
+    
+    /**
+     * Remove all entries from this map
+     */
+    void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+    
+    /**
+     * Rehash this map to have the given capacity
+     * 
+     * @param capacity The new capacity, as a power of 2
+     */
+    private void rehash(int capacity)
+    {
+        long oldKeys[] = keys;
+        int oldValues[] = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            long key = oldKeys[i];
+            if (key != EMPTY)
+            {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Computes the hash of the given key
+     * 
+     * @param key The key
+     * @return The hash
+     */
+    private static int hash(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.awt.Point;
+
+/**
+ * Package-private class summarizing the neighbor offsets of a 
+ * {@link HexagonGrid}, in offset coordinates.<br>
+ * <br>
+ * For the default grid implementations, this refers to the same
+ * tables that are used by the {@link HexagonGrid#getNeighbor} methods.
+ */
+class NeighborOffsets
+{
+    /**
+     * Returns the {@link NeighborOffsets} for the given {@link HexagonGrid}
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return The {@link NeighborOffsets}
+     */
+    static NeighborOffsets of(HexagonGrid hexagonGrid)
+    {
+        if (hexagonGrid instanceof VerticalEvenShiftedHexagonGrid)
+        {
+            return new NeighborOffsets(
+                VerticalEvenShiftedHexagonGrid.NEIGHBORS, true);
+        }
+        if (hexagonGrid instanceof VerticalOddShiftedHexagonGrid)
+        {
+            return new NeighborOffsets(
+                VerticalOddShiftedHexagonGrid.NEIGHBORS, true);
+        }
+        if (hexagonGrid instanceof HorizontalEvenShiftedHexagonGrid)
+        {
+            return new NeighborOffsets(
+                HorizontalEvenShiftedHexagonGrid.NEIGHBORS, false);
+        }
+        if (hexagonGrid instanceof HorizontalOddShiftedHexagonGrid)
+        {
+            return new NeighborOffsets(
+                HorizontalOddShiftedHexagonGrid.NEIGHBORS, false);
+        }
+        return derive(hexagonGrid);
+    }
+    
+    /**
+     * Derive the {@link NeighborOffsets} for the given {@link HexagonGrid},
+     * using its {@link HexagonGrid#getNeighbor} method
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @return The {@link NeighborOffsets}
+     */
+    private static NeighborOffsets derive(HexagonGrid hexagonGrid)
+    {
+        Point p = new Point();
+        boolean columnParity = false;
+        for (int d=0; d<6; d++)
+        {
+            hexagonGrid.getNeighbor(0, 0, d, p);
+            int dx0 = p.x;
+            int dy0 = p.y;
+            hexagonGrid.getNeighbor(1, 0, d, p);
+            int dx1 = p.x - 1;
+            int dy1 = p.y;
+            if (dx0 != dx1 || dy0 != dy1)
+            {
+                columnParity = true;
+            }
+        }
+        int offsets[][][] = new int[2][6][2];
+        for (int parity=0; parity<2; parity++)
+        {
+            int x = columnParity ? parity : 0;
+            int y = columnParity ? 0 : parity;
+            for (int d=0; d<6; d++)
+            {
+                hexagonGrid.getNeighbor(x, y, d, p);
+                offsets[parity][d][0] = p.x - x;
+                offsets[parity][d][1] = p.y - y;
+            }
+        }
+        return new NeighborOffsets(offsets, columnParity);
+    }
+    
+    /**
+     * The neighbor offsets, indexed by [parity][direction][coordinate]
+     */
+    private final int offsets[][][];
+    
+    /**
+     * Whether the parity is determined by the x-coordinate (column).
+     * Otherwise, it is determined by the y-coordinate (row).
+     */
+    private final boolean columnParity;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param offsets The offsets
+     * @param columnParity Whether the parity is determined by the 
+     * x-coordinate
+     */
+    private NeighborOffsets(int offsets[][][], boolean columnParity)
+    {
+        this.offsets = offsets;
+        this.columnParity = columnParity;
+    }
+    
+    /**
+     * Returns whether the parity of a cell is determined by its 
+     * x-coordinate (which is the case for grids of vertical hexagons). 
+     * Otherwise, it is determined by its y-coordinate.
+     * 
+     * @return Whether the parity is determined by the x-coordinate
+     */
+    boolean isColumnParity()
+    {
+        return columnParity;
+    }
+    
+    /**
+     * Returns the parity of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The parity, 0 or 1
+     */
+    int getParity(int x, int y)
+    {
+        return columnParity ? (x & 1) : (y & 1);
+    }
+    
+    /**
+     * Returns the x-offset of the neighbor in the given direction
+     * 
+     * @param parity The parity
+     * @param direction The direction
+     * @return The offset
+     */
+    int getDx(int parity, int direction)
+    {
+        return offsets[parity][direction][0];
+    }
+
+    /**
+     * Returns the y-offset of the neighbor in the given direction
+     * 
+     * @param parity The parity
+     * @param direction The direction
+     * @return The offset
+     */
+    int getDy(int parity, int direction)
+    {
+        return offsets[parity][direction][1];
+    }
+    
+    /**
+     * Computes the differences between the index of a cell and the 
+     * indices of its neighbors, for an array that stores the cells in 
+     * row-major order, with the given number of elements per row. The 
+     * result is indexed by [parity][direction]. These differences are 
+     * only valid for cells whose neighbors are all contained in the 
+     * array.
+     * 
+     * @param rowStride The number of elements per row
+     * @return The index deltas
+     */
+    int[][] computeIndexDeltas(int rowStride)
+    {
+        int deltas[][] = new int[2][6];
+        for (int parity = 0; parity < 2; parity++)
+        {
+            for (int d = 0; d < 6; d++)
+            {
+                deltas[parity][d] = 
+                    getDy(parity, d) * rowStride + getDx(parity, d);
+            }
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+/**
+ * Methods for packing two <code>int</code> coordinates into a single
+ * <code>long</code> value.<br>
+ * <br>
+ * The x-coordinate is stored in the upper 32 bits, and the y-coordinate 
+ * is stored in the lower 32 bits of the <code>long</code> value. This
+ * allows storing offset coordinates or cube coordinates (where the
+ * z-coordinate is implicitly given as <code>-x-y</code>) in primitive
+ * collections and arrays, without creating <code>Point</code> objects.
+ */
+public class PackedCoordinates
+{
+    /**
+     * Packs the given coordinates into a single <code>long</code> value
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The packed coordinates
+     */
+    public static long pack(int x, int y)
+    {
+        return ((long)x << 32) | (y & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Returns the x-coordinate of the given packed coordinates
+     * 
+     * @param packed The packed coordinates
+     * @return The x-coordinate
+     */
+    public static int unpackX(long packed)
+    {
+        return (int)(packed >> 32);
+    }
+    
+    /**
+     * Returns the y-coordinate of the given packed coordinates
+     * 
+     * @param packed The packed coordinates
+     * @return The y-coordinate
+     */
+    public static int unpackY(long packed)
+    {
+        return (int)packed;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private PackedCoordinates()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Methods for processing ranges of integers in parallel, using a
+ * <code>ForkJoinPool</code>
+ */
+class ParallelRanges
+{
+    /**
+     * Interface for classes that can process a range of integers
+     */
+    interface RangeConsumer
+    {
+        /**
+         * Process the given range
+         * 
+         * @param start The start of the range, inclusive
+         * @param end The end of the range, exclusive
+         */
+        void accept(int start, int end);
+    }
+    
+    /**
+     * Split the given range into parts that are not larger than the
+     * given grain size, and pass these parts to the given consumer,
+     * in the given pool. This method returns when all parts have
+     * been processed.
+     * 
+     * @param pool The pool
+     * @param start The start of the range, inclusive
+     * @param end The end of the range, exclusive
+     * @param grainSize The maximum size of a part
+     * @param consumer The consumer
+     */
+    static void run(ForkJoinPool pool, 
+        int start, int end, int grainSize, RangeConsumer consumer)
+    {
+        if (end <= start)
+        {
+            return;
+        }
+        pool.invoke(new RangeTask(
+            start, end, Math.max(1, grainSize), consumer));
+    }
+    
+    /**
+     * A task that processes a range, by recursively splitting it
+     */
+    private static class RangeTask extends RecursiveAction
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The start of the range, inclusive
+         */
+        private final int start;
+        
+        /**
+         * The end of the range, exclusive
+         */
+        private final int end;
+        
+        /**
+         * The grain size
+         */
+        private final int grainSize;
+        
+        /**
+         * The consumer
+         */
+        private final RangeConsumer consumer;
+        
+        /**
+         * Creates a new task
+         * 
+         * @param start The start of the range, inclusive
+         * @param end The end of the range, exclusive
+         * @param grainSize The grain size
+         * @param consumer The consumer
+         */
+        RangeTask(int start, int end, int grainSize, RangeConsumer consumer)
+        {
+            this.start = start;
+            this.end = end;
+            this.grainSize = grainSize;
+            this.consumer = consumer;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (end - start <= grainSize)
+            {
+                consumer.accept(start, end);
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(
+                new RangeTask(start, middle, grainSize, consumer),
+                new RangeTask(middle, end, grainSize, consumer));
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ParallelRanges()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
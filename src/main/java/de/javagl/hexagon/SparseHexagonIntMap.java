@@ -0,0 +1,417 @@
+/*
+ * www.javagl.de - Hexagon
+ *
+ * Copyright (c) 2013-2015 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.hexagon;
+
+import java.util.Arrays;
+
+/**
+ * A sparse map from the cells of an unbounded {@link HexagonGrid} to 
+ * <code>int</code> values.<br>
+ * <br>
+ * The cells are addressed with cube coordinates internally. The
+ * cube coordinate plane is divided into square chunks of 
+ * {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE} cells. A chunk is only
+ * allocated when a value that is different from the default value
+ * is stored in one of its cells, and it is released when all its 
+ * cells have been set back to the default value. The chunks are 
+ * looked up in an open-addressing hash table, so that accessing a 
+ * cell (including the neighbor of a cell in another chunk) takes 
+ * constant time.
+ */
+public final class SparseHexagonIntMap
+{
+    /**
+     * The number of bits for the coordinates inside a chunk
+     */
+    private static final int CHUNK_SHIFT = 4;
+    
+    /**
+     * The size of a chunk, in each direction
+     */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    
+    /**
+     * The mask for the coordinates inside a chunk
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    /**
+     * The {@link HexagonGrid}
+     */
+    private final HexagonGrid hexagonGrid;
+    
+    /**
+     * The default value
+     */
+    private final int defaultValue;
+    
+    /**
+     * The cube coordinate x-offsets of the neighbors, for each direction
+     */
+    private final int neighborsX[];
+
+    /**
+     * The cube coordinate y-offsets of the neighbors, for each direction
+     */
+    private final int neighborsY[];
+    
+    /**
+     * The mapping from the packed chunk coordinates to the chunk index
+     */
+    private final LongIntHashMap chunkIndices;
+    
+    /**
+     * The packed chunk coordinates, for each chunk index
+     */
+    private long chunkKeys[];
+    
+    /**
+     * The chunk data, for each chunk index
+     */
+    private int chunks[][];
+    
+    /**
+     * The number of cells with a value that is different from the 
+     * default value, for each chunk index
+     */
+    private int chunkCounts[];
+    
+    /**
+     * The number of chunks
+     */
+    private int numChunks;
+    
+    /**
+     * Creates a new map for the given {@link HexagonGrid}
+     * 
+     * @param hexagonGrid The {@link HexagonGrid}
+     * @param defaultValue The value of all cells that have not been set
+     */
+    public SparseHexagonIntMap(HexagonGrid hexagonGrid, int defaultValue)
+    {
+        this.hexagonGrid = hexagonGrid;
+        this.defaultValue = defaultValue;
+        this.neighborsX = new int[6];
+        this.neighborsY = new int[6];
+        for (int d=0; d<6; d++)
+        {
+            long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+                hexagonGrid.getNeighborPacked(0L, d));
+            neighborsX[d] = PackedCoordinates.unpackX(cube);
+            neighborsY[d] = PackedCoordinates.unpackY(cube);
+        }
+        this.chunkIndices = new LongIntHashMap();
+        this.chunkKeys = new long[16];
+        this.chunks = new int[16][];
+        this.chunkCounts = new int[16];
+        this.numChunks = 0;
+    }
+    
+    /**
+     * Returns the {@link HexagonGrid} of this map
+     * 
+     * @return The {@link HexagonGrid}
+     */
+    public HexagonGrid getHexagonGrid()
+    {
+        return hexagonGrid;
+    }
+    
+    /**
+     * Returns the default value of this map
+     * 
+     * @return The default value
+     */
+    public int getDefaultValue()
+    {
+        return defaultValue;
+    }
+    
+    /**
+     * Returns the number of chunks that are currently allocated. This 
+     * is the number of chunks that contain at least one cell with a 
+     * value that is different from the default value.
+     * 
+     * @return The number of chunks
+     */
+    public int getNumChunks()
+    {
+        return numChunks;
+    }
+    
+    /**
+     * Returns the value of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The value
+     */
+    public int get(int x, int y)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        return getCube(
+            PackedCoordinates.unpackX(cube), PackedCoordinates.unpackY(cube));
+    }
+    
+    /**
+     * Set the value of the cell with the given offset coordinates
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param value The value
+     */
+    public void set(int x, int y, int value)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        setCube(PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), value);
+    }
+    
+    /**
+     * Returns the value of the neighbor of the cell with the given offset 
+     * coordinates in the given direction. The directions are the same as 
+     * in {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param direction The direction
+     * @return The value of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getNeighbor(int x, int y, int direction)
+    {
+        long cube = hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+            PackedCoordinates.pack(x, y));
+        return getCubeNeighbor(PackedCoordinates.unpackX(cube), 
+            PackedCoordinates.unpackY(cube), direction);
+    }
+    
+    /**
+     * Returns the value of the cell with the given cube coordinates
+     * 
+     * @param cx The x-coordinate
+     * @param cy The y-coordinate
+     * @return The value
+     */
+    public int getCube(int cx, int cy)
+    {
+        int chunkIndex = chunkIndices.get(chunkKey(cx, cy), -1);
+        if (chunkIndex < 0)
+        {
+            return defaultValue;
+        }
+        return chunks[chunkIndex][localIndex(cx, cy)];
+    }
+    
+    /**
+     * Set the value of the cell with the given cube coordinates
+     * 
+     * @param cx The x-coordinate
+     * @param cy The y-coordinate
+     * @param value The value
+     */
+    public void setCube(int cx, int cy, int value)
+    {
+        long key = chunkKey(cx, cy);
+        int chunkIndex = chunkIndices.get(key, -1);
+        if (chunkIndex < 0)
+        {
+            if (value == defaultValue)
+            {
+                return;
+            }
+            chunkIndex = createChunk(key);
+        }
+        int chunk[] = chunks[chunkIndex];
+        int localIndex = localIndex(cx, cy);
+        int oldValue = chunk[localIndex];
+        if (oldValue == value)
+        {
+            return;
+        }
+        chunk[localIndex] = value;
+        if (oldValue == defaultValue)
+        {
+            chunkCounts[chunkIndex]++;
+        }
+        else if (value == defaultValue)
+        {
+            chunkCounts[chunkIndex]--;
+            if (chunkCounts[chunkIndex] == 0)
+            {
+                releaseChunk(chunkIndex);
+            }
+        }
+    }
+    
+    /**
+     * Returns the value of the neighbor of the cell with the given cube
+     * coordinates in the given direction. The directions are the same as 
+     * in {@link HexagonGrid#getNeighbor}.
+     * 
+     * @param cx The x-coordinate
+     * @param cy The y-coordinate
+     * @param direction The direction
+     * @return The value of the neighbor
+     * @throws IllegalArgumentException If the given direction is not in
+     * the interval [0,6) 
+     */
+    public int getCubeNeighbor(int cx, int cy, int direction)
+    {
+        if (direction < 0 || direction >= 6)
+        {
+            throw new IllegalArgumentException(
+                "Direction must be in [0,6), but is "+direction);
+        }
+        return getCube(cx + neighborsX[direction], cy + neighborsY[direction]);
+    }
+    
+    /**
+     * Pass the offset coordinates and values of all cells that are 
+     * stored in allocated chunks, and whose value is different from 
+     * the default value, to the given consumer. The order in which
+     * the cells are passed to the consumer is unspecified.
+     * 
+     * @param consumer The consumer
+     */
+    public void forEach(CellIntConsumer consumer)
+    {
+        for (int i = 0; i < numChunks; i++)
+        {
+            long key = chunkKeys[i];
+            int cx0 = PackedCoordinates.unpackX(key) << CHUNK_SHIFT;
+            int cy0 = PackedCoordinates.unpackY(key) << CHUNK_SHIFT;
+            int chunk[] = chunks[i];
+            for (int j = 0; j < chunk.length; j++)
+            {
+                int value = chunk[j];
+                if (value != defaultValue)
+                {
+                    int cx = cx0 + (j & CHUNK_MASK);
+                    int cy = cy0 + (j >> CHUNK_SHIFT);
+                    long offset = 
+                        hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                            PackedCoordinates.pack(cx, cy));
+                    consumer.accept(PackedCoordinates.unpackX(offset), 
+                        PackedCoordinates.unpackY(offset), value);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Remove all chunks from this map, so that all cells have the
+     * default value
+     */
+    public void clear()
+    {
+        chunkIndices.clear();
+        Arrays.fill(chunks, 0, numChunks, null);
+        Arrays.fill(chunkCounts, 0, numChunks, 0);
+        numChunks = 0;
+    }
+    
+    /**
+     * Create a new chunk with the given key
+     * 
+     * @param key The key
+     * @return The index of the new chunk
+     */
+    private int createChunk(long key)
+    {
+        if (numChunks == chunks.length)
+        {
+            int newLength = chunks.length * 2;
+            chunks = Arrays.copyOf(chunks, newLength);
+            chunkKeys = Arrays.copyOf(chunkKeys, newLength);
+            chunkCounts = Arrays.copyOf(chunkCounts, newLength);
+        }
+        int chunk[] = new int[CHUNK_SIZE * CHUNK_SIZE];
+        if (defaultValue != 0)
+        {
+            Arrays.fill(chunk, defaultValue);
+        }
+        int chunkIndex = numChunks;
+        chunks[chunkIndex] = chunk;
+        chunkKeys[chunkIndex] = key;
+        chunkIndices.put(key, chunkIndex);
+        numChunks++;
+        return chunkIndex;
+    }
+    
+    /**
+     * Release the chunk with the given index, which only contains cells
+     * with the default value. The last chunk will be moved to the given
+     * index.
+     * 
+     * @param chunkIndex The chunk index
+     */
+    private void releaseChunk(int chunkIndex)
+    {
+        chunkIndices.remove(chunkKeys[chunkIndex], -1);
+        int last = numChunks - 1;
+        if (chunkIndex != last)
+        {
+            chunks[chunkIndex] = chunks[last];
+            chunkKeys[chunkIndex] = chunkKeys[last];
+            chunkCounts[chunkIndex] = chunkCounts[last];
+            chunkIndices.put(chunkKeys[chunkIndex], chunkIndex);
+        }
+        chunks[last] = null;
+        chunkCounts[last] = 0;
+        numChunks--;
+    }
+    
+    /**
+     * Returns the packed coordinates of the chunk that contains the
+     * cell with the given cube coordinates
+     * 
+     * @param cx The x-coordinate
+     * @param cy The y-coordinate
+     * @return The chunk key
+     */
+    private static long chunkKey(int cx, int cy)
+    {
+        return PackedCoordinates.pack(cx >> CHUNK_SHIFT, cy >> CHUNK_SHIFT);
+    }
+    
+    /**
+     * Returns the index of the cell with the given cube coordinates 
+     * inside its chunk
+     * 
+     * @param cx The x-coordinate
+     * @param cy The y-coordinate
+     * @return The local index
+     */
+    private static int localIndex(int cx, int cy)
+    {
+        return ((cy & CHUNK_MASK) << CHUNK_SHIFT) | (cx & CHUNK_MASK);
+    }
+}
@@ -30,20 +30,27 @@ import java.awt.Point;
 import java.awt.geom.Point2D;
 
 /**
- * Default implementation of a {@link HexagonGrid}
+ * Default implementation of a {@link HexagonGrid}.<br>
+ * <br>
+ * This class is immutable and thread-safe.
  */
 class VerticalOddShiftedHexagonGrid implements HexagonGrid
 {
     /**
      * The neighbor offsets
      */
-    private static final int NEIGHBORS[][][] = new int[][][]{
+    static final int NEIGHBORS[][][] = new int[][][]{
         { {+1,  0}, {+1, -1}, { 0, -1},
           {-1, -1}, {-1,  0}, { 0, +1} },
         { {+1, +1}, {+1,  0}, { 0, -1},
           {-1,  0}, {-1, +1}, { 0, +1} }
     };
     
+    /**
+     * The square root of 3
+     */
+    private static final double SQRT_3 = Math.sqrt(3.0);
+    
     /**
      * The template {@link Hexagon}
      */
@@ -88,10 +95,69 @@ class VerticalOddShiftedHexagonGrid implements HexagonGrid
         return p;
     }
 
+    @Override
+    public void getCenters(
+        int x0, int y0, int x1, int y1, double xs[], double ys[])
+    {
+        Hexagon hexagon = getHexagon();
+        double spacingX = hexagon.getSpacingX();
+        double spacingY = hexagon.getSpacingY();
+        double shift = 0.5 * hexagon.getSizeY();
+        
+        // The shift of the first column, and of the column after that
+        double shift0 = ((x0 & 1) == 1) ? shift : 0.0;
+        double shift1 = shift - shift0;
+        int w = x1 - x0;
+        int index = 0;
+        for (int y = y0; y < y1; y++)
+        {
+            double cy = y * spacingY;
+            double cy0 = cy + shift0;
+            double cy1 = cy + shift1;
+            for (int i = 0; i < w; i++)
+            {
+                xs[index + i] = (x0 + i) * spacingX;
+            }
+            for (int i = 0; i < w; i += 2)
+            {
+                ys[index + i] = cy0;
+            }
+            for (int i = 1; i < w; i += 2)
+            {
+                ys[index + i] = cy1;
+            }
+            index += w;
+        }
+    }
+    
+    @Override
+    public Point getCell(double x, double y, Point p)
+    {
+        Hexagon hexagon = getHexagon();
+        double r = hexagon.getRadius();
+        double cx = (2.0 / 3.0 * x) / r;
+        double cz = (-1.0 / 3.0 * x + SQRT_3 / 3.0 * y) / r;
+        p = CubeCoordinates.round(cx, cz, p);
+        return convertCubeToOffsetCoordinates(p.x, p.y, p);
+    }
+    
+    @Override
+    public void getCells(double xs[], double ys[], 
+        int cellXs[], int cellYs[], int count)
+    {
+        Point p = new Point();
+        for (int i = 0; i < count; i++)
+        {
+            getCell(xs[i], ys[i], p);
+            cellXs[i] = p.x;
+            cellYs[i] = p.y;
+        }
+    }
+    
     @Override
     public Point getNeighbor(int x, int y, int direction, Point p)
     {
-        if (direction < 0 || direction > 6)
+        if (direction < 0 || direction >= 6)
         {
             throw new IllegalArgumentException(
                 "Direction must be in [0,6), but is "+direction);
@@ -138,6 +204,43 @@ class VerticalOddShiftedHexagonGrid implements HexagonGrid
         return p;
     }
 
+    @Override
+    public long getNeighborPacked(long offset, int direction)
+    {
+        if (direction < 0 || direction >= 6)
+        {
+            throw new IllegalArgumentException(
+                "Direction must be in [0,6), but is "+direction);
+        }
+        int x = PackedCoordinates.unpackX(offset);
+        int y = PackedCoordinates.unpackY(offset);
+        int parity = x & 1;
+        int d[] = NEIGHBORS[parity][direction];
+        return PackedCoordinates.pack(x + d[0], y + d[1]);
+    }
+    
+    @Override
+    public long convertOffsetToCubeCoordinatesPacked(long offset)
+    {
+        int ox = PackedCoordinates.unpackX(offset);
+        int oy = PackedCoordinates.unpackY(offset);
+        int cx = ox;
+        int cz = oy - (ox - (ox&1)) / 2;
+        int cy = -cx-cz;
+        return PackedCoordinates.pack(cx, cy);
+    }
+    
+    @Override
+    public long convertCubeToOffsetCoordinatesPacked(long cube)
+    {
+        int cx = PackedCoordinates.unpackX(cube);
+        int cy = PackedCoordinates.unpackY(cube);
+        int cz = -cx-cy;
+        int ox = cx;
+        int oy = cz + (cx - (cx&1)) / 2;
+        return PackedCoordinates.pack(ox, oy);
+    }
+    
     @Override
     public int computeStepsDistance(int x0, int y0, int x1, int y1)
     {
@@ -0,0 +1,171 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ConcurrentHexagonIntMap} class
+ */
+@SuppressWarnings("javadoc")
+public class ConcurrentHexagonIntMapTest
+{
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws Exception
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, false);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, 16, 8);
+        ConcurrentHexagonIntMap map = new ConcurrentHexagonIntMap(region);
+        int numThreads = 4;
+        int numIncrements = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < numThreads; t++)
+            {
+                futures.add(executor.submit(() -> 
+                {
+                    for (int i = 0; i < numIncrements; i++)
+                    {
+                        map.update(i % region.getNumCells(), v -> v + 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        int sum = 0;
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            sum += map.get(i);
+        }
+        assertEquals(numThreads * numIncrements, sum);
+    }
+    
+    @Test
+    public void testReadersObserveConsistentRows() throws Exception
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, false, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -3, 2, 64, 16);
+        ConcurrentHexagonIntMap map = new ConcurrentHexagonIntMap(region);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            // The writers always write rows that contain a single value
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 2; t++)
+            {
+                int writer = t;
+                futures.add(executor.submit(() -> 
+                {
+                    int row[] = new int[region.getWidth()];
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        Arrays.fill(row, i * 2 + writer);
+                        int y = region.getMinY() + i % region.getHeight();
+                        map.setRow(y, row, 0);
+                    }
+                    return 0;
+                }));
+            }
+            Callable<Integer> rowReader = () ->
+            {
+                int numInconsistent = 0;
+                int row[] = new int[region.getWidth()];
+                while (running.get())
+                {
+                    for (int y = region.getMinY(); 
+                        y < region.getMinY() + region.getHeight(); y++)
+                    {
+                        map.getRow(y, row, 0);
+                        numInconsistent += countInconsistent(row, 0, 
+                            row.length);
+                    }
+                }
+                return numInconsistent;
+            };
+            Callable<Integer> snapshotReader = () ->
+            {
+                int numInconsistent = 0;
+                int width = region.getWidth();
+                while (running.get())
+                {
+                    int values[] = map.getSnapshot().getValues();
+                    for (int r = 0; r < region.getHeight(); r++)
+                    {
+                        numInconsistent += countInconsistent(values, 
+                            r * width, width);
+                    }
+                }
+                return numInconsistent;
+            };
+            Future<Integer> rowReaderResult = executor.submit(rowReader);
+            Future<Integer> snapshotReaderResult = 
+                executor.submit(snapshotReader);
+            for (Future<Integer> future : futures)
+            {
+                future.get();
+            }
+            running.set(false);
+            assertEquals(0, rowReaderResult.get().intValue());
+            assertEquals(0, snapshotReaderResult.get().intValue());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testSnapshotIsReusedUntilModification()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, true);
+        HexagonGridRegion region = new HexagonGridRegion(hexagonGrid, 4, 4);
+        ConcurrentHexagonIntMap map = new ConcurrentHexagonIntMap(region);
+        map.set(1, 2, 123);
+        HexagonIntMap snapshot0 = map.getSnapshot();
+        HexagonIntMap snapshot1 = map.getSnapshot();
+        assertSame(snapshot0, snapshot1);
+        assertEquals(123, snapshot0.get(1, 2));
+        
+        map.set(1, 2, 234);
+        HexagonIntMap snapshot2 = map.getSnapshot();
+        assertTrue(snapshot0 != snapshot2);
+        assertEquals(123, snapshot0.get(1, 2));
+        assertEquals(234, snapshot2.get(1, 2));
+    }
+    
+    private static int countInconsistent(int values[], int start, int length)
+    {
+        int numInconsistent = 0;
+        for (int i = start + 1; i < start + length; i++)
+        {
+            if (values[i] != values[start])
+            {
+                numInconsistent++;
+            }
+        }
+        return numInconsistent;
+    }
+}
@@ -0,0 +1,131 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonCellOrder} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonCellOrderTest
+{
+    @Test
+    public void testMortonOrderIsBijective()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -7, 5, 70, 45);
+        HexagonCellOrder order = HexagonCellOrder.createMorton(region);
+        int size = order.getSize();
+        assertTrue(size >= region.getNumCells());
+        boolean used[] = new boolean[size];
+        for (int y = 5; y < 50; y++)
+        {
+            for (int x = -7; x < 63; x++)
+            {
+                int index = order.getIndex(x, y);
+                assertTrue(index >= 0 && index < size);
+                assertFalse(used[index]);
+                used[index] = true;
+                assertEquals(x, order.getX(index));
+                assertEquals(y, order.getY(index));
+            }
+        }
+        for (int i = 0; i < size; i++)
+        {
+            if (!used[i])
+            {
+                assertFalse(region.contains(order.getX(i), order.getY(i)));
+            }
+        }
+        assertEquals(-1, order.getIndex(-8, 5));
+        assertEquals(-1, order.getIndex(63, 5));
+        assertEquals(-1, order.getIndex(0, 50));
+    }
+    
+    @Test
+    public void testNeighborIndices()
+    {
+        for (int layout = 0; layout < 4; layout++)
+        {
+            boolean vertical = (layout & 1) != 0;
+            boolean evenShifted = (layout & 2) != 0;
+            HexagonGrid hexagonGrid = 
+                HexagonGrids.create(1.0, vertical, evenShifted);
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -7, 5, 70, 67);
+            HexagonCellOrder orders[] = 
+            {
+                HexagonCellOrder.createRowMajor(region),
+                HexagonCellOrder.createMorton(region)
+            };
+            for (HexagonCellOrder order : orders)
+            {
+                checkNeighborIndices(region, order);
+            }
+        }
+    }
+    
+    private static void checkNeighborIndices(
+        HexagonGridRegion region, HexagonCellOrder order)
+    {
+        int neighbors[] = new int[6];
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            int index = order.getIndex(x, y);
+            order.getNeighborIndices(index, neighbors);
+            for (int d = 0; d < 6; d++)
+            {
+                int n = region.getNeighborIndex(i, d);
+                int expected = n < 0 ? -1 : 
+                    order.getIndex(region.getX(n), region.getY(n));
+                assertEquals(expected, order.getNeighborIndex(index, d));
+                assertEquals(expected, neighbors[d]);
+            }
+        }
+    }
+    
+    @Test
+    public void testStoreWithMortonOrder()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), 3, 4, 50, 20);
+        HexagonCellStore rowMajor = new HexagonCellStore(region);
+        HexagonCellStore morton = new HexagonCellStore(
+            HexagonCellOrder.createMorton(region));
+        HexagonCellStore.IntLayer a = rowMajor.addIntLayer();
+        HexagonCellStore.IntLayer b = morton.addIntLayer();
+        HexagonCellStore.IntLayer c = morton.addIntLayer();
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            a.set(x, y, i);
+            b.set(x, y, i);
+        }
+        c.copyFrom(b);
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            assertEquals(a.get(x, y), c.get(x, y));
+            assertEquals(i, a.get(i));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyBetweenDifferentOrdersIsRejected()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), 32, 32);
+        HexagonCellStore rowMajor = new HexagonCellStore(region);
+        HexagonCellStore morton = new HexagonCellStore(
+            HexagonCellOrder.createMorton(region));
+        morton.addIntLayer().copyFrom(rowMajor.addIntLayer());
+    }
+}
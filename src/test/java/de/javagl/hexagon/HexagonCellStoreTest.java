@@ -0,0 +1,125 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonCellStore} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonCellStoreTest
+{
+    @Test
+    public void testOffsetAndCubeAddressing()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -2, 3, 9, 7);
+        HexagonCellStore store = new HexagonCellStore(region);
+        HexagonCellStore.IntLayer layer = store.addIntLayer();
+        for (int y = 3; y < 10; y++)
+        {
+            for (int x = -2; x < 7; x++)
+            {
+                layer.set(x, y, x * 100 + y);
+            }
+        }
+        Point cube = new Point();
+        for (int y = 3; y < 10; y++)
+        {
+            for (int x = -2; x < 7; x++)
+            {
+                hexagonGrid.convertOffsetToCubeCoordinates(x, y, cube);
+                assertEquals(x * 100 + y, layer.getCube(cube.x, cube.y));
+                assertEquals(x * 100 + y, layer.get(region.getIndex(x, y)));
+            }
+        }
+    }
+    
+    @Test
+    public void testChangesAreTrackedWithRegionIndices()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, false, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -2, 3, 9, 7);
+        HexagonCellOrder cellOrder = HexagonCellOrder.createMorton(region);
+        HexagonCellStore store = new HexagonCellStore(cellOrder);
+        HexagonCellStore.FloatLayer layer = store.addFloatLayer();
+        HexagonChangeTracker tracker = new HexagonChangeTracker(region);
+        layer.setChangeTracker(tracker);
+        
+        layer.set(4, 8, 1.0f);
+        layer.set(4, 8, 1.0f);
+        layer.set(cellOrder.getIndex(0, 5), 0.0f);
+        Point cube = new Point();
+        hexagonGrid.convertOffsetToCubeCoordinates(6, 9, cube);
+        layer.setCube(cube.x, cube.y, 2.0f);
+        assertEquals(2, tracker.getNumChanges());
+        assertTrue(tracker.isChanged(region.getIndex(4, 8)));
+        assertTrue(tracker.isChanged(region.getIndex(6, 9)));
+        assertFalse(tracker.isChanged(region.getIndex(0, 5)));
+        
+        int indices[] = new int[region.getNumCells()];
+        assertEquals(2, tracker.drain(indices, null));
+        
+        float values[] = new float[cellOrder.getSize()];
+        layer.set(0, values, 0, values.length);
+        assertEquals(region.getNumCells(), tracker.getNumChanges());
+        assertEquals(region.getNumCells(), tracker.drain(indices, null));
+        
+        layer.fill(3.0f);
+        assertEquals(region.getNumCells(), tracker.getNumChanges());
+    }
+    
+    @Test
+    public void testBulkCopy()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, false), 13, 11);
+        HexagonCellStore store = new HexagonCellStore(region);
+        HexagonCellStore.FloatLayer source = store.addFloatLayer();
+        HexagonCellStore.FloatLayer target = store.addFloatLayer();
+        HexagonCellStore.DoubleLayer other = store.addDoubleLayer();
+        int n = region.getNumCells();
+        float values[] = new float[n];
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = i * 0.5f;
+        }
+        source.set(0, values, 0, n);
+        target.copyFrom(source);
+        float result[] = new float[n];
+        target.get(0, result, 0, n);
+        assertArrayEquals(values, result, 0.0f);
+        assertEquals(3, store.getNumLayers());
+        assertEquals(n * 16L, store.getByteSize());
+        
+        other.fill(2.0);
+        assertEquals(2.0, other.get(n - 1), 0.0);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyBetweenDifferentTypesIsRejected()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, false), 4, 4);
+        HexagonCellStore store = new HexagonCellStore(region);
+        HexagonCellStore.IntLayer intLayer = store.addIntLayer();
+        HexagonCellStore.FloatLayer floatLayer = store.addFloatLayer();
+        intLayer.copyFrom(floatLayer);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCellOutsideOfRegionIsRejected()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, false), 4, 4);
+        new HexagonCellStore(region).addDoubleLayer().get(4, 0);
+    }
+}
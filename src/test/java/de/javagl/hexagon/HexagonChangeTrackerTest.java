@@ -0,0 +1,104 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonChangeTracker} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonChangeTrackerTest
+{
+    @Test
+    public void testChangesAreDrainedInBatches()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, false);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, 2, 3, 20, 10);
+        HexagonIntMap map = new HexagonIntMap(region);
+        HexagonChangeTracker tracker = new HexagonChangeTracker(region);
+        map.setChangeTracker(tracker);
+        
+        map.set(5, 4, 1);
+        map.set(9, 8, 2);
+        map.set(5, 4, 3);
+        map.set(7, 6, 0);
+        assertEquals(2, tracker.getNumChanges());
+        assertTrue(tracker.isChanged(region.getIndex(5, 4)));
+        assertFalse(tracker.isChanged(region.getIndex(7, 6)));
+        
+        int indices[] = new int[1];
+        int values[] = new int[1];
+        Rectangle2D bounds = new Rectangle2D.Double();
+        assertEquals(1, tracker.drain(map, indices, values, bounds));
+        assertEquals(region.getIndex(5, 4), indices[0]);
+        assertEquals(3, values[0]);
+        assertEquals(HexagonGrids.computeBounds(
+            hexagonGrid, 5, 4, 5, 4, null), bounds);
+        
+        map.set(4, 12, 5);
+        indices = new int[8];
+        values = new int[8];
+        assertEquals(2, tracker.drain(map, indices, values, bounds));
+        assertEquals(region.getIndex(9, 8), indices[0]);
+        assertEquals(2, values[0]);
+        assertEquals(region.getIndex(4, 12), indices[1]);
+        assertEquals(5, values[1]);
+        assertEquals(HexagonGrids.computeBounds(
+            hexagonGrid, 4, 8, 9, 12, null), bounds);
+        
+        assertEquals(0, tracker.drain(map, indices, values, bounds));
+        assertTrue(bounds.isEmpty());
+        assertFalse(tracker.isChanged(region.getIndex(5, 4)));
+    }
+    
+    @Test
+    public void testInterleavedChangesAndDrains()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, true), 37, 29);
+        HexagonChangeTracker tracker = new HexagonChangeTracker(region);
+        Random random = new Random(0);
+        Set<Integer> pending = new HashSet<Integer>();
+        int indices[] = new int[50];
+        for (int round = 0; round < 200; round++)
+        {
+            int numChanges = random.nextInt(200);
+            for (int i = 0; i < numChanges; i++)
+            {
+                int index = random.nextInt(region.getNumCells());
+                tracker.markChanged(index);
+                pending.add(index);
+            }
+            assertEquals(pending.size(), tracker.getNumChanges());
+            int n = tracker.drain(indices, null);
+            assertEquals(Math.min(indices.length, pending.size()), n);
+            for (int i = 0; i < n; i++)
+            {
+                assertTrue(pending.remove(indices[i]));
+            }
+        }
+        tracker.markAllChanged();
+        assertEquals(region.getNumCells(), tracker.getNumChanges());
+        tracker.clear();
+        assertEquals(0, tracker.getNumChanges());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIsChangedRejectsIndexInPaddingBits()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, false);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, 0, 0, 20, 10);
+        HexagonChangeTracker tracker = new HexagonChangeTracker(region);
+        tracker.isChanged(region.getNumCells());
+    }
+}
@@ -0,0 +1,69 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonDoubleMap} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonDoubleMapTest
+{
+    @Test
+    public void testGetAndSet()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, true), 3, -4, 5, 6);
+        HexagonDoubleMap map = new HexagonDoubleMap(region);
+        for (int y = -4; y < 2; y++)
+        {
+            for (int x = 3; x < 8; x++)
+            {
+                map.set(x, y, x + y * 0.25);
+            }
+        }
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            assertEquals(x + y * 0.25, map.get(i), 0.0);
+            assertEquals(x + y * 0.25, map.get(x, y), 0.0);
+            assertEquals(x + y * 0.25, map.getValues()[i], 0.0);
+        }
+        map.fill(1.5);
+        assertEquals(1.5, map.get(3, -4), 0.0);
+        assertEquals(1.5, map.get(7, 1), 0.0);
+    }
+    
+    @Test
+    public void testGetNeighbor()
+    {
+        Point p = new Point();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -3, -2, 5, 6);
+            HexagonDoubleMap map = new HexagonDoubleMap(region);
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                map.set(i, i * 0.5);
+            }
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                for (int d = 0; d < 6; d++)
+                {
+                    hexagonGrid.getNeighbor(x, y, d, p);
+                    double expected = region.contains(p.x, p.y) ? 
+                        map.get(p.x, p.y) : -1.0;
+                    assertEquals(expected, 
+                        map.getNeighbor(x, y, d, -1.0), 0.0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonFieldOfView} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonFieldOfViewTest
+{
+    @Test
+    public void testWallCastsShadowInEachDirection()
+    {
+        int ox = 20;
+        int oy = 20;
+        Point wall = new Point();
+        Point behind = new Point();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 41, 41);
+            long visible[] = CellBitSets.create(region);
+            for (int d = 0; d < 6; d++)
+            {
+                hexagonGrid.getNeighbor(ox, oy, d, wall);
+                hexagonGrid.getNeighbor(wall.x, wall.y, d, behind);
+                int wx = wall.x;
+                int wy = wall.y;
+                HexagonFieldOfView fieldOfView = new HexagonFieldOfView(
+                    region, (x, y) -> x == wx && y == wy);
+                fieldOfView.compute(ox, oy, 5, visible);
+                
+                assertTrue(CellBitSets.get(visible, 
+                    region.getIndex(wall.x, wall.y)));
+                assertFalse(fieldOfView.hasLineOfSight(
+                    ox, oy, behind.x, behind.y));
+                assertFalse("Direction " + d, CellBitSets.get(visible, 
+                    region.getIndex(behind.x, behind.y)));
+            }
+        }
+    }
+    
+    @Test
+    public void testAllCellsInRangeAreVisibleWithoutWalls()
+    {
+        int ox = 20;
+        int oy = 20;
+        int radius = 5;
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 41, 41);
+            long visible[] = CellBitSets.create(region);
+            HexagonFieldOfView fieldOfView = 
+                new HexagonFieldOfView(region, (x, y) -> false);
+            fieldOfView.compute(ox, oy, radius, visible);
+            assertEquals(CubeCoordinates.computeRangeSize(radius), 
+                CellBitSets.cardinality(visible));
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                if (hexagonGrid.computeStepsDistance(ox, oy, x, y) <= radius)
+                {
+                    assertTrue(fieldOfView.hasLineOfSight(ox, oy, x, y));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonFlowField} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonFlowFieldTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testDistancesMatchPathFinder()
+    {
+        Random random = new Random(0);
+        Point p = new Point();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 3, -5, 17, 13);
+            double cellCosts[] = 
+                HexagonPathFinderTest.createCosts(region, random);
+            CellCostFunction costFunction = 
+                (x, y) -> cellCosts[region.getIndex(x, y)];
+            HexagonPathFinder pathFinder = 
+                new HexagonPathFinder(region, costFunction, 1.0);
+            HexagonFlowField flowField = 
+                new HexagonFlowField(region, costFunction);
+            
+            int numSources = 3;
+            int sourcesX[] = new int[numSources];
+            int sourcesY[] = new int[numSources];
+            for (int i = 0; i < numSources; i++)
+            {
+                int source = random.nextInt(region.getNumCells());
+                sourcesX[i] = region.getX(source);
+                sourcesY[i] = region.getY(source);
+            }
+            flowField.compute(sourcesX, sourcesY, numSources);
+            
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                double expected = Double.POSITIVE_INFINITY;
+                for (int s = 0; s < numSources; s++)
+                {
+                    if (pathFinder.findPath(x, y, sourcesX[s], sourcesY[s]))
+                    {
+                        expected = 
+                            Math.min(expected, pathFinder.getPathCost());
+                    }
+                }
+                double distance = flowField.getDistance(x, y);
+                assertEquals(expected, distance, EPSILON);
+                
+                int direction = flowField.getDirection(x, y);
+                if (distance > 0.0 && distance < Double.POSITIVE_INFINITY)
+                {
+                    // The direction leads to the next cell of a 
+                    // cheapest path
+                    assertTrue(direction != HexagonFlowField.NO_DIRECTION);
+                    hexagonGrid.getNeighbor(x, y, direction, p);
+                    double step = cellCosts[region.getIndex(p.x, p.y)];
+                    assertEquals(distance, 
+                        flowField.getDistance(p.x, p.y) + step, EPSILON);
+                }
+                else
+                {
+                    assertEquals(HexagonFlowField.NO_DIRECTION, direction);
+                }
+            }
+        }
+    }
+}
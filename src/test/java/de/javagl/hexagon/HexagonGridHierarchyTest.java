@@ -0,0 +1,82 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonGridHierarchy} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonGridHierarchyTest
+{
+    @Test
+    public void testParentsAndChildrenAreConsistent()
+    {
+        int factors[] = { 2, 4 };
+        Point parent = new Point();
+        Rectangle range = new Rectangle();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -5, 3, 61, 47);
+            for (int factor : factors)
+            {
+                HexagonGridHierarchy hierarchy = 
+                    new HexagonGridHierarchy(region, factor, 3);
+                for (int level = 0; level < 2; level++)
+                {
+                    HexagonGridRegion fine = hierarchy.getRegion(level);
+                    HexagonGridRegion coarse = 
+                        hierarchy.getRegion(level + 1);
+                    for (int i = 0; i < fine.getNumCells(); i++)
+                    {
+                        int x = fine.getX(i);
+                        int y = fine.getY(i);
+                        int p = hierarchy.getParentIndex(level, i);
+                        hierarchy.getParent(x, y, parent);
+                        assertEquals(coarse.getX(p), parent.x);
+                        assertEquals(coarse.getY(p), parent.y);
+                        
+                        hierarchy.getChildRange(parent.x, parent.y, range);
+                        assertTrue(range.contains(x, y));
+                        assertTrue(isChild(hierarchy, level + 1, p, i));
+                    }
+                    for (int p = 0; p < coarse.getNumCells(); p++)
+                    {
+                        int n = hierarchy.getNumChildren(level + 1, p);
+                        assertTrue(n <= factor * factor);
+                        int previous = -1;
+                        for (int c = 0; c < n; c++)
+                        {
+                            int child = 
+                                hierarchy.getChildIndex(level + 1, p, c);
+                            assertTrue(child > previous);
+                            assertEquals(p, 
+                                hierarchy.getParentIndex(level, child));
+                            previous = child;
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    private static boolean isChild(HexagonGridHierarchy hierarchy, 
+        int level, int index, int child)
+    {
+        int n = hierarchy.getNumChildren(level, index);
+        for (int c = 0; c < n; c++)
+        {
+            if (hierarchy.getChildIndex(level, index, c) == child)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonGridRegion} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonGridRegionTest
+{
+    @Test
+    public void testIndicesAndCoordinatesRoundTrip()
+    {
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -3, -5, 11, 8);
+            assertEquals(88, region.getNumCells());
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                assertTrue(region.contains(x, y));
+                assertEquals(i, region.getIndex(x, y));
+            }
+            for (int y = -7; y < 5; y++)
+            {
+                for (int x = -5; x < 10; x++)
+                {
+                    boolean inside = x >= -3 && x < 8 && y >= -5 && y < 3;
+                    assertEquals(inside, region.contains(x, y));
+                    if (!inside)
+                    {
+                        assertEquals(-1, region.getIndex(x, y));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testNeighborIndicesMatchGrid()
+    {
+        Point p = new Point();
+        int neighbors[] = new int[6];
+        int expected[] = new int[6];
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -4, -3, 9, 7);
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                for (int d = 0; d < 6; d++)
+                {
+                    hexagonGrid.getNeighbor(x, y, d, p);
+                    expected[d] = region.getIndex(p.x, p.y);
+                    assertEquals(expected[d], 
+                        region.getNeighborIndex(x, y, d));
+                    assertEquals(expected[d], region.getNeighborIndex(i, d));
+                }
+                region.getNeighborIndices(i, neighbors);
+                assertArrayEquals(expected, neighbors);
+            }
+        }
+    }
+    
+    @Test
+    public void testRegionDoesNotContainCellsOutside()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), 4, 3);
+        assertFalse(region.contains(-1, 0));
+        assertFalse(region.contains(0, -1));
+        assertFalse(region.contains(4, 0));
+        assertFalse(region.contains(0, 3));
+        assertTrue(region.contains(3, 2));
+    }
+}
@@ -0,0 +1,269 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonGrid} implementations
+ */
+@SuppressWarnings("javadoc")
+public class HexagonGridTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testGetCellOfCenterIsCell()
+    {
+        Point2D center = new Point2D.Double();
+        Point p = new Point();
+        for (HexagonGrid hexagonGrid : createGrids(7.3))
+        {
+            for (int x = -10; x <= 10; x++)
+            {
+                for (int y = -10; y <= 10; y++)
+                {
+                    hexagonGrid.getCenter(x, y, center);
+                    hexagonGrid.getCell(center.getX(), center.getY(), p);
+                    assertEquals(new Point(x, y), p);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testGetCellReturnsNearestCenter()
+    {
+        Random random = new Random(0);
+        Point2D center = new Point2D.Double();
+        Point p = new Point();
+        int count = 1000;
+        double xs[] = new double[count];
+        double ys[] = new double[count];
+        int cellXs[] = new int[count];
+        int cellYs[] = new int[count];
+        for (HexagonGrid hexagonGrid : createGrids(3.1))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                xs[i] = random.nextDouble() * 100.0 - 50.0;
+                ys[i] = random.nextDouble() * 100.0 - 50.0;
+            }
+            hexagonGrid.getCells(xs, ys, cellXs, cellYs, count);
+            for (int i = 0; i < count; i++)
+            {
+                hexagonGrid.getCell(xs[i], ys[i], p);
+                assertEquals(p.x, cellXs[i]);
+                assertEquals(p.y, cellYs[i]);
+                
+                hexagonGrid.getCenter(p.x, p.y, center);
+                double distance = center.distance(xs[i], ys[i]);
+                for (int dx = -3; dx <= 3; dx++)
+                {
+                    for (int dy = -3; dy <= 3; dy++)
+                    {
+                        hexagonGrid.getCenter(p.x + dx, p.y + dy, center);
+                        double other = center.distance(xs[i], ys[i]);
+                        assertTrue(distance <= other + EPSILON);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testGetCentersMatchesGetCenter()
+    {
+        int x0 = -17;
+        int y0 = -11;
+        int x1 = 23;
+        int y1 = 29;
+        int w = x1 - x0;
+        int count = w * (y1 - y0);
+        double xs[] = new double[count];
+        double ys[] = new double[count];
+        Point2D center = new Point2D.Double();
+        for (HexagonGrid hexagonGrid : createGrids(12.77))
+        {
+            hexagonGrid.getCenters(x0, y0, x1, y1, xs, ys);
+            for (int i = 0; i < count; i++)
+            {
+                hexagonGrid.getCenter(x0 + i % w, y0 + i / w, center);
+                assertEquals(center.getX(), xs[i], 0.0);
+                assertEquals(center.getY(), ys[i], 0.0);
+            }
+        }
+    }
+    
+    @Test
+    public void testPackedMethodsMatchPointMethods()
+    {
+        Point p = new Point();
+        for (HexagonGrid hexagonGrid : createGrids(1.0))
+        {
+            for (int x = -9; x <= 9; x++)
+            {
+                for (int y = -9; y <= 9; y++)
+                {
+                    long packed = PackedCoordinates.pack(x, y);
+                    for (int d = 0; d < 6; d++)
+                    {
+                        hexagonGrid.getNeighbor(x, y, d, p);
+                        assertEquals(PackedCoordinates.pack(p.x, p.y), 
+                            hexagonGrid.getNeighborPacked(packed, d));
+                    }
+                    
+                    hexagonGrid.convertOffsetToCubeCoordinates(x, y, p);
+                    long cube = 
+                        hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+                            packed);
+                    assertEquals(PackedCoordinates.pack(p.x, p.y), cube);
+                    assertEquals(packed, 
+                        hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                            cube));
+                    
+                    hexagonGrid.convertCubeToOffsetCoordinates(x, y, p);
+                    assertEquals(PackedCoordinates.pack(p.x, p.y), 
+                        hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                            packed));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testDefaultMethodsMatchBuiltInGrids()
+    {
+        Random random = new Random(0);
+        int count = 500;
+        double xs[] = new double[count];
+        double ys[] = new double[count];
+        int cellXs[] = new int[count];
+        int cellYs[] = new int[count];
+        int expectedXs[] = new int[count];
+        int expectedYs[] = new int[count];
+        for (HexagonGrid hexagonGrid : createGrids(4.7))
+        {
+            HexagonGrid minimalGrid = createMinimalGrid(hexagonGrid);
+            for (int i = 0; i < count; i++)
+            {
+                xs[i] = random.nextDouble() * 200.0 - 100.0;
+                ys[i] = random.nextDouble() * 200.0 - 100.0;
+            }
+            hexagonGrid.getCells(xs, ys, expectedXs, expectedYs, count);
+            minimalGrid.getCells(xs, ys, cellXs, cellYs, count);
+            assertArrayEquals(expectedXs, cellXs);
+            assertArrayEquals(expectedYs, cellYs);
+            
+            double centerXs[] = new double[120];
+            double centerYs[] = new double[120];
+            double expectedCenterXs[] = new double[120];
+            double expectedCenterYs[] = new double[120];
+            hexagonGrid.getCenters(
+                -5, -3, 7, 7, expectedCenterXs, expectedCenterYs);
+            minimalGrid.getCenters(-5, -3, 7, 7, centerXs, centerYs);
+            assertArrayEquals(expectedCenterXs, centerXs, 0.0);
+            assertArrayEquals(expectedCenterYs, centerYs, 0.0);
+            
+            for (int x = -6; x <= 6; x++)
+            {
+                for (int y = -6; y <= 6; y++)
+                {
+                    long packed = PackedCoordinates.pack(x, y);
+                    for (int d = 0; d < 6; d++)
+                    {
+                        assertEquals(
+                            hexagonGrid.getNeighborPacked(packed, d), 
+                            minimalGrid.getNeighborPacked(packed, d));
+                    }
+                    assertEquals(
+                        hexagonGrid.convertOffsetToCubeCoordinatesPacked(
+                            packed), 
+                        minimalGrid.convertOffsetToCubeCoordinatesPacked(
+                            packed));
+                    assertEquals(
+                        hexagonGrid.convertCubeToOffsetCoordinatesPacked(
+                            packed), 
+                        minimalGrid.convertCubeToOffsetCoordinatesPacked(
+                            packed));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates a {@link HexagonGrid} that only implements the abstract 
+     * methods of the interface, by delegating them to the given grid
+     * 
+     * @param delegate The delegate
+     * @return The {@link HexagonGrid}
+     */
+    static HexagonGrid createMinimalGrid(HexagonGrid delegate)
+    {
+        return new HexagonGrid()
+        {
+            @Override
+            public Hexagon getHexagon()
+            {
+                return delegate.getHexagon();
+            }
+            
+            @Override
+            public Point2D getCenter(int x, int y, Point2D p)
+            {
+                return delegate.getCenter(x, y, p);
+            }
+            
+            @Override
+            public Point getNeighbor(int x, int y, int direction, Point p)
+            {
+                return delegate.getNeighbor(x, y, direction, p);
+            }
+            
+            @Override
+            public Point convertOffsetToCubeCoordinates(
+                int x, int y, Point p)
+            {
+                return delegate.convertOffsetToCubeCoordinates(x, y, p);
+            }
+            
+            @Override
+            public Point convertCubeToOffsetCoordinates(
+                int x, int y, Point p)
+            {
+                return delegate.convertCubeToOffsetCoordinates(x, y, p);
+            }
+            
+            @Override
+            public int computeStepsDistance(int x0, int y0, int x1, int y1)
+            {
+                return delegate.computeStepsDistance(x0, y0, x1, y1);
+            }
+            
+            @Override
+            public double computeSquaredCentersDistance(
+                int x0, int y0, int x1, int y1)
+            {
+                return delegate.computeSquaredCentersDistance(
+                    x0, y0, x1, y1);
+            }
+        };
+    }
+    
+    static HexagonGrid[] createGrids(double radius)
+    {
+        return new HexagonGrid[] 
+        {
+            HexagonGrids.create(radius, false, false),
+            HexagonGrids.create(radius, false, true),
+            HexagonGrids.create(radius, true, false),
+            HexagonGrids.create(radius, true, true)
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests that all {@link HexagonGrid} implementations return the same
+ * results when they are used concurrently by multiple threads
+ */
+@SuppressWarnings("javadoc")
+public class HexagonGridThreadSafetyTest
+{
+    private static final int MIN = -20;
+    private static final int MAX = 20;
+    
+    @Test
+    public void testConcurrentUseOfAllGrids() throws Exception
+    {
+        for (int v = 0; v < 2; v++)
+        {
+            for (int e = 0; e < 2; e++)
+            {
+                HexagonGrid hexagonGrid = 
+                    HexagonGrids.create(3.5, v == 1, e == 1);
+                checkConcurrentUse(hexagonGrid);
+            }
+        }
+    }
+    
+    private static void checkConcurrentUse(HexagonGrid hexagonGrid) 
+        throws Exception
+    {
+        double expected[] = compute(hexagonGrid);
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            List<Future<double[]>> futures = new ArrayList<Future<double[]>>();
+            for (int t = 0; t < numThreads; t++)
+            {
+                futures.add(executor.submit(() -> 
+                {
+                    double result[] = null;
+                    for (int i = 0; i < 10; i++)
+                    {
+                        result = compute(hexagonGrid);
+                    }
+                    return result;
+                }));
+            }
+            for (Future<double[]> future : futures)
+            {
+                assertArrayEquals(expected, future.get(), 0.0);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * Call the methods of the given grid for many cells, and collect
+     * the results in an array
+     */
+    private static double[] compute(HexagonGrid hexagonGrid)
+    {
+        int size = MAX - MIN + 1;
+        double result[] = new double[size * size * 18];
+        int n = 0;
+        Point p = new Point();
+        Point2D center = new Point2D.Double();
+        for (int y = MIN; y <= MAX; y++)
+        {
+            for (int x = MIN; x <= MAX; x++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                result[n++] = center.getX();
+                result[n++] = center.getY();
+                hexagonGrid.getCell(center.getX(), center.getY(), p);
+                result[n++] = p.x;
+                result[n++] = p.y;
+                for (int d = 0; d < 6; d++)
+                {
+                    hexagonGrid.getNeighbor(x, y, d, p);
+                    result[n++] = p.x * 1000 + p.y;
+                }
+                hexagonGrid.convertOffsetToCubeCoordinates(x, y, p);
+                result[n++] = p.x;
+                result[n++] = p.y;
+                hexagonGrid.convertCubeToOffsetCoordinates(p.x, p.y, p);
+                result[n++] = p.x;
+                result[n++] = p.y;
+                long packed = PackedCoordinates.pack(x, y);
+                result[n++] = hexagonGrid.getNeighborPacked(packed, x & 3);
+                result[n++] = 
+                    hexagonGrid.convertOffsetToCubeCoordinatesPacked(packed);
+                result[n++] = hexagonGrid.computeStepsDistance(0, 0, x, y);
+                result[n++] = 
+                    hexagonGrid.computeSquaredCentersDistance(0, 0, x, y);
+            }
+        }
+        return result;
+    }
+}
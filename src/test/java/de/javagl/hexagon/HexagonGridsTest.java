@@ -0,0 +1,413 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonGrids} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonGridsTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testComputeBoundsMatchesUnionOfAllCells()
+    {
+        double radii[] = { 1.0, 7.3, 12.77 };
+        int min = -5;
+        int max = 5;
+        for (int v = 0; v < 2; v++)
+        {
+            for (int e = 0; e < 2; e++)
+            {
+                for (double radius : radii)
+                {
+                    HexagonGrid hexagonGrid = 
+                        HexagonGrids.create(radius, v == 1, e == 1);
+                    Rectangle2D actual = new Rectangle2D.Double();
+                    for (int x0 = min; x0 <= max; x0++)
+                    {
+                        for (int y0 = min; y0 <= max; y0++)
+                        {
+                            for (int x1 = x0; x1 <= max; x1++)
+                            {
+                                for (int y1 = y0; y1 <= max; y1++)
+                                {
+                                    Rectangle2D expected = 
+                                        computeBoundsBruteForce(
+                                            hexagonGrid, x0, y0, x1, y1);
+                                    HexagonGrids.computeBounds(hexagonGrid, 
+                                        x0, y0, x1, y1, actual);
+                                    assertBoundsEqual(expected, actual);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testComputeBoundsForCustomGrid()
+    {
+        HexagonGrid delegate = HexagonGrids.create(3.0, true, true);
+        // A grid that is not one of the known implementations
+        HexagonGrid hexagonGrid = (HexagonGrid)Proxy.newProxyInstance(
+            HexagonGrid.class.getClassLoader(), 
+            new Class<?>[] { HexagonGrid.class }, 
+            (proxy, method, args) -> method.invoke(delegate, args));
+        Rectangle2D expected = 
+            computeBoundsBruteForce(hexagonGrid, -2, 1, 3, 4);
+        Rectangle2D actual = 
+            HexagonGrids.computeBounds(hexagonGrid, -2, 1, 3, 4, null);
+        assertBoundsEqual(expected, actual);
+    }
+    
+    @Test
+    public void testRangeRingAndSpiral()
+    {
+        int cx = 3;
+        int cy = -2;
+        int maxRadius = 6;
+        int result[] = new int[2 * CubeCoordinates.computeRangeSize(maxRadius)];
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            for (int r = 0; r <= maxRadius; r++)
+            {
+                int rangeSize = CubeCoordinates.computeRangeSize(r);
+                int n = HexagonGrids.computeRange(
+                    hexagonGrid, cx, cy, r, result);
+                assertEquals(rangeSize, n);
+                Set<Point> range = toSet(result, n);
+                assertEquals(rangeSize, range.size());
+                for (Point p : range)
+                {
+                    assertTrue(hexagonGrid.computeStepsDistance(
+                        cx, cy, p.x, p.y) <= r);
+                }
+                
+                n = HexagonGrids.computeRing(
+                    hexagonGrid, cx, cy, r, result);
+                assertEquals(CubeCoordinates.computeRingSize(r), n);
+                Set<Point> ring = toSet(result, n);
+                assertEquals(n, ring.size());
+                for (Point p : ring)
+                {
+                    assertEquals(r, hexagonGrid.computeStepsDistance(
+                        cx, cy, p.x, p.y));
+                }
+                
+                n = HexagonGrids.computeSpiral(
+                    hexagonGrid, cx, cy, r, result);
+                assertEquals(rangeSize, n);
+                assertEquals(range, toSet(result, n));
+                assertEquals(cx, result[0]);
+                assertEquals(cy, result[1]);
+            }
+        }
+    }
+    
+    @Test
+    public void testLinesAreSymmetricAndConnected()
+    {
+        Random random = new Random(0);
+        int line[] = new int[200];
+        int reverse[] = new int[200];
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            for (int i = 0; i < 500; i++)
+            {
+                int x0 = random.nextInt(41) - 20;
+                int y0 = random.nextInt(41) - 20;
+                int x1 = random.nextInt(41) - 20;
+                int y1 = random.nextInt(41) - 20;
+                int n = HexagonGrids.computeLine(
+                    hexagonGrid, x0, y0, x1, y1, line);
+                assertEquals(
+                    hexagonGrid.computeStepsDistance(x0, y0, x1, y1) + 1, n);
+                assertEquals(x0, line[0]);
+                assertEquals(y0, line[1]);
+                assertEquals(x1, line[(n - 1) * 2 + 0]);
+                assertEquals(y1, line[(n - 1) * 2 + 1]);
+                for (int j = 1; j < n; j++)
+                {
+                    assertEquals(1, hexagonGrid.computeStepsDistance(
+                        line[(j - 1) * 2 + 0], line[(j - 1) * 2 + 1], 
+                        line[j * 2 + 0], line[j * 2 + 1]));
+                }
+                
+                assertEquals(n, HexagonGrids.computeLine(
+                    hexagonGrid, x1, y1, x0, y0, reverse));
+                for (int j = 0; j < n; j++)
+                {
+                    int k = n - 1 - j;
+                    assertEquals(line[j * 2 + 0], reverse[k * 2 + 0]);
+                    assertEquals(line[j * 2 + 1], reverse[k * 2 + 1]);
+                }
+                
+                List<Point> visited = new ArrayList<Point>();
+                HexagonGrids.forEachInLine(hexagonGrid, x0, y0, x1, y1, 
+                    (x, y) -> visited.add(new Point(x, y)));
+                assertEquals(new ArrayList<Point>(toSet(line, n)), visited);
+            }
+        }
+    }
+    
+    @Test
+    public void testOutlineContainsEachEdgeOnce()
+    {
+        int x0 = -2;
+        int y0 = 3;
+        int x1 = 4;
+        int y1 = 7;
+        Point p = new Point();
+        Point2D center = new Point2D.Double();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(5.0))
+        {
+            Path2D outline = 
+                HexagonGrids.createOutline(hexagonGrid, x0, y0, x1, y1);
+            List<String> edges = new ArrayList<String>();
+            double coords[] = new double[6];
+            double start[] = new double[2];
+            for (PathIterator pi = outline.getPathIterator(null); 
+                !pi.isDone(); pi.next())
+            {
+                int type = pi.currentSegment(coords);
+                if (type == PathIterator.SEG_MOVETO)
+                {
+                    start[0] = coords[0];
+                    start[1] = coords[1];
+                }
+                else
+                {
+                    assertEquals(PathIterator.SEG_LINETO, type);
+                    edges.add(edgeKey(
+                        start[0], start[1], coords[0], coords[1]));
+                }
+            }
+            
+            int numCells = 0;
+            int numShared = 0;
+            Set<String> expectedEdges = new LinkedHashSet<String>();
+            double corners[] = hexagonGrid.getHexagon().getCorners(null);
+            for (int y = y0; y <= y1; y++)
+            {
+                for (int x = x0; x <= x1; x++)
+                {
+                    numCells++;
+                    for (int d = 0; d < 6; d++)
+                    {
+                        hexagonGrid.getNeighbor(x, y, d, p);
+                        if (p.x >= x0 && p.x <= x1 && p.y >= y0 && p.y <= y1)
+                        {
+                            numShared++;
+                        }
+                    }
+                    hexagonGrid.getCenter(x, y, center);
+                    for (int c = 0; c < 6; c++)
+                    {
+                        int c1 = (c + 1) % 6;
+                        expectedEdges.add(edgeKey(
+                            corners[c * 2 + 0] + center.getX(), 
+                            corners[c * 2 + 1] + center.getY(), 
+                            corners[c1 * 2 + 0] + center.getX(), 
+                            corners[c1 * 2 + 1] + center.getY()));
+                    }
+                }
+            }
+            // Each shared edge was counted by both cells
+            numShared /= 2;
+            assertEquals(6 * numCells - numShared, edges.size());
+            assertEquals(edges.size(), new LinkedHashSet<String>(edges).size());
+            assertEquals(expectedEdges, new LinkedHashSet<String>(edges));
+        }
+    }
+    
+    @Test
+    public void testIntersectingCellsMatchBruteForce()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(4.3))
+        {
+            for (int i = 0; i < 30; i++)
+            {
+                double x = random.nextDouble() * 100 - 50;
+                double y = random.nextDouble() * 100 - 50;
+                double w = random.nextDouble() * 40;
+                double h = random.nextDouble() * 40;
+                Shape shapes[] = 
+                {
+                    new Rectangle2D.Double(x, y, w, h),
+                    new Ellipse2D.Double(x, y, w, h),
+                    new Line2D.Double(x, y, x + w, y + h)
+                };
+                for (Shape shape : shapes)
+                {
+                    List<Point> expected = 
+                        computeIntersectingCellsBruteForce(hexagonGrid, shape);
+                    List<Point> actual = new ArrayList<Point>();
+                    HexagonGrids.forEachIntersectingCell(hexagonGrid, shape, 
+                        (cx, cy) -> actual.add(new Point(cx, cy)));
+                    assertEquals(expected, actual);
+                }
+                
+                Rectangle2D area = new Rectangle2D.Double(x, y, w, h);
+                Rectangle expectedRange = null;
+                for (Point p : computeIntersectingCellsBruteForce(
+                    hexagonGrid, area))
+                {
+                    Rectangle r = new Rectangle(p.x, p.y, 1, 1);
+                    expectedRange = expectedRange == null ? 
+                        r : expectedRange.union(r);
+                }
+                assertEquals(expectedRange, 
+                    HexagonGrids.computeCellRange(hexagonGrid, area, null));
+            }
+            assertEquals(new Rectangle(), HexagonGrids.computeCellRange(
+                hexagonGrid, new Rectangle2D.Double(3, 4, 0, 0), null));
+        }
+    }
+    
+    private static List<Point> computeIntersectingCellsBruteForce(
+        HexagonGrid hexagonGrid, Shape shape)
+    {
+        List<Point> cells = new ArrayList<Point>();
+        Area shapeArea = new Area(shape);
+        Point2D center = new Point2D.Double();
+        for (int y = -40; y <= 40; y++)
+        {
+            for (int x = -40; x <= 40; x++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                Area area = new Area(
+                    Hexagons.createShape(hexagonGrid.getHexagon(), center));
+                area.intersect(shapeArea);
+                if (!area.isEmpty())
+                {
+                    cells.add(new Point(x, y));
+                }
+            }
+        }
+        return cells;
+    }
+    
+    private static String edgeKey(double x0, double y0, double x1, double y1)
+    {
+        String p0 = Math.round(x0 * 1e6) + "," + Math.round(y0 * 1e6);
+        String p1 = Math.round(x1 * 1e6) + "," + Math.round(y1 * 1e6);
+        return p0.compareTo(p1) < 0 ? p0 + "-" + p1 : p1 + "-" + p0;
+    }
+    
+    private static Set<Point> toSet(int coordinates[], int n)
+    {
+        Set<Point> set = new LinkedHashSet<Point>();
+        for (int i = 0; i < n; i++)
+        {
+            set.add(new Point(coordinates[i * 2 + 0], coordinates[i * 2 + 1]));
+        }
+        return set;
+    }
+    
+    @Test
+    public void testNeighborIndexDeltas()
+    {
+        Point p = new Point();
+        int neighbors[] = new int[6];
+        for (int v = 0; v < 2; v++)
+        {
+            for (int e = 0; e < 2; e++)
+            {
+                HexagonGrid hexagonGrid = 
+                    HexagonGrids.create(1.0, v == 1, e == 1);
+                HexagonGridRegion region = 
+                    new HexagonGridRegion(hexagonGrid, -3, 5, 9, 7);
+                int w = region.getWidth();
+                int stride = w + 2;
+                int padded[][] = 
+                    HexagonGrids.computeNeighborIndexDeltas(
+                        hexagonGrid, stride);
+                for (int i = 0; i < region.getNumCells(); i++)
+                {
+                    int x = region.getX(i);
+                    int y = region.getY(i);
+                    int parity = region.getParity(x, y);
+                    int pi = (i / w + 1) * stride + (i % w + 1);
+                    region.getNeighborIndices(i, neighbors);
+                    for (int d = 0; d < 6; d++)
+                    {
+                        hexagonGrid.getNeighbor(x, y, d, p);
+                        int lx = p.x - region.getMinX();
+                        int ly = p.y - region.getMinY();
+                        assertEquals((ly + 1) * stride + (lx + 1), 
+                            pi + padded[parity][d]);
+                        assertEquals(region.getIndex(p.x, p.y), 
+                            neighbors[d]);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetNeighborRejectsDirectionSix()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(1.0, true, false);
+        hexagonGrid.getNeighbor(0, 0, 6, null);
+    }
+    
+    private static void assertBoundsEqual(
+        Rectangle2D expected, Rectangle2D actual)
+    {
+        String message = "Expected " + expected + ", but got " + actual;
+        assertEquals(message, expected.getMinX(), actual.getMinX(), EPSILON);
+        assertEquals(message, expected.getMinY(), actual.getMinY(), EPSILON);
+        assertEquals(message, expected.getMaxX(), actual.getMaxX(), EPSILON);
+        assertEquals(message, expected.getMaxY(), actual.getMaxY(), EPSILON);
+    }
+
+    private static Rectangle2D computeBoundsBruteForce(
+        HexagonGrid hexagonGrid, int x0, int y0, int x1, int y1)
+    {
+        Rectangle2D bounds = null;
+        Point2D center = new Point2D.Double();
+        for (int x = x0; x <= x1; x++)
+        {
+            for (int y = y0; y <= y1; y++)
+            {
+                hexagonGrid.getCenter(x, y, center);
+                Rectangle2D r = Hexagons.computeBounds(
+                    hexagonGrid.getHexagon(), center, null);
+                if (bounds == null)
+                {
+                    bounds = r;
+                }
+                else
+                {
+                    Rectangle2D.union(bounds, r, bounds);
+                }
+            }
+        }
+        return bounds;
+    }
+}
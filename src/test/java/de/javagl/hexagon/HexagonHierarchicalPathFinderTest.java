@@ -0,0 +1,160 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonHierarchicalPathFinder} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonHierarchicalPathFinderTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    private static final int CLUSTER_SIZES[] = { 3, 5, 8 };
+    
+    @Test
+    public void testPathsAreValid()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -6, 4, 37, 29);
+            double cellCosts[] = 
+                HexagonPathFinderTest.createCosts(region, random);
+            CellCostFunction costFunction = 
+                (x, y) -> cellCosts[region.getIndex(x, y)];
+            HexagonPathFinder pathFinder = 
+                new HexagonPathFinder(region, costFunction, 1.0);
+            for (int clusterSize : CLUSTER_SIZES)
+            {
+                HexagonHierarchicalPathFinder hierarchical = 
+                    new HexagonHierarchicalPathFinder(
+                        region, costFunction, 1.0, clusterSize);
+                for (int i = 0; i < 200; i++)
+                {
+                    int start = randomPassableCell(region, cellCosts, random);
+                    int goal = random.nextInt(region.getNumCells());
+                    checkPath(region, cellCosts, pathFinder, hierarchical, 
+                        start, goal);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testRepairMatchesRebuild()
+    {
+        Random random = new Random(1);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 3, -2, 31, 26);
+            double cellCosts[] = 
+                HexagonPathFinderTest.createCosts(region, random);
+            CellCostFunction costFunction = 
+                (x, y) -> cellCosts[region.getIndex(x, y)];
+            for (int clusterSize : CLUSTER_SIZES)
+            {
+                HexagonHierarchicalPathFinder repaired = 
+                    new HexagonHierarchicalPathFinder(
+                        region, costFunction, 1.0, clusterSize);
+                for (int round = 0; round < 3; round++)
+                {
+                    for (int i = 0; i < 40; i++)
+                    {
+                        int index = random.nextInt(region.getNumCells());
+                        cellCosts[index] = random.nextInt(4) == 0 ? 
+                            Double.POSITIVE_INFINITY : 1.0 + random.nextInt(5);
+                        repaired.invalidate(
+                            region.getX(index), region.getY(index));
+                    }
+                    repaired.repair();
+                    HexagonHierarchicalPathFinder rebuilt = 
+                        new HexagonHierarchicalPathFinder(
+                            region, costFunction, 1.0, clusterSize);
+                    assertEquals(rebuilt.getNumAbstractNodes(), 
+                        repaired.getNumAbstractNodes());
+                    for (int i = 0; i < 50; i++)
+                    {
+                        int start = 
+                            randomPassableCell(region, cellCosts, random);
+                        int goal = random.nextInt(region.getNumCells());
+                        assertSameResult(region, rebuilt, repaired, 
+                            start, goal);
+                    }
+                }
+            }
+        }
+    }
+    
+    private static int randomPassableCell(
+        HexagonGridRegion region, double cellCosts[], Random random)
+    {
+        while (true)
+        {
+            int index = random.nextInt(region.getNumCells());
+            if (cellCosts[index] < Double.POSITIVE_INFINITY)
+            {
+                return index;
+            }
+        }
+    }
+    
+    private static void checkPath(HexagonGridRegion region, 
+        double cellCosts[], HexagonPathFinder pathFinder, 
+        HexagonHierarchicalPathFinder hierarchical, int start, int goal)
+    {
+        int sx = region.getX(start);
+        int sy = region.getY(start);
+        int gx = region.getX(goal);
+        int gy = region.getY(goal);
+        boolean expected = pathFinder.findPath(sx, sy, gx, gy);
+        boolean found = hierarchical.findPath(sx, sy, gx, gy);
+        assertEquals(expected, found);
+        if (!found)
+        {
+            return;
+        }
+        int n = hierarchical.getPathLength();
+        assertEquals(start, hierarchical.getPathIndex(0));
+        assertEquals(goal, hierarchical.getPathIndex(n - 1));
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        double cost = 0.0;
+        for (int i = 1; i < n; i++)
+        {
+            assertEquals(1, hexagonGrid.computeStepsDistance(
+                hierarchical.getPathX(i - 1), hierarchical.getPathY(i - 1), 
+                hierarchical.getPathX(i), hierarchical.getPathY(i)));
+            double c = cellCosts[hierarchical.getPathIndex(i)];
+            assertTrue(c < Double.POSITIVE_INFINITY);
+            cost += c;
+        }
+        assertEquals(cost, hierarchical.getPathCost(), EPSILON);
+        assertTrue(hierarchical.getPathCost() >= 
+            pathFinder.getPathCost() - EPSILON);
+    }
+    
+    private static void assertSameResult(HexagonGridRegion region, 
+        HexagonHierarchicalPathFinder expected, 
+        HexagonHierarchicalPathFinder actual, int start, int goal)
+    {
+        int sx = region.getX(start);
+        int sy = region.getY(start);
+        int gx = region.getX(goal);
+        int gy = region.getY(goal);
+        assertEquals(expected.findPath(sx, sy, gx, gy), 
+            actual.findPath(sx, sy, gx, gy));
+        assertEquals(expected.getPathCost(), actual.getPathCost(), EPSILON);
+        assertEquals(expected.getPathLength(), actual.getPathLength());
+        for (int i = 0; i < expected.getPathLength(); i++)
+        {
+            assertEquals(expected.getPathIndex(i), actual.getPathIndex(i));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonIntAutomaton} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonIntAutomatonTest
+{
+    @Test
+    public void testStepMatchesNaiveStep()
+    {
+        int boundaryValue = 7;
+        // A rule that depends on the order of the neighbors
+        CellIntRule rule = (index, value, neighbors) -> 
+        {
+            int result = value;
+            for (int d = 0; d < 6; d++)
+            {
+                result = result * 31 + neighbors[d];
+            }
+            return result & 0xFF;
+        };
+        Random random = new Random(0);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+            {
+                HexagonGridRegion region = 
+                    new HexagonGridRegion(hexagonGrid, -3, 5, 37, 41);
+                HexagonIntAutomaton automaton = 
+                    new HexagonIntAutomaton(region, boundaryValue, pool);
+                int expected[] = automaton.getCurrent().getValues();
+                for (int i = 0; i < expected.length; i++)
+                {
+                    expected[i] = random.nextInt(256);
+                }
+                expected = expected.clone();
+                for (int g = 0; g < 5; g++)
+                {
+                    expected = naiveStep(region, boundaryValue, rule, 
+                        expected);
+                    automaton.step(rule);
+                    assertArrayEquals(expected, 
+                        automaton.getCurrent().getValues());
+                }
+                assertEquals(5, automaton.getGeneration());
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    private static int[] naiveStep(HexagonGridRegion region, 
+        int boundaryValue, CellIntRule rule, int source[])
+    {
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        Point p = new Point();
+        int neighbors[] = new int[6];
+        int target[] = new int[source.length];
+        for (int i = 0; i < source.length; i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            for (int d = 0; d < 6; d++)
+            {
+                hexagonGrid.getNeighbor(x, y, d, p);
+                int neighbor = region.getIndex(p.x, p.y);
+                neighbors[d] = 
+                    neighbor < 0 ? boundaryValue : source[neighbor];
+            }
+            target[i] = rule.apply(i, source[i], neighbors);
+        }
+        return target;
+    }
+}
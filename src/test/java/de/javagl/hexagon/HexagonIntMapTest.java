@@ -0,0 +1,76 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonIntMap} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonIntMapTest
+{
+    @Test
+    public void testGetAndSet()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, true), -2, -6, 7, 9);
+        HexagonIntMap map = new HexagonIntMap(region);
+        for (int y = -6; y < 3; y++)
+        {
+            for (int x = -2; x < 5; x++)
+            {
+                map.set(x, y, x * 100 + y);
+            }
+        }
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            int x = region.getX(i);
+            int y = region.getY(i);
+            assertEquals(x * 100 + y, map.get(i));
+            assertEquals(x * 100 + y, map.get(x, y));
+            assertEquals(x * 100 + y, map.getValues()[i]);
+        }
+        map.fill(3);
+        assertEquals(3, map.get(-2, -6));
+        assertEquals(3, map.get(4, 2));
+    }
+    
+    @Test
+    public void testGetNeighbor()
+    {
+        Point p = new Point();
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -3, 1, 6, 5);
+            HexagonIntMap map = new HexagonIntMap(region);
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                map.set(i, i + 1);
+            }
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                for (int d = 0; d < 6; d++)
+                {
+                    hexagonGrid.getNeighbor(x, y, d, p);
+                    int expected = region.contains(p.x, p.y) ? 
+                        map.get(p.x, p.y) : -1;
+                    assertEquals(expected, map.getNeighbor(x, y, d, -1));
+                }
+            }
+        }
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCellOutsideOfRegionIsRejected()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, false), 4, 4);
+        new HexagonIntMap(region).set(4, 0, 1);
+    }
+}
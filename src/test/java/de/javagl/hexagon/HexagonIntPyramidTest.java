@@ -0,0 +1,60 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonIntPyramid} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonIntPyramidTest
+{
+    @Test
+    public void testIncrementalUpdatesMatchRebuild()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 2, -7, 45, 38);
+            HexagonGridHierarchy hierarchy = 
+                new HexagonGridHierarchy(region, 2, 4);
+            HexagonIntPyramid pyramid = new HexagonIntPyramid(hierarchy);
+            HexagonIntPyramid expected = new HexagonIntPyramid(hierarchy);
+            int numCells = region.getNumCells();
+            for (int i = 0; i < 20000; i++)
+            {
+                // Use a small range of values, to cause many updates
+                // of cells that are the minimum or maximum
+                pyramid.set(random.nextInt(numCells), random.nextInt(20));
+            }
+            System.arraycopy(pyramid.getValues(), 0, 
+                expected.getValues(), 0, numCells);
+            expected.rebuild();
+            long total = 0;
+            for (int value : pyramid.getValues())
+            {
+                total += value;
+            }
+            for (int level = 0; level < hierarchy.getNumLevels(); level++)
+            {
+                int n = hierarchy.getRegion(level).getNumCells();
+                long levelTotal = 0;
+                for (int index = 0; index < n; index++)
+                {
+                    levelTotal += pyramid.getSum(level, index);
+                    assertEquals(expected.getSum(level, index), 
+                        pyramid.getSum(level, index));
+                    assertEquals(expected.getMin(level, index), 
+                        pyramid.getMin(level, index));
+                    assertEquals(expected.getMax(level, index), 
+                        pyramid.getMax(level, index));
+                }
+                assertEquals(total, levelTotal);
+            }
+        }
+    }
+}
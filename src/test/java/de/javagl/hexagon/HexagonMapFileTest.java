@@ -0,0 +1,127 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link HexagonMapFile} and {@link HexagonMapFileWriter}
+ * classes
+ */
+@SuppressWarnings("javadoc")
+public class HexagonMapFileTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(2.5, false, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -3, 7, 301, 5);
+        Random random = new Random(0);
+        HexagonIntMap intMap = new HexagonIntMap(region);
+        HexagonFloatMap floatMap = new HexagonFloatMap(region);
+        HexagonDoubleMap doubleMap = new HexagonDoubleMap(region);
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            intMap.set(i, random.nextInt());
+            floatMap.set(i, random.nextFloat());
+            doubleMap.set(i, random.nextDouble());
+        }
+        
+        Path path = folder.newFile("map.bin").toPath();
+        HexagonMapFileWriter writer = new HexagonMapFileWriter(region);
+        writer.addLayer(floatMap);
+        writer.addLayer(intMap);
+        writer.addLayer(doubleMap);
+        writer.write(path);
+        
+        HexagonMapFile file = HexagonMapFile.open(path);
+        HexagonGridRegion fileRegion = file.getRegion();
+        assertEquals(-3, fileRegion.getMinX());
+        assertEquals(7, fileRegion.getMinY());
+        assertEquals(301, fileRegion.getWidth());
+        assertEquals(5, fileRegion.getHeight());
+        HexagonGrid fileGrid = fileRegion.getHexagonGrid();
+        assertFalse(HexagonGrids.isVertical(fileGrid));
+        assertTrue(HexagonGrids.isEvenShifted(fileGrid));
+        assertEquals(2.5, fileGrid.getHexagon().getRadius(), 0.0);
+        
+        assertEquals(3, file.getNumLayers());
+        assertEquals(HexagonMapFile.TYPE_FLOAT, file.getLayerType(0));
+        assertEquals(HexagonMapFile.TYPE_INT, file.getLayerType(1));
+        assertEquals(HexagonMapFile.TYPE_DOUBLE, file.getLayerType(2));
+        assertArrayEquals(floatMap.getValues(), 
+            file.readFloatMap(0).getValues(), 0.0f);
+        assertArrayEquals(intMap.getValues(), 
+            file.readIntMap(1).getValues());
+        assertArrayEquals(doubleMap.getValues(), 
+            file.readDoubleMap(2).getValues(), 0.0);
+        assertEquals(intMap.get(12), file.getIntLayer(1).get(12));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLayerTypeIsRejected() throws IOException
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), 4, 4);
+        Path path = folder.newFile("map.bin").toPath();
+        HexagonMapFileWriter writer = new HexagonMapFileWriter(region);
+        writer.addLayer(new HexagonIntMap(region));
+        writer.write(path);
+        HexagonMapFile.open(path).getFloatLayer(0);
+    }
+    
+    @Test
+    public void testInvalidFilesAreRejected() throws IOException
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), 4, 4);
+        Path path = folder.newFile("map.bin").toPath();
+        HexagonMapFileWriter writer = new HexagonMapFileWriter(region);
+        writer.addLayer(new HexagonDoubleMap(region));
+        writer.write(path);
+        byte data[] = Files.readAllBytes(path);
+        
+        Path truncated = folder.newFile("truncated.bin").toPath();
+        Files.write(truncated, Arrays.copyOf(data, data.length - 8));
+        assertOpenFails(truncated);
+        
+        Path newerVersion = folder.newFile("newer.bin").toPath();
+        byte modified[] = data.clone();
+        modified[4] = (byte)(HexagonMapFile.VERSION + 1);
+        Files.write(newerVersion, modified);
+        assertOpenFails(newerVersion);
+        
+        Path garbage = folder.newFile("garbage.bin").toPath();
+        Files.write(garbage, new byte[64]);
+        assertOpenFails(garbage);
+    }
+    
+    private static void assertOpenFails(Path path)
+    {
+        try
+        {
+            HexagonMapFile.open(path);
+            fail("Expected an IOException for " + path);
+        }
+        catch (IOException e)
+        {
+            // Expected
+        }
+    }
+}
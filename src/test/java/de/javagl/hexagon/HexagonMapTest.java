@@ -0,0 +1,70 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonMap} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonMapTest
+{
+    @Test
+    public void testGetAndSet()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, true, false), -5, 2, 4, 3);
+        HexagonMap<Point> map = new HexagonMap<Point>(region);
+        assertNull(map.get(-5, 2));
+        for (int y = 2; y < 5; y++)
+        {
+            for (int x = -5; x < -1; x++)
+            {
+                map.set(x, y, new Point(x, y));
+            }
+        }
+        for (int i = 0; i < region.getNumCells(); i++)
+        {
+            Point expected = new Point(region.getX(i), region.getY(i));
+            assertEquals(expected, map.get(i));
+            assertEquals(expected, map.get(expected.x, expected.y));
+            assertEquals(expected, map.getValues()[i]);
+        }
+        map.fill(null);
+        assertNull(map.get(-2, 4));
+    }
+    
+    @Test
+    public void testGetNeighbor()
+    {
+        Point p = new Point();
+        Point outside = new Point(-1, -1);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -2, -2, 5, 5);
+            HexagonMap<Point> map = new HexagonMap<Point>(region);
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                map.set(i, new Point(region.getX(i), region.getY(i)));
+            }
+            for (int i = 0; i < region.getNumCells(); i++)
+            {
+                int x = region.getX(i);
+                int y = region.getY(i);
+                for (int d = 0; d < 6; d++)
+                {
+                    hexagonGrid.getNeighbor(x, y, d, p);
+                    Point expected = region.contains(p.x, p.y) ? 
+                        new Point(p) : outside;
+                    assertEquals(expected, 
+                        map.getNeighbor(x, y, d, outside));
+                }
+            }
+        }
+    }
+}
@@ -71,18 +71,24 @@ class HexagonPaintTestPanel extends JPanel
             return;
         }
         Hexagon hexagon = hexagonGrid.getHexagon();
-        for (int x=0; x<100; x++)
+        Rectangle2D visible = g.getClipBounds();
+        if (visible == null)
         {
-            for (int y=0; y<100; y++)
+            visible = new Rectangle2D.Double(0, 0, getWidth(), getHeight());
+        }
+        HexagonGrids.forEachIntersectingCell(hexagonGrid, visible, (x, y) ->
+        {
+            if (x < 0 || y < 0)
             {
-                Point2D center = hexagonGrid.getCenter(x, y, null);
-                Shape shape = Hexagons.createShape(hexagon, center);
-                g.setColor(Color.LIGHT_GRAY);
-                g.fill(scaleAboutCenter(shape, 0.9));
-                g.setColor(Color.BLACK);
-                g.draw(scaleAboutCenter(shape, 0.9));
+                return;
             }
-        }
+            Point2D center = hexagonGrid.getCenter(x, y, null);
+            Shape shape = Hexagons.createShape(hexagon, center);
+            g.setColor(Color.LIGHT_GRAY);
+            g.fill(scaleAboutCenter(shape, 0.9));
+            g.setColor(Color.BLACK);
+            g.draw(scaleAboutCenter(shape, 0.9));
+        });
         
         int cx = 5;
         int cy = 5;
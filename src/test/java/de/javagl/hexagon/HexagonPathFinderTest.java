@@ -0,0 +1,150 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonPathFinder} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonPathFinderTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testPathsAreOptimal()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, -4, 3, 23, 19);
+            double cellCosts[] = createCosts(region, random);
+            CellCostFunction costFunction = 
+                (x, y) -> cellCosts[region.getIndex(x, y)];
+            HexagonPathFinder pathFinder = 
+                new HexagonPathFinder(region, costFunction, 1.0);
+            for (int i = 0; i < 100; i++)
+            {
+                int start = random.nextInt(region.getNumCells());
+                int goal = random.nextInt(region.getNumCells());
+                double expected[] = computeDistances(region, cellCosts, start);
+                boolean found = pathFinder.findPath(
+                    region.getX(start), region.getY(start), 
+                    region.getX(goal), region.getY(goal));
+                assertEquals(expected[goal] < Double.POSITIVE_INFINITY, found);
+                if (found)
+                {
+                    assertEquals(expected[goal], 
+                        pathFinder.getPathCost(), EPSILON);
+                    assertEquals(pathFinder.getPathCost(), 
+                        checkPath(region, cellCosts, pathFinder, start, goal),
+                        EPSILON);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check that the path of the given path finder leads from the start
+     * to the goal through adjacent, passable cells, and return the sum 
+     * of the costs for entering its cells
+     */
+    private static double checkPath(HexagonGridRegion region, 
+        double cellCosts[], HexagonPathFinder pathFinder, 
+        int start, int goal)
+    {
+        int n = pathFinder.getPathLength();
+        assertEquals(start, pathFinder.getPathIndex(0));
+        assertEquals(goal, pathFinder.getPathIndex(n - 1));
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        double cost = 0.0;
+        for (int i = 1; i < n; i++)
+        {
+            int x0 = pathFinder.getPathX(i - 1);
+            int y0 = pathFinder.getPathY(i - 1);
+            int x1 = pathFinder.getPathX(i);
+            int y1 = pathFinder.getPathY(i);
+            assertEquals(1, 
+                hexagonGrid.computeStepsDistance(x0, y0, x1, y1));
+            double c = cellCosts[pathFinder.getPathIndex(i)];
+            assertTrue(c < Double.POSITIVE_INFINITY);
+            cost += c;
+        }
+        return cost;
+    }
+    
+    /**
+     * Create random costs for the cells of the given region, with about 
+     * one quarter of the cells being impassable
+     */
+    static double[] createCosts(HexagonGridRegion region, Random random)
+    {
+        double cellCosts[] = new double[region.getNumCells()];
+        for (int i = 0; i < cellCosts.length; i++)
+        {
+            if (random.nextInt(4) == 0)
+            {
+                cellCosts[i] = Double.POSITIVE_INFINITY;
+            }
+            else
+            {
+                cellCosts[i] = 1.0 + random.nextInt(5);
+            }
+        }
+        return cellCosts;
+    }
+    
+    /**
+     * Compute the costs of the cheapest paths from the given start cell 
+     * to all cells, with a plain Dijkstra search. The cost of a path is 
+     * the sum of the costs for entering its cells, except for the start
+     * cell.
+     */
+    static double[] computeDistances(
+        HexagonGridRegion region, double cellCosts[], int start)
+    {
+        int n = region.getNumCells();
+        double distances[] = new double[n];
+        boolean done[] = new boolean[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[start] = 0.0;
+        HexagonGrid hexagonGrid = region.getHexagonGrid();
+        Point p = new Point();
+        while (true)
+        {
+            int current = -1;
+            for (int i = 0; i < n; i++)
+            {
+                if (!done[i] && distances[i] < Double.POSITIVE_INFINITY && 
+                    (current < 0 || distances[i] < distances[current]))
+                {
+                    current = i;
+                }
+            }
+            if (current < 0)
+            {
+                return distances;
+            }
+            done[current] = true;
+            int x = region.getX(current);
+            int y = region.getY(current);
+            for (int d = 0; d < 6; d++)
+            {
+                hexagonGrid.getNeighbor(x, y, d, p);
+                int neighbor = region.getIndex(p.x, p.y);
+                if (neighbor >= 0)
+                {
+                    distances[neighbor] = Math.min(distances[neighbor], 
+                        distances[current] + cellCosts[neighbor]);
+                }
+            }
+        }
+    }
+}
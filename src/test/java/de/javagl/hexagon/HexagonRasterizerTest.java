@@ -0,0 +1,215 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonRasterizer}, comparing its output to
+ * the output of filling the hexagon shapes with a Graphics2D
+ */
+@SuppressWarnings("javadoc")
+public class HexagonRasterizerTest
+{
+    /**
+     * The distance to the boundary of a hexagon below which a pixel 
+     * may be different from the one painted with Graphics2D, due to 
+     * its internal sub-pixel precision
+     */
+    private static final double EPSILON = 1.0 / 256.0;
+    
+    @Test
+    public void testRasterizerMatchesShapes()
+    {
+        double radii[] = { 5.0, 7.3, 12.77 };
+        for (int v = 0; v < 2; v++)
+        {
+            for (int e = 0; e < 2; e++)
+            {
+                for (double radius : radii)
+                {
+                    HexagonGrid hexagonGrid = 
+                        HexagonGrids.create(radius, v == 1, e == 1);
+                    check(hexagonGrid, -13.3, -7.7);
+                    check(hexagonGrid, 20.0, 10.0);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testRasterizerOnlyTouchesCoveredPixels()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(10.0, true, false);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, 2, 3, 4, 5);
+        int background = 0x12345678;
+        int foreground = 0xFFFFFFFF;
+        int colors[] = new int[region.getNumCells()];
+        Arrays.fill(colors, foreground);
+        int w = 200;
+        int h = 200;
+        int pixels[] = new int[w * h];
+        Arrays.fill(pixels, background);
+        new HexagonRasterizer(region).render(
+            colors, 0.0, 0.0, pixels, 0, w, w, h);
+        for (int py = 0; py < h; py++)
+        {
+            for (int px = 0; px < w; px++)
+            {
+                double x = px + 0.5;
+                double y = py + 0.5;
+                Point cell = hexagonGrid.getCell(x, y, null);
+                int expected = region.contains(cell.x, cell.y) ? 
+                    foreground : background;
+                if (pixels[py * w + px] != expected)
+                {
+                    double distance = 
+                        computeBoundaryDistance(hexagonGrid, x, y);
+                    assertTrue("Pixel (" + px + "," + py + ") differs", 
+                        distance < EPSILON);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testRasterizerRendersIntoSubimage()
+    {
+        HexagonGrid hexagonGrid = HexagonGrids.create(6.0, false, true);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, 0, 0, 20, 20);
+        int colors[] = new int[region.getNumCells()];
+        for (int i = 0; i < colors.length; i++)
+        {
+            colors[i] = 0xFF000000 | (i * 7919);
+        }
+        HexagonRasterizer rasterizer = new HexagonRasterizer(region);
+        int w = 70;
+        int h = 50;
+        BufferedImage expected = 
+            new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        rasterizer.render(colors, 3.5, 2.5, expected);
+        
+        int background = 0x12345678;
+        BufferedImage parent = 
+            new BufferedImage(120, 90, BufferedImage.TYPE_INT_ARGB);
+        for (int py = 0; py < parent.getHeight(); py++)
+        {
+            for (int px = 0; px < parent.getWidth(); px++)
+            {
+                parent.setRGB(px, py, background);
+            }
+        }
+        int sx = 17;
+        int sy = 23;
+        BufferedImage subimage = parent.getSubimage(sx, sy, w, h);
+        Graphics2D g = subimage.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, w, h);
+        g.dispose();
+        rasterizer.render(colors, 3.5, 2.5, subimage);
+        for (int py = 0; py < parent.getHeight(); py++)
+        {
+            for (int px = 0; px < parent.getWidth(); px++)
+            {
+                int rx = px - sx;
+                int ry = py - sy;
+                boolean inside = rx >= 0 && rx < w && ry >= 0 && ry < h;
+                int expectedRGB = inside ? 
+                    expected.getRGB(rx, ry) : background;
+                assertEquals("Pixel (" + px + "," + py + ")", 
+                    expectedRGB, parent.getRGB(px, py));
+            }
+        }
+    }
+    
+    private static void check(
+        HexagonGrid hexagonGrid, double originX, double originY)
+    {
+        Random random = new Random(0);
+        HexagonGridRegion region = 
+            new HexagonGridRegion(hexagonGrid, -3, -2, 60, 50);
+        int colors[] = new int[region.getNumCells()];
+        for (int i = 0; i < colors.length; i++)
+        {
+            colors[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        int w = 411;
+        int h = 297;
+        BufferedImage actual = 
+            new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        new HexagonRasterizer(region).render(
+            colors, originX, originY, actual);
+        
+        BufferedImage expected = 
+            new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = expected.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, 
+            RenderingHints.VALUE_STROKE_PURE);
+        g.translate(-originX, -originY);
+        HexagonShape shape = new HexagonShape(hexagonGrid.getHexagon());
+        Point2D center = new Point2D.Double();
+        for (int index = 0; index < region.getNumCells(); index++)
+        {
+            int x = region.getX(index);
+            int y = region.getY(index);
+            hexagonGrid.getCenter(x, y, center);
+            shape.setCenter(center);
+            g.setColor(new Color(colors[index], true));
+            g.fill(shape);
+        }
+        g.dispose();
+        
+        int numDifferent = 0;
+        for (int py = 0; py < h; py++)
+        {
+            for (int px = 0; px < w; px++)
+            {
+                if (actual.getRGB(px, py) != expected.getRGB(px, py))
+                {
+                    double distance = computeBoundaryDistance(hexagonGrid, 
+                        originX + px + 0.5, originY + py + 0.5);
+                    assertTrue("Pixel (" + px + "," + py + ") differs, with " 
+                        + "a distance of " + distance + " to the boundary", 
+                        distance < EPSILON);
+                    numDifferent++;
+                }
+            }
+        }
+        assertTrue(numDifferent < 50);
+    }
+
+    private static double computeBoundaryDistance(
+        HexagonGrid hexagonGrid, double x, double y)
+    {
+        Hexagon hexagon = hexagonGrid.getHexagon();
+        Point cell = hexagonGrid.getCell(x, y, null);
+        Point2D center = hexagonGrid.getCenter(cell.x, cell.y, null);
+        double minDistance = Double.MAX_VALUE;
+        for (int i = 0; i < 6; i++)
+        {
+            int j = (i + 1) % 6;
+            double x0 = center.getX() + hexagon.getCornerX(i);
+            double y0 = center.getY() + hexagon.getCornerY(i);
+            double x1 = center.getX() + hexagon.getCornerX(j);
+            double y1 = center.getY() + hexagon.getCornerY(j);
+            double distance = 
+                Line2D.ptSegDist(x0, y0, x1, y1, x, y);
+            minDistance = Math.min(minDistance, distance);
+        }
+        return minDistance;
+    }
+}
@@ -0,0 +1,74 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonShape} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonShapeTest
+{
+    private static final double EPSILON = 1e-9;
+    
+    @Test
+    public void testShapeMatchesHexagonsShape()
+    {
+        Random random = new Random(0);
+        Hexagon hexagons[] = 
+        {
+            Hexagons.createVertical(3.5),
+            Hexagons.createHorizontal(3.5)
+        };
+        for (Hexagon hexagon : hexagons)
+        {
+            HexagonShape shape = new HexagonShape(hexagon);
+            for (int c = 0; c < 20; c++)
+            {
+                Point2D center = new Point2D.Double(
+                    random.nextDouble() * 40 - 20, 
+                    random.nextDouble() * 40 - 20);
+                shape.setCenter(center);
+                Shape expected = Hexagons.createShape(hexagon, center);
+                Area expectedArea = new Area(expected);
+                
+                Rectangle2D expectedBounds = expected.getBounds2D();
+                Rectangle2D bounds = shape.getBounds2D();
+                assertEquals(expectedBounds.getMinX(), bounds.getMinX(), 
+                    EPSILON);
+                assertEquals(expectedBounds.getMinY(), bounds.getMinY(), 
+                    EPSILON);
+                assertEquals(expectedBounds.getMaxX(), bounds.getMaxX(), 
+                    EPSILON);
+                assertEquals(expectedBounds.getMaxY(), bounds.getMaxY(), 
+                    EPSILON);
+                
+                for (int i = 0; i < 200; i++)
+                {
+                    double x = center.getX() + random.nextDouble() * 10 - 5;
+                    double y = center.getY() + random.nextDouble() * 10 - 5;
+                    assertEquals(expected.contains(x, y), 
+                        shape.contains(x, y));
+                    
+                    double w = random.nextDouble() * 3;
+                    double h = random.nextDouble() * 3;
+                    Area area = new Area(new Rectangle2D.Double(x, y, w, h));
+                    area.intersect(expectedArea);
+                    assertEquals(!area.isEmpty(), 
+                        shape.intersects(x, y, w, h));
+                }
+                
+                Area area = new Area(shape);
+                area.exclusiveOr(expectedArea);
+                assertEquals(0.0, area.getBounds2D().getWidth(), EPSILON);
+            }
+        }
+    }
+}
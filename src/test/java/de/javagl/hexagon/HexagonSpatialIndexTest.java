@@ -0,0 +1,162 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonSpatialIndex} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonSpatialIndexTest
+{
+    private static final int NUM_ENTITIES = 400;
+    
+    private static final double EXTENT = 60.0;
+    
+    @Test
+    public void testQueriesMatchBruteForce()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(2.5))
+        {
+            HexagonSpatialIndex index = new HexagonSpatialIndex(hexagonGrid);
+            double xs[] = new double[NUM_ENTITIES];
+            double ys[] = new double[NUM_ENTITIES];
+            boolean contained[] = new boolean[NUM_ENTITIES];
+            for (int id = 0; id < NUM_ENTITIES; id++)
+            {
+                xs[id] = randomCoordinate(random);
+                ys[id] = randomCoordinate(random);
+                contained[id] = true;
+                index.add(id, xs[id], ys[id]);
+            }
+            checkQueries(index, xs, ys, contained, random);
+            
+            for (int i = 0; i < 1000; i++)
+            {
+                int id = random.nextInt(NUM_ENTITIES);
+                if (!contained[id])
+                {
+                    xs[id] = randomCoordinate(random);
+                    ys[id] = randomCoordinate(random);
+                    contained[id] = true;
+                    index.add(id, xs[id], ys[id]);
+                }
+                else if (random.nextInt(4) == 0)
+                {
+                    contained[id] = false;
+                    index.remove(id);
+                }
+                else
+                {
+                    xs[id] += random.nextDouble() * 10.0 - 5.0;
+                    ys[id] += random.nextDouble() * 10.0 - 5.0;
+                    index.move(id, xs[id], ys[id]);
+                }
+            }
+            checkQueries(index, xs, ys, contained, random);
+            
+            index.clear();
+            Arrays.fill(contained, false);
+            assertEquals(0, index.size());
+            checkQueries(index, xs, ys, contained, random);
+        }
+    }
+    
+    private static double randomCoordinate(Random random)
+    {
+        return random.nextDouble() * 2 * EXTENT - EXTENT;
+    }
+    
+    private static void checkQueries(HexagonSpatialIndex index, 
+        double xs[], double ys[], boolean contained[], Random random)
+    {
+        HexagonGrid hexagonGrid = index.getHexagonGrid();
+        Point p = new Point();
+        int size = 0;
+        for (int id = 0; id < NUM_ENTITIES; id++)
+        {
+            if (contained[id])
+            {
+                size++;
+            }
+        }
+        assertEquals(size, index.size());
+        
+        for (int q = 0; q < 50; q++)
+        {
+            double x = randomCoordinate(random);
+            double y = randomCoordinate(random);
+            hexagonGrid.getCell(x, y, p);
+            int cellX = p.x;
+            int cellY = p.y;
+            int steps = random.nextInt(5);
+            double radius = random.nextDouble() * 20.0;
+            
+            Set<Integer> expectedInRange = new TreeSet<Integer>();
+            Set<Integer> expectedWithin = new TreeSet<Integer>();
+            Set<Integer> expectedInCell = new TreeSet<Integer>();
+            double distances[] = new double[size];
+            int n = 0;
+            for (int id = 0; id < NUM_ENTITIES; id++)
+            {
+                if (!contained[id])
+                {
+                    continue;
+                }
+                hexagonGrid.getCell(xs[id], ys[id], p);
+                if (hexagonGrid.computeStepsDistance(
+                    cellX, cellY, p.x, p.y) <= steps)
+                {
+                    expectedInRange.add(id);
+                }
+                if (p.x == cellX && p.y == cellY)
+                {
+                    expectedInCell.add(id);
+                }
+                double distance = Math.hypot(xs[id] - x, ys[id] - y);
+                if (distance <= radius)
+                {
+                    expectedWithin.add(id);
+                }
+                distances[n++] = distance;
+            }
+            
+            Set<Integer> actual = new TreeSet<Integer>();
+            index.forEachInRange(cellX, cellY, steps, actual::add);
+            assertEquals(expectedInRange, actual);
+            
+            actual.clear();
+            index.forEachWithinDistance(x, y, radius, actual::add);
+            assertEquals(expectedWithin, actual);
+            
+            actual.clear();
+            index.forEachInCell(cellX, cellY, actual::add);
+            assertEquals(expectedInCell, actual);
+            assertEquals(expectedInCell.size(), 
+                index.getNumEntitiesInCell(cellX, cellY));
+            
+            int k = 1 + random.nextInt(10);
+            int result[] = new int[k];
+            int count = index.computeNearest(x, y, k, result);
+            assertEquals(Math.min(k, size), count);
+            Arrays.sort(distances);
+            double expectedDistances[] = Arrays.copyOf(distances, count);
+            double actualDistances[] = new double[count];
+            for (int i = 0; i < count; i++)
+            {
+                int id = result[i];
+                actualDistances[i] = Math.hypot(xs[id] - x, ys[id] - y);
+            }
+            assertArrayEquals(expectedDistances, actualDistances, 0.0);
+        }
+    }
+}
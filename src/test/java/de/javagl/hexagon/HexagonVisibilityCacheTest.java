@@ -0,0 +1,83 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link HexagonVisibilityCache} class
+ */
+@SuppressWarnings("javadoc")
+public class HexagonVisibilityCacheTest
+{
+    @Test
+    public void testCachedFieldOfViewIsReused()
+    {
+        HexagonGridRegion region = new HexagonGridRegion(
+            HexagonGrids.create(1.0, false, true), 30, 30);
+        AtomicInteger queries = new AtomicInteger();
+        HexagonFieldOfView fieldOfView = new HexagonFieldOfView(region, 
+            (x, y) -> queries.incrementAndGet() < 0);
+        HexagonVisibilityCache cache = 
+            new HexagonVisibilityCache(fieldOfView, 4);
+        int observer = cache.addObserver(10, 10);
+        
+        long visible[] = cache.getVisible(observer);
+        int numQueries = queries.get();
+        assertTrue(numQueries > 0);
+        assertSame(visible, cache.getVisible(observer));
+        assertEquals(numQueries, queries.get());
+        
+        // A cell outside of the radius does not affect the observer
+        cache.invalidate(20, 20);
+        cache.getVisible(observer);
+        assertEquals(numQueries, queries.get());
+        
+        // Moving the observer to the same cell keeps the cached result
+        cache.setObserver(observer, 10, 10);
+        cache.getVisible(observer);
+        assertEquals(numQueries, queries.get());
+    }
+    
+    @Test
+    public void testInvalidatedFieldOfViewIsRecomputed()
+    {
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            HexagonGridRegion region = 
+                new HexagonGridRegion(hexagonGrid, 30, 30);
+            HexagonIntMap walls = new HexagonIntMap(region);
+            HexagonFieldOfView fieldOfView = new HexagonFieldOfView(
+                region, (x, y) -> walls.get(x, y) != 0);
+            HexagonVisibilityCache cache = 
+                new HexagonVisibilityCache(fieldOfView, 6);
+            int near = cache.addObserver(10, 10);
+            int far = cache.addObserver(25, 25);
+            
+            long nearBefore[] = cache.getVisible(near).clone();
+            long farBefore[] = cache.getVisible(far).clone();
+            assertTrue(CellBitSets.get(nearBefore, region.getIndex(10, 14)));
+            
+            walls.set(10, 12, 1);
+            cache.invalidate(10, 12);
+            cache.update();
+            
+            long expected[] = CellBitSets.create(region);
+            fieldOfView.compute(10, 10, 6, expected);
+            assertArrayEquals(expected, cache.getVisible(near));
+            assertFalse(CellBitSets.get(
+                cache.getVisible(near), region.getIndex(10, 14)));
+            assertArrayEquals(farBefore, cache.getVisible(far));
+            
+            cache.setObserver(far, 12, 12);
+            fieldOfView.compute(12, 12, 6, expected);
+            assertArrayEquals(expected, cache.getVisible(far));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link LongIntHashMap} class
+ */
+@SuppressWarnings("javadoc")
+public class LongIntHashMapTest
+{
+    @Test
+    public void testPutRemoveMatchesHashMap()
+    {
+        Random random = new Random(0);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        for (int i = 0; i < 100000; i++)
+        {
+            long key = PackedCoordinates.pack(
+                random.nextInt(40) - 20, random.nextInt(40) - 20);
+            int value = random.nextInt(1000);
+            if (random.nextBoolean())
+            {
+                map.put(key, value);
+                expected.put(key, value);
+            }
+            else
+            {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? -1 : removed.intValue(), 
+                    map.remove(key, -1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int x = -20; x < 20; x++)
+        {
+            for (int y = -20; y < 20; y++)
+            {
+                long key = PackedCoordinates.pack(x, y);
+                Integer value = expected.get(key);
+                assertEquals(value == null ? -1 : value.intValue(), 
+                    map.get(key, -1));
+            }
+        }
+    }
+}
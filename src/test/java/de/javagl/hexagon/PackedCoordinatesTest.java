@@ -0,0 +1,42 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link PackedCoordinates} class
+ */
+@SuppressWarnings("javadoc")
+public class PackedCoordinatesTest
+{
+    @Test
+    public void testPackAndUnpack()
+    {
+        int values[] = { 
+            0, 1, -1, 2, -2, 12345, -12345, 
+            Integer.MAX_VALUE, Integer.MIN_VALUE 
+        };
+        for (int x : values)
+        {
+            for (int y : values)
+            {
+                long packed = PackedCoordinates.pack(x, y);
+                assertEquals(x, PackedCoordinates.unpackX(packed));
+                assertEquals(y, PackedCoordinates.unpackY(packed));
+            }
+        }
+    }
+    
+    @Test
+    public void testPackedCoordinatesAreDistinct()
+    {
+        assertNotEquals(
+            PackedCoordinates.pack(0, -1), PackedCoordinates.pack(-1, -1));
+        assertNotEquals(
+            PackedCoordinates.pack(1, 0), PackedCoordinates.pack(0, 1));
+        assertNotEquals(
+            PackedCoordinates.pack(-1, 0), PackedCoordinates.pack(0, -1));
+    }
+}
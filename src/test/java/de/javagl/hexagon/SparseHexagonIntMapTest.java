@@ -0,0 +1,158 @@
+package de.javagl.hexagon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Point;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link SparseHexagonIntMap} class
+ */
+@SuppressWarnings("javadoc")
+public class SparseHexagonIntMapTest
+{
+    private static final int DEFAULT_VALUE = 7;
+    
+    private static final int RANGE = 40;
+    
+    @Test
+    public void testGetAndSetMatchReference()
+    {
+        Random random = new Random(0);
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            SparseHexagonIntMap map = 
+                new SparseHexagonIntMap(hexagonGrid, DEFAULT_VALUE);
+            Map<Point, Integer> reference = new HashMap<Point, Integer>();
+            for (int i = 0; i < 5000; i++)
+            {
+                int x = random.nextInt(2 * RANGE) - RANGE;
+                int y = random.nextInt(2 * RANGE) - RANGE;
+                int value = random.nextInt(4) + DEFAULT_VALUE - 1;
+                map.set(x, y, value);
+                setReference(reference, x, y, value);
+            }
+            checkMap(map, reference);
+            
+            // Set all cells back to the default value
+            for (Point p : new HashSet<Point>(reference.keySet()))
+            {
+                map.set(p.x, p.y, DEFAULT_VALUE);
+                reference.remove(p);
+            }
+            checkMap(map, reference);
+            assertEquals(0, map.getNumChunks());
+        }
+    }
+    
+    @Test
+    public void testNeighborsAcrossChunkBorders()
+    {
+        Random random = new Random(1);
+        Point p = new Point();
+        Point cube = new Point();
+        int size = SparseHexagonIntMap.CHUNK_SIZE * 2;
+        for (HexagonGrid hexagonGrid : HexagonGridTest.createGrids(1.0))
+        {
+            SparseHexagonIntMap map = 
+                new SparseHexagonIntMap(hexagonGrid, DEFAULT_VALUE);
+            for (int y = -size; y < size; y++)
+            {
+                for (int x = -size; x < size; x++)
+                {
+                    map.set(x, y, random.nextInt(100));
+                }
+            }
+            for (int y = -size + 1; y < size - 1; y++)
+            {
+                for (int x = -size + 1; x < size - 1; x++)
+                {
+                    hexagonGrid.convertOffsetToCubeCoordinates(x, y, cube);
+                    for (int d = 0; d < 6; d++)
+                    {
+                        hexagonGrid.getNeighbor(x, y, d, p);
+                        int expected = map.get(p.x, p.y);
+                        assertEquals(expected, map.getNeighbor(x, y, d));
+                        assertEquals(expected, 
+                            map.getCubeNeighbor(cube.x, cube.y, d));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testClear()
+    {
+        SparseHexagonIntMap map = new SparseHexagonIntMap(
+            HexagonGrids.create(1.0, true, false), DEFAULT_VALUE);
+        for (int i = -100; i <= 100; i += 10)
+        {
+            map.set(i, -i, i);
+        }
+        map.clear();
+        assertEquals(0, map.getNumChunks());
+        for (int i = -100; i <= 100; i += 10)
+        {
+            assertEquals(DEFAULT_VALUE, map.get(i, -i));
+        }
+        map.forEach((x, y, value) -> 
+        {
+            throw new AssertionError("Visited cell after clear");
+        });
+        map.set(3, 4, 5);
+        assertEquals(5, map.get(3, 4));
+        assertEquals(1, map.getNumChunks());
+    }
+    
+    private static void setReference(
+        Map<Point, Integer> reference, int x, int y, int value)
+    {
+        if (value == DEFAULT_VALUE)
+        {
+            reference.remove(new Point(x, y));
+        }
+        else
+        {
+            reference.put(new Point(x, y), value);
+        }
+    }
+    
+    private static void checkMap(
+        SparseHexagonIntMap map, Map<Point, Integer> reference)
+    {
+        HexagonGrid hexagonGrid = map.getHexagonGrid();
+        for (int y = -RANGE - 1; y <= RANGE; y++)
+        {
+            for (int x = -RANGE - 1; x <= RANGE; x++)
+            {
+                Integer expected = reference.get(new Point(x, y));
+                int value = expected == null ? DEFAULT_VALUE : expected;
+                assertEquals(value, map.get(x, y));
+            }
+        }
+        
+        Map<Point, Integer> visited = new HashMap<Point, Integer>();
+        map.forEach((x, y, value) -> 
+            assertNull(visited.put(new Point(x, y), value)));
+        assertEquals(reference, visited);
+        
+        Set<Point> chunks = new HashSet<Point>();
+        Point cube = new Point();
+        int chunkSize = SparseHexagonIntMap.CHUNK_SIZE;
+        for (Point p : reference.keySet())
+        {
+            hexagonGrid.convertOffsetToCubeCoordinates(p.x, p.y, cube);
+            chunks.add(new Point(Math.floorDiv(cube.x, chunkSize), 
+                Math.floorDiv(cube.y, chunkSize)));
+        }
+        assertEquals(chunks.size(), map.getNumChunks());
+    }
+}